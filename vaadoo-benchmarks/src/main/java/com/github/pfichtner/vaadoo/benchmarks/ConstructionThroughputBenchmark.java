@@ -0,0 +1,61 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of constructing value objects validated by regexes, run with an
+ * increasing number of threads (see {@link #main(String[])}) to see if the
+ * validation serializes the threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionThroughputBenchmark {
+
+	private final String zipCode = "12345";
+	private final String format = "\\d{5}";
+
+	@Benchmark
+	public ZipCode precompiledPattern() {
+		return new ZipCode(zipCode);
+	}
+
+	@Benchmark
+	public FormattedValue cachedPattern() {
+		return new FormattedValue(format, zipCode);
+	}
+
+	/**
+	 * Runs the benchmarks with 1, 2, 4, ... threads up to the number of available
+	 * processors.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1;; threads = Math.min(threads * 2, processors)) {
+			new Runner(new OptionsBuilder() //
+					.include(ConstructionThroughputBenchmark.class.getName()) //
+					.threads(threads) //
+					.build()).run();
+			if (threads == processors) {
+				break;
+			}
+		}
+	}
+
+}
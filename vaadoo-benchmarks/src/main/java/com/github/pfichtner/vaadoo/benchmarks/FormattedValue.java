@@ -0,0 +1,26 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import java.util.regex.Pattern;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Compiles a regex that is not known at weave time, so the call gets
+ * redirected to the regex cache copied into this class.
+ */
+public class FormattedValue {
+
+	private final String value;
+
+	public FormattedValue(@NotNull String format, @NotNull String value) {
+		if (!Pattern.compile(format).matcher(value).matches()) {
+			throw new IllegalArgumentException(value + " does not match " + format);
+		}
+		this.value = value;
+	}
+
+	public String value() {
+		return value;
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Allocations of matching a regex using <code>java.util.regex</code>, compare
+ * <code>gc.alloc.rate.norm</code> of the classes woven by
+ * <code>mvn clean package</code> with and without
+ * <code>-Dvaadoo.reuseMatcher=true</code> (see {@link #main(String[])}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatcherAllocationBenchmark {
+
+	private final String password = "s3cretpassw0rd";
+
+	@Benchmark
+	public Password validate() {
+		return new Password(password);
+	}
+
+	/**
+	 * Runs the benchmark with the GC profiler, the same as
+	 * <code>java -jar benchmarks.jar MatcherAllocationBenchmark -prof gc</code>.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder() //
+				.include(MatcherAllocationBenchmark.class.getName()) //
+				.addProfiler(GCProfiler.class) //
+				.build()).run();
+	}
+
+}
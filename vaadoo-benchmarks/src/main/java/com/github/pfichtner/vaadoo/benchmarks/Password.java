@@ -0,0 +1,21 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * The lookahead can't be compiled to bytecode, so the woven code matches the
+ * input using <code>java.util.regex</code>.
+ */
+public class Password {
+
+	private final String value;
+
+	public Password(@Pattern(regexp = "(?=.*\\d)(?=.*[a-z])\\w{8,}") String value) {
+		this.value = value;
+	}
+
+	public String value() {
+		return value;
+	}
+
+}
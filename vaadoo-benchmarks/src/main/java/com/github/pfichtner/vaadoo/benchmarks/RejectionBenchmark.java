@@ -0,0 +1,40 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of rejecting invalid inputs, compare the classes woven by
+ * <code>mvn clean package</code> with and without
+ * <code>-Dvaadoo.stacklessExceptions=true</code>. The exception's message is
+ * read like a caller logging it would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+	private final String invalid = "1234a";
+
+	@Benchmark
+	public String reject() {
+		try {
+			return new ZipCode(invalid).value();
+		} catch (IllegalArgumentException e) {
+			return e.getMessage();
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.github.pfichtner.vaadoo.benchmarks;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * The regex is a constant so the woven code uses a precompiled pattern.
+ */
+public class ZipCode {
+
+	private final String value;
+
+	public ZipCode(@Pattern(regexp = "\\d{5}") String value) {
+		this.value = value;
+	}
+
+	public String value() {
+		return value;
+	}
+
+}
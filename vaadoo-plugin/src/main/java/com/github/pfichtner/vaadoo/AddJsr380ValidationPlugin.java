@@ -1,37 +1,200 @@
 package com.github.pfichtner.vaadoo;
 
+import static com.github.pfichtner.vaadoo.CheckMethods.isStandardJr380Anno;
+import static java.lang.System.Logger.Level.WARNING;
+import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
 import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
 
+import jakarta.validation.Constraint;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
 import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.annotation.AnnotationDescription;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.jar.asm.Opcodes;
 
+/**
+ * Instances are thread-safe and can be used by ByteBuddy's parallel
+ * {@link net.bytebuddy.build.Plugin.Engine} (e.g. <code>&lt;threads&gt;</code>
+ * of the byte-buddy-maven-plugin): All state shared between the types
+ * transformed (options, parsed fragments, cache) is immutable, everything else
+ * is created per transformed type.
+ */
 public class AddJsr380ValidationPlugin implements Plugin {
 
-	private final Class<? extends Jsr380CodeFragment> codeFragment;
+	private static final System.Logger logger = System.getLogger(AddJsr380ValidationPlugin.class.getName());
+
+	private final AddValidationToConstructors addValidationToConstructors;
+	private final VaadooOptions options;
+	private final WeaveCache weaveCache;
 
 	public AddJsr380ValidationPlugin() {
 		// TODO Read class from some config file (analog lombok.config?)
-		this(JdkOnlyCodeFragment.class);
+		this(JdkOnlyCodeFragment.class, VaadooOptions.fromSystemProperties());
 	}
 
 	public AddJsr380ValidationPlugin(Class<? extends Jsr380CodeFragment> codeFragment) {
-		this.codeFragment = codeFragment;
+		this(codeFragment, VaadooOptions.defaults());
+	}
+
+	public AddJsr380ValidationPlugin(Class<? extends Jsr380CodeFragment> codeFragment, VaadooOptions options) {
+		// the fragment gets parsed once here and is reused for all types transformed
+		this.addValidationToConstructors = new AddValidationToConstructors(codeFragment, options);
+		this.options = options;
+		this.weaveCache = options.cacheDir().map(d -> new WeaveCache(d, codeFragment, options)).orElse(null);
 	}
 
 	@Override
 	public boolean matches(TypeDescription target) {
-		return true;
+		// interfaces (and so annotations) do not have constructors
+		return !target.isInterface() && hasParameterAnnotated(target, AddJsr380ValidationPlugin::isConstraint);
+	}
+
+	private static boolean hasParameterAnnotated(TypeDescription target, Predicate<TypeDescription> annotationType) {
+		return target.getDeclaredMethods().filter(isConstructor()).stream() //
+				.flatMap(c -> c.getParameters().stream()) //
+				.flatMap(p -> p.getDeclaredAnnotations().stream()) //
+				.map(AnnotationDescription::getAnnotationType) //
+				.anyMatch(annotationType);
+	}
+
+	/**
+	 * Only the checks of <code>@Pattern</code> and <code>@Email</code> match
+	 * regexes.
+	 */
+	private static boolean matchesRegexes(TypeDescription annotationType) {
+		return annotationType.represents(Pattern.class) || annotationType.represents(Email.class);
+	}
+
+	private static boolean isConstraint(TypeDescription annotationType) {
+		return isStandardJr380Anno(annotationType)
+				|| annotationType.getDeclaredAnnotations().isAnnotationPresent(Constraint.class);
 	}
 
 	@Override
 	public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription,
 			ClassFileLocator classFileLocator) {
-		return builder.visit(new AddValidationToConstructors(codeFragment));
+		return withStacklessViolation(
+				withRegexBudget(weave(builder, typeDescription, classFileLocator), typeDescription), typeDescription);
+	}
+
+	private DynamicType.Builder<?> weave(DynamicType.Builder<?> builder, TypeDescription typeDescription,
+			ClassFileLocator classFileLocator) {
+		if (weaveCache != null && classFileLocator != null) {
+			var dependencies = dependencies(typeDescription, classFileLocator);
+			if (dependencies != null) {
+				return builder.visit(new CachingVisitorWrapper(addValidationToConstructors, weaveCache, dependencies));
+			}
+		}
+		return builder.visit(addValidationToConstructors);
+	}
+
+	/**
+	 * Returns the bytes of the classes (besides the JDK's ones) the woven code
+	 * depends on: The types of the constrained parameters and their super types
+	 * (the checks injected depend on them), the custom constraint annotations
+	 * (their default message gets inlined) and their validators. Returns
+	 * <code>null</code> if any of them can't be located, so the class can't be
+	 * cached.
+	 */
+	private static List<byte[]> dependencies(TypeDescription typeDescription, ClassFileLocator classFileLocator) {
+		Set<String> names = new TreeSet<>();
+		for (var constructor : typeDescription.getDeclaredMethods().filter(isConstructor())) {
+			for (var parameter : constructor.getParameters()) {
+				var annotations = parameter.getDeclaredAnnotations();
+				if (!annotations.isEmpty()) {
+					addWithSuperTypes(names, parameter.getType().asErasure());
+				}
+				for (var annotation : annotations) {
+					var annotationType = annotation.getAnnotationType();
+					if (!isStandardJr380Anno(annotationType)) {
+						addWithSuperTypes(names, annotationType);
+						var constraint = annotationType.getDeclaredAnnotations().ofType(Constraint.class);
+						if (constraint != null) {
+							for (var validator : constraint.getValue("validatedBy")
+									.resolve(TypeDescription[].class)) {
+								addWithSuperTypes(names, validator);
+							}
+						}
+					}
+				}
+			}
+		}
+		List<byte[]> dependencies = new ArrayList<>();
+		for (String name : names) {
+			var bytes = classBytes(name, classFileLocator);
+			if (bytes == null) {
+				return null;
+			}
+			dependencies.add(bytes);
+		}
+		return dependencies;
+	}
+
+	private static void addWithSuperTypes(Set<String> names, TypeDescription type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive() || type.getName().startsWith("java.") || !names.add(type.getName())) {
+			return;
+		}
+		var superClass = type.getSuperClass();
+		if (superClass != null) {
+			addWithSuperTypes(names, superClass.asErasure());
+		}
+		for (var superInterface : type.getInterfaces()) {
+			addWithSuperTypes(names, superInterface.asErasure());
+		}
+	}
+
+	private DynamicType.Builder<?> withRegexBudget(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+		int regexBudget = options.regexBudget(typeDescription.getName());
+		if (regexBudget == 0 || !hasParameterAnnotated(typeDescription, AddJsr380ValidationPlugin::matchesRegexes)) {
+			return builder;
+		}
+		if (!options.optimizeRegex()) {
+			// the inputs get wrapped where the regexes are cached
+			logger.log(WARNING, "Regex budget of " + typeDescription.getName() + " is ignored since "
+					+ VaadooOptions.OPTIMIZE_REGEX + " is disabled");
+			return builder;
+		}
+		var wrapperName = RegexBudget.wrapperName(typeDescription.getName());
+		return builder.require(new TypeDescription.Latent(wrapperName, Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC,
+				TypeDescription.ForLoadedType.of(Object.class).asGenericType()),
+				RegexBudget.wrapperClass(typeDescription.getName(), regexBudget));
+	}
+
+	private DynamicType.Builder<?> withStacklessViolation(DynamicType.Builder<?> builder,
+			TypeDescription typeDescription) {
+		if (!options.stacklessExceptions()) {
+			return builder;
+		}
+		var exceptionName = StacklessViolation.exceptionName(typeDescription.getName());
+		return builder.require(new TypeDescription.Latent(exceptionName,
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC,
+				TypeDescription.ForLoadedType.of(IllegalArgumentException.class).asGenericType()),
+				StacklessViolation.exceptionClass(typeDescription.getName()));
+	}
+
+	private static byte[] classBytes(String name, ClassFileLocator classFileLocator) {
+		try {
+			var resolution = classFileLocator.locate(name);
+			return resolution.isResolved() ? resolution.resolve() : null;
+		} catch (IOException e) {
+			// can't be cached, so weave it without the cache
+			return null;
+		}
 	}
 
 	@Override
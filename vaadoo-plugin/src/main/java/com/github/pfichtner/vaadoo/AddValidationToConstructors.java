@@ -1,9 +1,5 @@
 package com.github.pfichtner.vaadoo;
 
-import static net.bytebuddy.jar.asm.ClassWriter.COMPUTE_FRAMES;
-
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.List;
 
 import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
@@ -19,14 +15,24 @@ import net.bytebuddy.implementation.Implementation.Context;
 import net.bytebuddy.jar.asm.ClassVisitor;
 import net.bytebuddy.pool.TypePool;
 
+/**
+ * Immutable and so thread-safe, the visitors returned by
+ * {@link #wrap(TypeDescription, ClassVisitor, Context, TypePool, FieldList, MethodList, int, int)}
+ * are not and must only be used for the class they were created for.
+ */
 public class AddValidationToConstructors implements AsmVisitorWrapper {
 
-	private final Class<? extends Jsr380CodeFragment> codeFragment;
-	private final List<Method> codeFragmentMethods;
+	private final CheckMethods checkMethods;
+	private final VaadooOptions options;
+	private final AnnotationDefaults annotationDefaults = new AnnotationDefaults();
 
 	public AddValidationToConstructors(Class<? extends Jsr380CodeFragment> codeFragment) {
-		this.codeFragment = codeFragment;
-		this.codeFragmentMethods = Arrays.asList(codeFragment.getMethods());
+		this(codeFragment, VaadooOptions.defaults());
+	}
+
+	public AddValidationToConstructors(Class<? extends Jsr380CodeFragment> codeFragment, VaadooOptions options) {
+		this.checkMethods = new CheckMethods(FragmentTemplates.of(codeFragment), List.of(codeFragment.getMethods()));
+		this.options = options;
 	}
 
 	@Override
@@ -36,7 +42,8 @@ public class AddValidationToConstructors implements AsmVisitorWrapper {
 
 	@Override
 	public int mergeWriter(int flags) {
-		return flags | COMPUTE_FRAMES;
+		// frames are computed only for the code added (see FrameComputingClassWriter)
+		return flags;
 	}
 
 	@Override
@@ -47,13 +54,19 @@ public class AddValidationToConstructors implements AsmVisitorWrapper {
 		classMembers.addMethodNames(methods.stream().map(MethodDescription::getName));
 		classMembers.addFieldNames(fields.stream().map(FieldDescription::getName));
 
-		// TODO make configurable
-		boolean optimizeRegex = true;
-		ClassVisitor classVisitor2 = optimizeRegex ? new CacheRegexCompileCalls(classVisitor, classMembers)
+		ClassVisitor classVisitor2 = options.optimizeRegex()
+				? new CacheRegexCompileCalls(classVisitor, classMembers, typePool, options.compileRegex(),
+						options.hardenRegex(), options.regexBudget(instrumentedType.getName()), options.reuseMatcher())
 				: classVisitor;
 
-		return new AddValidationToConstructorsClassVisitor(classVisitor2, codeFragment, codeFragmentMethods,
-				classMembers);
+		ClassVisitor classVisitor3 = options.cacheBigNumbers()
+				? new CacheBigNumberConstants(classVisitor2, classMembers)
+				: classVisitor2;
+
+		ClassVisitor classVisitor4 = new InlineTimeSource(classVisitor3, classMembers, options.clock().orElse(null));
+
+		return new AddValidationToConstructorsClassVisitor(classVisitor4, checkMethods, classMembers,
+				typePool, options, annotationDefaults);
 	}
 
 }
@@ -1,11 +1,13 @@
 package com.github.pfichtner.vaadoo;
 
-import static com.github.pfichtner.vaadoo.AsmUtil.classtype;
+import static com.github.pfichtner.vaadoo.AsmUtil.sizeOf;
+import static com.github.pfichtner.vaadoo.AsmUtil.typeDescription;
+import static com.github.pfichtner.vaadoo.CheckMethods.isStandardJr380Anno;
 import static com.github.pfichtner.vaadoo.Parameters.parametersFromDescriptor;
-import static java.lang.String.format;
-import static java.util.stream.Collectors.toList;
 import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
 import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
 import static net.bytebuddy.jar.asm.Opcodes.ACONST_NULL;
 import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
 import static net.bytebuddy.jar.asm.Opcodes.ASM9;
@@ -21,152 +23,23 @@ import static net.bytebuddy.jar.asm.Opcodes.NEW;
 import static net.bytebuddy.jar.asm.Opcodes.RETURN;
 import static net.bytebuddy.jar.asm.Type.getType;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.function.Function;
 
 import com.github.pfichtner.vaadoo.ParameterInfo.EnumEntry;
-import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
 
 import jakarta.validation.Constraint;
-import jakarta.validation.constraints.AssertFalse;
-import jakarta.validation.constraints.AssertTrue;
-import jakarta.validation.constraints.DecimalMax;
-import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.Digits;
-import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.Future;
-import jakarta.validation.constraints.FutureOrPresent;
-import jakarta.validation.constraints.Max;
-import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.Negative;
-import jakarta.validation.constraints.NegativeOrZero;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotEmpty;
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Null;
-import jakarta.validation.constraints.Past;
-import jakarta.validation.constraints.PastOrPresent;
-import jakarta.validation.constraints.Pattern;
-import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
-import jakarta.validation.constraints.Size;
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.jar.asm.AnnotationVisitor;
 import net.bytebuddy.jar.asm.ClassVisitor;
 import net.bytebuddy.jar.asm.Label;
 import net.bytebuddy.jar.asm.MethodVisitor;
 import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.pool.TypePool;
 
 public class AddValidationToConstructorsClassVisitor extends ClassVisitor {
 
-	private static class ConfigEntry {
-
-		private final Class<? extends Annotation> anno;
-		private final Type type;
-
-		public ConfigEntry(Class<? extends Annotation> anno) {
-			this.anno = anno;
-			this.type = getType(anno);
-		}
-
-		Class<?> anno() {
-			return anno;
-		}
-
-		Type type() {
-			return type;
-		}
-
-		Class<?> resolveSuperType(Class<?> actual) {
-			return actual;
-		}
-	}
-
-	private static class FixedClassConfigEntry extends ConfigEntry {
-
-		private Class<?> superType;
-
-		public FixedClassConfigEntry(Class<? extends Annotation> anno, Class<?> superType) {
-			super(anno);
-			this.superType = superType;
-		}
-
-		@Override
-		public Class<?> resolveSuperType(Class<?> actual) {
-			return superType;
-		}
-
-	}
-
-	// possible checks during compile time:
-	// errors
-	// - @Pattern: Is the pattern valid (compile it)
-	// - @Size: Is min >= 0
-	// - @Min: Is there a @Max that is < @Min's value
-	// - @Max: Is there a @Min that is < @Max's value
-	// - @NotNull: Is there also @Null
-	// - @Null: Is there also @NotNull
-	// warnings
-	// - @NotNull: Annotations that checks for null as well like @NotBlank @NotEmpty
-	// - @Null: most (all?) other annotations doesn't make sense
-	private static final List<ConfigEntry> configs = List.of( //
-			new FixedClassConfigEntry(Null.class, Object.class), //
-			new FixedClassConfigEntry(NotNull.class, Object.class), //
-			new FixedClassConfigEntry(NotBlank.class, CharSequence.class), //
-			new ConfigEntry(NotEmpty.class) {
-				@Override
-				Class<?> resolveSuperType(Class<?> actual) {
-					var validTypes = List.of(CharSequence.class, Collection.class, Map.class, Object[].class);
-					return superType(actual, validTypes).orElseThrow(() -> {
-						return annotationOnTypeNotValid(anno(), actual,
-								validTypes.stream().map(Class::getName).collect(toList()));
-					});
-				}
-			}, //
-			new ConfigEntry(Size.class) {
-				@Override
-				Class<?> resolveSuperType(Class<?> actual) {
-					var validTypes = List.of(CharSequence.class, Collection.class, Map.class, Object[].class);
-					return superType(actual, validTypes).orElseThrow(() -> {
-						return annotationOnTypeNotValid(anno(), actual,
-								validTypes.stream().map(Class::getName).collect(toList()));
-					});
-				}
-			}, //
-			new FixedClassConfigEntry(Pattern.class, CharSequence.class), //
-			new FixedClassConfigEntry(Email.class, CharSequence.class), //
-			new ConfigEntry(AssertTrue.class), //
-			new ConfigEntry(AssertFalse.class), //
-			new ConfigEntry(Min.class), //
-			new ConfigEntry(Max.class), //
-			new ConfigEntry(Digits.class), //
-			new ConfigEntry(Positive.class), //
-			new ConfigEntry(PositiveOrZero.class), //
-			new ConfigEntry(Negative.class), //
-			new ConfigEntry(NegativeOrZero.class), //
-			new ConfigEntry(DecimalMin.class), //
-			new ConfigEntry(DecimalMax.class), //
-			new ConfigEntry(Future.class), //
-			new ConfigEntry(FutureOrPresent.class), //
-			new ConfigEntry(Past.class), //
-			new ConfigEntry(PastOrPresent.class) //
-	);
-
-	private static Optional<Class<?>> superType(Class<?> classToCheck, List<Class<?>> superTypes) {
-		return superTypes.stream().filter(t -> t.isAssignableFrom(classToCheck)).findFirst();
-	}
-
-	private static IllegalStateException annotationOnTypeNotValid(Class<?> anno, Class<?> type, List<String> valids) {
-		return new IllegalStateException(format("Annotation %s on type %s not allowed, allowed only on types: %s",
-				anno.getName(), type.getName(), valids));
-	}
-
 	private static class ConstructorVisitor extends MethodVisitor {
 
 		private final String className;
@@ -252,6 +125,13 @@ public class AddValidationToConstructorsClassVisitor extends ClassVisitor {
 			}
 		}
 
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			// the arguments for the validate method are pushed on top of "this"
+			super.visitMaxs(methodAddedName == null ? maxStack : maxStack + sizeOf(parameters.argumentTypes()),
+					maxLocals);
+		}
+
 		@Override
 		public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end,
 				int index) {
@@ -264,24 +144,34 @@ public class AddValidationToConstructorsClassVisitor extends ClassVisitor {
 
 	}
 
+	private int version;
 	private String className;
+	private String superName;
+	private String[] interfaces;
 	private final List<ConstructorVisitor> constructorVisitors = new ArrayList<>();
 	private final ClassMembers classMembers;
-	private Class<? extends Jsr380CodeFragment> codeFragment;
-	private List<Method> codeFragmentMethods;
-
-	AddValidationToConstructorsClassVisitor(ClassVisitor outputVisitor,
-			Class<? extends Jsr380CodeFragment> codeFragment, List<Method> codeFragmentMethods,
-			ClassMembers classMembers) {
+	private final CheckMethods checkMethods;
+	private final TypePool typePool;
+	private final VaadooOptions options;
+	private final AnnotationDefaults annotationDefaults;
+
+	AddValidationToConstructorsClassVisitor(ClassVisitor outputVisitor, CheckMethods checkMethods,
+			ClassMembers classMembers, TypePool typePool, VaadooOptions options,
+			AnnotationDefaults annotationDefaults) {
 		super(ASM9, outputVisitor);
-		this.codeFragment = codeFragment;
-		this.codeFragmentMethods = codeFragmentMethods;
+		this.annotationDefaults = annotationDefaults;
+		this.typePool = typePool;
+		this.options = options;
+		this.checkMethods = checkMethods;
 		this.classMembers = classMembers;
 	}
 
 	@Override
 	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		this.version = version;
 		this.className = name;
+		this.superName = superName;
+		this.interfaces = interfaces;
 		super.visit(version, access, name, signature, superName, interfaces);
 	}
 
@@ -310,116 +200,102 @@ public class AddValidationToConstructorsClassVisitor extends ClassVisitor {
 
 	private void addValidateMethod(String name, Parameters parameters) {
 		var signature = parameters.methodDescriptor();
-		MethodVisitor mv = cv.visitMethod(ACC_PRIVATE | ACC_STATIC, name, signature, null, null);
+		// frames and maxs get computed for the added method only, all the other
+		// methods are passed through unchanged
+		var frameComputingClassWriter = new FrameComputingClassWriter(typePool);
+		frameComputingClassWriter.visit(version, ACC_PUBLIC | ACC_SUPER, className, null, superName, interfaces);
+		MethodVisitor mv = frameComputingClassWriter.visitMethod(ACC_PRIVATE | ACC_STATIC, name, signature, null,
+				null);
 		mv.visitCode();
 
-		// TODO move to config
-		boolean customAnnotationsEnabled = true;
+		boolean customAnnotationsEnabled = options.customAnnotations();
+		boolean stacklessExceptions = options.stacklessExceptions();
+		var collectViolations = options.collectViolations()
+				? new CollectViolations(mv, sizeOf(parameters.argumentTypes()), constraints(parameters))
+				: null;
+		if (collectViolations != null) {
+			collectViolations.init();
+		}
 
-		var injector = new MethodInjector(codeFragment, signature);
+		var injector = new MethodInjector(signature, collectViolations == null ? 0 : CollectViolations.LOCALS,
+				options.partialEvaluation());
 		for (var parameter : parameters) {
 			for (var annotation : parameter.getAnnotations()) {
-				for (var config : configs) {
-					if (annotation.equals(config.type())) {
-						injector.inject(mv, parameter, checkMethod(config, parameter.classtype()));
-					}
+				var recording = collectViolations == null ? null : collectViolations.recording();
+				MethodVisitor target = mv;
+				if (recording != null) {
+					target = recording;
+				} else if (stacklessExceptions) {
+					target = StacklessViolation.throwing(mv, className, parameter.name(), annotation.getClassName());
 				}
-				if (customAnnotationsEnabled) {
-					var classtype = classtype(annotation);
-					if (!isStandardJr380Anno(classtype)) {
-						var contraint = classtype.getAnnotation(Constraint.class);
-						if (contraint != null) {
-							for (var validatorClass : contraint.validatedBy()) {
-								String validatorType = Type.getInternalName(validatorClass);
-								mv.visitTypeInsn(NEW, validatorType);
-								mv.visitInsn(DUP);
-								mv.visitMethodInsn(INVOKESPECIAL, validatorType, "<init>", "()V", false);
-								mv.visitVarInsn(ALOAD, parameter.index());
-								mv.visitInsn(ACONST_NULL);
-								mv.visitMethodInsn(INVOKEVIRTUAL, validatorType, "isValid",
-										"(Ljava/lang/Integer;Ljakarta/validation/ConstraintValidatorContext;)Z", false);
-								Label label0 = new Label();
-								mv.visitJumpInsn(IFNE, label0);
-								mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
-								mv.visitInsn(DUP);
-								var message = parameter.annotationValue(annotation, "message");
+				if (isStandardJr380Anno(annotation)) {
+					injector.inject(target, parameter,
+							checkMethods.checkMethod(annotation, parameter.typeDescription(typePool)),
+							annotationDefaults.of(typeDescription(typePool, annotation)));
+				} else if (customAnnotationsEnabled) {
+					var annotationType = typeDescription(typePool, annotation);
+					var contraint = annotationType.getDeclaredAnnotations().ofType(Constraint.class);
+					if (contraint != null) {
+						for (var validatorClass : contraint.getValue("validatedBy")
+								.resolve(TypeDescription[].class)) {
+							String validatorType = validatorClass.getInternalName();
+							target.visitTypeInsn(NEW, validatorType);
+							target.visitInsn(DUP);
+							target.visitMethodInsn(INVOKESPECIAL, validatorType, "<init>", "()V", false);
+							target.visitVarInsn(ALOAD, parameter.index());
+							target.visitInsn(ACONST_NULL);
+							target.visitMethodInsn(INVOKEVIRTUAL, validatorType, "isValid",
+									"(Ljava/lang/Integer;Ljakarta/validation/ConstraintValidatorContext;)Z", false);
+							Label label0 = new Label();
+							target.visitJumpInsn(IFNE, label0);
+							target.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+							target.visitInsn(DUP);
+							var message = parameter.annotationValue(annotation, "message");
+							if (message == null) {
+								Object defaultMessage = annotationDefaults.of(annotationType).get("message");
+								if (defaultMessage instanceof String) {
+									Function<String, String> rbResolver = Resources::message;
+									Function<String, String> paramNameResolver = k -> k.equals(MethodInjector.NAME)
+											? parameter.name()
+											: k;
+									message = NamedPlaceholders.replace((String) defaultMessage,
+											rbResolver.andThen(paramNameResolver));
+								}
 								if (message == null) {
-									Object defaultMessage = defaultMessage(classtype, message);
-									if (defaultMessage instanceof String) {
-										Function<String, String> rbResolver = Resources::message;
-										Function<String, String> paramNameResolver = k -> k.equals(MethodInjector.NAME)
-												? parameter.name()
-												: k;
-										message = NamedPlaceholders.replace((String) defaultMessage,
-												rbResolver.andThen(paramNameResolver));
-									}
-									if (message == null) {
-										message = parameter.name() + " not valid";
-									}
+									message = parameter.name() + " not valid";
 								}
-								mv.visitLdcInsn(message);
-								mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>",
-										"(Ljava/lang/String;)V", false);
-								mv.visitInsn(ATHROW);
-								mv.visitLabel(label0);
-								mv.visitFrame(F_APPEND, 1, new Object[] { validatorType }, 0, null);
 							}
+							target.visitLdcInsn(message);
+							target.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>",
+									"(Ljava/lang/String;)V", false);
+							target.visitInsn(ATHROW);
+							target.visitLabel(label0);
+							target.visitFrame(F_APPEND, 1, new Object[] { validatorType }, 0, null);
 						}
 					}
-
+				}
+				if (recording != null) {
+					recording.end();
 				}
 			}
 		}
 
+		if (collectViolations != null) {
+			collectViolations.throwIfViolated();
+		}
 		mv.visitInsn(RETURN);
 		mv.visitMaxs(parameters.size(), parameters.size());
 		mv.visitEnd();
+		frameComputingClassWriter.visitEnd();
+		frameComputingClassWriter.copyMethodsTo(cv);
 	}
 
-	private Object defaultMessage(Class<?> annotationClass, Object message) {
-		try {
-			return Arrays.stream(annotationClass.getMethods()) //
-					.filter(m -> "message".equals(m.getName())) //
-					.filter(m -> m.getParameterCount() == 0) //
-					.findFirst().map(Method::getDefaultValue) //
-					.orElse(null);
-		} catch (SecurityException e) {
-			throw new RuntimeException(e);
+	private static int constraints(Parameters parameters) {
+		int constraints = 0;
+		for (var parameter : parameters) {
+			constraints += parameter.getAnnotations().size();
 		}
+		return constraints;
 	}
 
-	private boolean isStandardJr380Anno(Class<?> classtype) {
-		return configs.stream().map(ConfigEntry::anno).anyMatch(classtype::equals);
-	}
-
-	private Method checkMethod(ConfigEntry config, Class<?> actual) {
-		Class<?>[] parameters = new Class[] { config.anno(), config.resolveSuperType(actual) };
-		return checkMethod(parameters).map(m -> {
-			var supportedType = m.getParameterTypes()[1];
-			if (supportedType.isAssignableFrom(actual)) {
-				return m;
-			}
-			throw annotationOnTypeNotValid(parameters[0], actual, List.of(supportedType.getName()));
-		}).orElseThrow(() -> unsupportedType(parameters));
-	}
-
-	private IllegalStateException unsupportedType(Class<?>... parameters) {
-		assert parameters.length >= 2 : "Expected to get 2 parameters, got " + Arrays.toString(parameters);
-		var supported = this.codeFragmentMethods.stream() //
-				.filter(this::isCheckMethod) //
-				.filter(m -> m.getParameterCount() > 1) //
-				.filter(m -> m.getParameterTypes()[0] == parameters[0]) //
-				.map(m -> m.getParameterTypes()[1].getName()) //
-				.collect(toList());
-		return annotationOnTypeNotValid(parameters[0], parameters[1], supported);
-	}
-
-	private Optional<Method> checkMethod(Class<?>... parameters) {
-		return codeFragmentMethods.stream().filter(this::isCheckMethod)
-				.filter(m -> Arrays.equals(m.getParameterTypes(), parameters)).findFirst();
-	}
-
-	private boolean isCheckMethod(Method method) {
-		return "check".equals(method.getName());
-	}
-}
\ No newline at end of file
+}
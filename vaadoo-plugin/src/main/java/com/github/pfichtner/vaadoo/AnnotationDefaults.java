@@ -0,0 +1,34 @@
+package com.github.pfichtner.vaadoo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+
+/**
+ * Default values of annotation attributes, read from the annotation's
+ * {@link TypeDescription} (so the annotation type does not get loaded) and
+ * cached per annotation type. Thread-safe.
+ */
+class AnnotationDefaults {
+
+	private final Map<String, Map<String, Object>> defaults = new ConcurrentHashMap<>();
+
+	Map<String, Object> of(TypeDescription annotationType) {
+		return defaults.computeIfAbsent(annotationType.getDescriptor(), d -> read(annotationType));
+	}
+
+	private static Map<String, Object> read(TypeDescription annotationType) {
+		Map<String, Object> values = new HashMap<>();
+		for (MethodDescription.InDefinedShape method : annotationType.getDeclaredMethods()) {
+			var defaultValue = method.getDefaultValue();
+			if (defaultValue != null) {
+				values.put(method.getName(), defaultValue.resolve());
+			}
+		}
+		return Map.copyOf(values);
+	}
+
+}
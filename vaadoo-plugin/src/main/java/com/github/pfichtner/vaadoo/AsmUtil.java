@@ -1,15 +1,16 @@
 package com.github.pfichtner.vaadoo;
 
-import static java.lang.reflect.Array.newInstance;
 import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
 import static net.bytebuddy.jar.asm.Opcodes.ARETURN;
 import static net.bytebuddy.jar.asm.Opcodes.ASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.BIPUSH;
 import static net.bytebuddy.jar.asm.Opcodes.DLOAD;
 import static net.bytebuddy.jar.asm.Opcodes.DRETURN;
 import static net.bytebuddy.jar.asm.Opcodes.DSTORE;
 import static net.bytebuddy.jar.asm.Opcodes.FLOAD;
 import static net.bytebuddy.jar.asm.Opcodes.FRETURN;
 import static net.bytebuddy.jar.asm.Opcodes.FSTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_0;
 import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
 import static net.bytebuddy.jar.asm.Opcodes.IRETURN;
 import static net.bytebuddy.jar.asm.Opcodes.ISTORE;
@@ -17,13 +18,17 @@ import static net.bytebuddy.jar.asm.Opcodes.LLOAD;
 import static net.bytebuddy.jar.asm.Opcodes.LRETURN;
 import static net.bytebuddy.jar.asm.Opcodes.LSTORE;
 import static net.bytebuddy.jar.asm.Opcodes.RETURN;
+import static net.bytebuddy.jar.asm.Opcodes.SIPUSH;
 import static net.bytebuddy.jar.asm.Type.ARRAY;
 
 import java.io.IOException;
 import java.io.InputStream;
 
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.MethodVisitor;
 import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.pool.TypePool;
 
 public final class AsmUtil {
 
@@ -48,37 +53,49 @@ public final class AsmUtil {
 				|| opcode == LRETURN || opcode == FRETURN || opcode == DRETURN;
 	}
 
-	public static Class<?> classtype(Type type) {
-		try {
-			switch (type.getSort()) {
-			case Type.BOOLEAN:
-				return boolean.class;
-			case Type.CHAR:
-				return char.class;
-			case Type.BYTE:
-				return byte.class;
-			case Type.SHORT:
-				return short.class;
-			case Type.INT:
-				return int.class;
-			case Type.FLOAT:
-				return float.class;
-			case Type.LONG:
-				return long.class;
-			case Type.DOUBLE:
-				return double.class;
-			case Type.VOID:
-				return void.class;
-			case Type.ARRAY:
-				var elementType = type.getElementType();
-				return newInstance(Class.forName(elementType.getClassName()), elementType.getDimensions()).getClass();
-			case Type.OBJECT:
-				return Class.forName(type.getClassName());
-			default:
-				throw new IllegalArgumentException("Unknown type: " + type);
-			}
-		} catch (ClassNotFoundException e) {
-			throw new RuntimeException(e);
+	public static void pushInt(MethodVisitor mv, int value) {
+		if (value >= -1 && value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		} else {
+			mv.visitLdcInsn(value);
+		}
+	}
+
+	/**
+	 * Resolves the type using the passed {@link TypePool}, so the type does not get
+	 * loaded (nor initialized).
+	 */
+	public static TypeDescription typeDescription(TypePool typePool, Type type) {
+		switch (type.getSort()) {
+		case Type.BOOLEAN:
+			return TypeDescription.ForLoadedType.of(boolean.class);
+		case Type.CHAR:
+			return TypeDescription.ForLoadedType.of(char.class);
+		case Type.BYTE:
+			return TypeDescription.ForLoadedType.of(byte.class);
+		case Type.SHORT:
+			return TypeDescription.ForLoadedType.of(short.class);
+		case Type.INT:
+			return TypeDescription.ForLoadedType.of(int.class);
+		case Type.FLOAT:
+			return TypeDescription.ForLoadedType.of(float.class);
+		case Type.LONG:
+			return TypeDescription.ForLoadedType.of(long.class);
+		case Type.DOUBLE:
+			return TypeDescription.ForLoadedType.of(double.class);
+		case Type.VOID:
+			return TypeDescription.ForLoadedType.of(void.class);
+		case Type.ARRAY:
+			return TypeDescription.ArrayProjection.of(typeDescription(typePool, type.getElementType()),
+					type.getDimensions());
+		case Type.OBJECT:
+			return typePool.describe(type.getClassName()).resolve();
+		default:
+			throw new IllegalArgumentException("Unknown type: " + type);
 		}
 	}
 
@@ -0,0 +1,383 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.Opcodes.ACC_FINAL;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SYNTHETIC;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.GETSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_1;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.PUTSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.RETURN;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Replaces the creation of constant <code>BigDecimal</code>s and
+ * <code>BigInteger</code>s (<code>new BigDecimal("1.5")</code>,
+ * <code>BigDecimal.valueOf(42L)</code>, which is what the bounds of
+ * <code>@Min</code>, <code>@DecimalMax</code>, ... end up as) by a load of a
+ * <code>static final</code> field initialized in the
+ * <code>&lt;clinit&gt;</code> (an existing <code>&lt;clinit&gt;</code> gets
+ * merged), so these get created once per class instead of on each validation.
+ * Strings not parseable stay as they are so they fail at runtime.
+ */
+public class CacheBigNumberConstants extends ClassVisitor {
+
+	private static final String BIG_DECIMAL = "java/math/BigDecimal";
+	private static final String BIG_INTEGER = "java/math/BigInteger";
+	private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/String;)V";
+
+	private static final class ConstantKey {
+
+		private final String type;
+		// a String for the constructor, a Long for valueOf
+		private final Object value;
+
+		private ConstantKey(String type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+
+		private String descriptor() {
+			return "L" + type + ";";
+		}
+
+		private boolean isValid() {
+			if (value instanceof Long) {
+				return true;
+			}
+			try {
+				if (BIG_DECIMAL.equals(type)) {
+					new BigDecimal((String) value);
+				} else {
+					new BigInteger((String) value);
+				}
+				return true;
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+
+		private void create(MethodVisitor mv) {
+			if (value instanceof Long) {
+				pushLong(mv, (Long) value);
+				mv.visitMethodInsn(INVOKESTATIC, type, "valueOf", "(J)" + descriptor(), false);
+			} else {
+				mv.visitTypeInsn(NEW, type);
+				mv.visitInsn(DUP);
+				mv.visitLdcInsn(value);
+				mv.visitMethodInsn(INVOKESPECIAL, type, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			ConstantKey other = (ConstantKey) obj;
+			return type.equals(other.type) && value.equals(other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, value);
+		}
+
+	}
+
+	private final ClassMembers classMembers;
+	private int version;
+	private String classname;
+	private final Map<ConstantKey, String> constantFields = new LinkedHashMap<>();
+	private ClassWriter clinit;
+
+	public CacheBigNumberConstants(ClassVisitor outputVisitor, ClassMembers classMembers) {
+		super(ASM9, outputVisitor);
+		this.classMembers = classMembers;
+	}
+
+	@Override
+	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		this.version = version;
+		this.classname = name;
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+			String[] exceptions) {
+		if ("<clinit>".equals(name)) {
+			// buffered since the constant fields are not known until the end of the class
+			clinit = new ClassWriter(0);
+			clinit.visit(version, ACC_PUBLIC | ACC_SUPER, classname, null, "java/lang/Object", null);
+			return new ReplaceConstants(clinit.visitMethod(access, name, descriptor, signature, exceptions));
+		}
+		return new ReplaceConstants(super.visitMethod(access, name, descriptor, signature, exceptions));
+	}
+
+	private class ReplaceConstants extends MethodVisitor {
+
+		// new BigDecimal(String) is NEW, DUP, LDC, INVOKESPECIAL
+		private String pendingNew;
+		private boolean pendingDup;
+		private String pendingString;
+		// BigDecimal.valueOf(long) is LDC (or LCONST), INVOKESTATIC
+		private Long pendingLong;
+
+		private ReplaceConstants(MethodVisitor methodVisitor) {
+			super(ASM9, methodVisitor);
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			flush();
+			if (opcode == NEW && isBigNumber(type)) {
+				pendingNew = type;
+			} else {
+				super.visitTypeInsn(opcode, type);
+			}
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			if (opcode == DUP && pendingNew != null && !pendingDup) {
+				pendingDup = true;
+			} else if (opcode == LCONST_0 || opcode == LCONST_1) {
+				flush();
+				pendingLong = (long) (opcode - LCONST_0);
+			} else {
+				flush();
+				super.visitInsn(opcode);
+			}
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			if (value instanceof String && pendingDup && pendingString == null) {
+				pendingString = (String) value;
+			} else if (value instanceof Long) {
+				flush();
+				pendingLong = (Long) value;
+			} else {
+				flush();
+				super.visitLdcInsn(value);
+			}
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			var key = constantKey(opcode, owner, name, descriptor);
+			if (key != null && key.isValid()) {
+				pendingNew = null;
+				pendingDup = false;
+				pendingString = null;
+				pendingLong = null;
+				super.visitFieldInsn(GETSTATIC, classname, constantField(key), key.descriptor());
+			} else {
+				flush();
+				super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+		}
+
+		private ConstantKey constantKey(int opcode, String owner, String name, String descriptor) {
+			if (opcode == INVOKESPECIAL && owner.equals(pendingNew) && pendingString != null && "<init>".equals(name)
+					&& CONSTRUCTOR_DESCRIPTOR.equals(descriptor)) {
+				return new ConstantKey(owner, pendingString);
+			} else if (opcode == INVOKESTATIC && isBigNumber(owner) && pendingLong != null && "valueOf".equals(name)
+					&& ("(J)L" + owner + ";").equals(descriptor)) {
+				return new ConstantKey(owner, pendingLong);
+			}
+			return null;
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			flush();
+			super.visitIntInsn(opcode, operand);
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int varIndex) {
+			flush();
+			super.visitVarInsn(opcode, varIndex);
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			flush();
+			super.visitFieldInsn(opcode, owner, name, descriptor);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+				Object... bootstrapMethodArguments) {
+			flush();
+			super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			flush();
+			super.visitJumpInsn(opcode, label);
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			flush();
+			super.visitLabel(label);
+		}
+
+		@Override
+		public void visitIincInsn(int varIndex, int increment) {
+			flush();
+			super.visitIincInsn(varIndex, increment);
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			flush();
+			super.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			flush();
+			super.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			flush();
+			super.visitMultiANewArrayInsn(descriptor, numDimensions);
+		}
+
+		@Override
+		public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+			flush();
+			super.visitFrame(type, numLocal, local, numStack, stack);
+		}
+
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			flush();
+			super.visitMaxs(maxStack, maxLocals);
+		}
+
+		private void flush() {
+			if (pendingNew != null) {
+				super.visitTypeInsn(NEW, pendingNew);
+				pendingNew = null;
+			}
+			if (pendingDup) {
+				super.visitInsn(DUP);
+				pendingDup = false;
+			}
+			if (pendingString != null) {
+				super.visitLdcInsn(pendingString);
+				pendingString = null;
+			}
+			if (pendingLong != null) {
+				pushLong(mv, pendingLong);
+				pendingLong = null;
+			}
+		}
+
+	}
+
+	@Override
+	public void visitEnd() {
+		for (var entry : constantFields.entrySet()) {
+			super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, entry.getValue(),
+					entry.getKey().descriptor(), null, null).visitEnd();
+		}
+		if (clinit != null) {
+			mergeIntoClinit(clinit);
+		} else if (!constantFields.isEmpty()) {
+			MethodVisitor mv = super.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+			mv.visitCode();
+			initConstantFields(mv);
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(initConstantFieldsMaxStack(), 0);
+			mv.visitEnd();
+		}
+		super.visitEnd();
+	}
+
+	private String constantField(ConstantKey key) {
+		return constantFields.computeIfAbsent(key,
+				k -> classMembers.newField(BIG_DECIMAL.equals(k.type) ? "BIG_DECIMAL" : "BIG_INTEGER"));
+	}
+
+	private void mergeIntoClinit(ClassWriter buffer) {
+		new ClassReader(buffer.toByteArray()).accept(new ClassVisitor(ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				return new MethodVisitor(ASM9, CacheBigNumberConstants.this.cv.visitMethod(access, name, descriptor,
+						signature, exceptions)) {
+
+					@Override
+					public void visitCode() {
+						super.visitCode();
+						// neither uses locals nor leaves something on the stack, so the existing frames
+						// stay valid
+						initConstantFields(mv);
+					}
+
+					@Override
+					public void visitMaxs(int maxStack, int maxLocals) {
+						super.visitMaxs(Math.max(maxStack, initConstantFieldsMaxStack()), maxLocals);
+					}
+
+				};
+			}
+		}, 0);
+	}
+
+	private int initConstantFieldsMaxStack() {
+		return constantFields.isEmpty() ? 0 : 3;
+	}
+
+	private void initConstantFields(MethodVisitor mv) {
+		for (var entry : constantFields.entrySet()) {
+			entry.getKey().create(mv);
+			mv.visitFieldInsn(PUTSTATIC, classname, entry.getValue(), entry.getKey().descriptor());
+		}
+	}
+
+	private static boolean isBigNumber(String type) {
+		return BIG_DECIMAL.equals(type) || BIG_INTEGER.equals(type);
+	}
+
+	private static void pushLong(MethodVisitor mv, long value) {
+		if (value == 0 || value == 1) {
+			mv.visitInsn(LCONST_0 + (int) value);
+		} else {
+			mv.visitLdcInsn(value);
+		}
+	}
+
+}
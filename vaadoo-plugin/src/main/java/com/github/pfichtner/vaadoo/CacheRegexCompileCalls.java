@@ -1,31 +1,148 @@
 package com.github.pfichtner.vaadoo;
 
 import static com.github.pfichtner.vaadoo.AsmUtil.classReader;
+import static com.github.pfichtner.vaadoo.AsmUtil.pushInt;
+import static java.lang.System.Logger.Level.WARNING;
 import static java.util.Arrays.stream;
 import static java.util.function.Predicate.not;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_FINAL;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
 import static net.bytebuddy.jar.asm.Opcodes.ACC_SYNTHETIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACONST_NULL;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
 import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.ASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.BIPUSH;
+import static net.bytebuddy.jar.asm.Opcodes.CHECKCAST;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.GETSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.GOTO;
 import static net.bytebuddy.jar.asm.Opcodes.H_INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.IAND;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_5;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_M1;
+import static net.bytebuddy.jar.asm.Opcodes.IFNONNULL;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
 import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEVIRTUAL;
+import static net.bytebuddy.jar.asm.Opcodes.IRETURN;
+import static net.bytebuddy.jar.asm.Opcodes.ISTORE;
+import static net.bytebuddy.jar.asm.Opcodes.L2I;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.POP;
+import static net.bytebuddy.jar.asm.Opcodes.PUTSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.RETURN;
+import static net.bytebuddy.jar.asm.Opcodes.SIPUSH;
 import static net.bytebuddy.jar.asm.Type.getMethodDescriptor;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import com.github.pfichtner.vaadoo.RegexCompiler.Backtracking;
+import com.github.pfichtner.vaadoo.RegexCompiler.CompiledRegex;
 import com.github.pfichtner.vaadoo.fragments.impl.RegexPatternCache;
 import com.github.pfichtner.vaadoo.fragments.impl.RegexWithFlagsPatternCache;
 
+import net.bytebuddy.jar.asm.ClassReader;
 import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
 import net.bytebuddy.jar.asm.FieldVisitor;
 import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodTooLargeException;
 import net.bytebuddy.jar.asm.MethodVisitor;
 import net.bytebuddy.jar.asm.Type;
-
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * Replaces the calls to <code>Pattern#compile</code>: If regex and flags are
+ * constants (which is the case for the code added by vaadoo) the call gets
+ * replaced by a load of a <code>static final</code> field initialized in the
+ * <code>&lt;clinit&gt;</code> (an existing <code>&lt;clinit&gt;</code> gets
+ * merged). All other calls get redirected to a method caching the compiled
+ * patterns. If the constant pattern is only used for
+ * <code>pattern.matcher(input).matches()</code> and can be translated by the
+ * {@link RegexCompiler} the whole call chain gets replaced by a generated
+ * matches method. Constant patterns that are only used this way get their
+ * quantifiers hardened (see {@link RegexCompiler#hardened(String, int)}), if
+ * these are still matched by the {@link Pattern} and might backtrack
+ * catastrophically a warning gets logged. If a regex budget is configured the
+ * inputs matched by these Patterns get wrapped into the class generated by
+ * {@link RegexBudget}. If matchers should be reused the Patterns' matches get
+ * delegated to a method taking the {@link java.util.regex.Matcher} from a small
+ * per pattern pool (indexed by the thread's id, so there is no
+ * <code>ThreadLocal</code> that would hold a Matcher per virtual thread) and
+ * falls back to a new one if the slot is taken.
+ */
 public class CacheRegexCompileCalls extends ClassVisitor {
 
+	private static final System.Logger logger = System.getLogger(CacheRegexCompileCalls.class.getName());
+
 	private static final String METHOD_NAME_IN_FRAGMENT = "cache";
+	private static final String PATTERN = "java/util/regex/Pattern";
+	private static final String PATTERN_DESCRIPTOR = "L" + PATTERN + ";";
+	private static final String COMPILE_DESCRIPTOR = "(Ljava/lang/String;)" + PATTERN_DESCRIPTOR;
+	private static final String COMPILE_WITH_FLAGS_DESCRIPTOR = "(Ljava/lang/String;I)" + PATTERN_DESCRIPTOR;
+	private static final String MATCHER = "java/util/regex/Matcher";
+	private static final String MATCHER_DESCRIPTOR = "(Ljava/lang/CharSequence;)L" + MATCHER + ";";
+	private static final String MATCHES_DESCRIPTOR = "(Ljava/lang/CharSequence;)Z";
+	private static final String MATCHER_POOL = "java/util/concurrent/atomic/AtomicReferenceArray";
+	private static final String MATCHER_POOL_DESCRIPTOR = "L" + MATCHER_POOL + ";";
+	// has to be a power of two
+	private static final int MATCHER_POOL_SIZE = 16;
+
+	private static final class PatternKey {
+
+		private final String regex;
+		private final int flags;
+
+		private PatternKey(String regex, int flags) {
+			this.regex = regex;
+			this.flags = flags;
+		}
+
+		private boolean isValid() {
+			try {
+				Pattern.compile(regex, flags);
+				return true;
+			} catch (IllegalArgumentException e) {
+				// PatternSyntaxException or invalid flags, these have to fail at runtime
+				return false;
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			PatternKey other = (PatternKey) obj;
+			return flags == other.flags && regex.equals(other.regex);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(regex, flags);
+		}
+
+	}
 
 	private static class Fragment {
 
@@ -59,13 +176,33 @@ public class CacheRegexCompileCalls extends ClassVisitor {
 	);
 
 	private final ClassMembers classMembers;
+	private final TypePool typePool;
+	private final boolean compileRegex;
+	private final boolean hardenRegex;
+	private final int regexBudget;
+	private final boolean reuseMatcher;
+	private int version;
+	private String superName;
 	private String classname;
 	private final Map<String, String> cachedRegexMethodnames = new HashMap<>();
-	private boolean clinitFound;
-
-	public CacheRegexCompileCalls(ClassVisitor outputVisitor, ClassMembers classMembers) {
+	private final Map<PatternKey, String> patternFields = new LinkedHashMap<>();
+	private final Map<PatternKey, CompiledRegex> compiledRegexes = new HashMap<>();
+	private final Map<PatternKey, String> matchesMethods = new LinkedHashMap<>();
+	private final Map<PatternKey, String> patternMatchesMethods = new LinkedHashMap<>();
+	private final Map<PatternKey, String> matcherPools = new LinkedHashMap<>();
+	// patterns not only used for matches(), these can't be hardened
+	private final Set<PatternKey> exposedPatterns = new HashSet<>();
+	private ClassWriter clinit;
+
+	public CacheRegexCompileCalls(ClassVisitor outputVisitor, ClassMembers classMembers, TypePool typePool,
+			boolean compileRegex, boolean hardenRegex, int regexBudget, boolean reuseMatcher) {
 		super(ASM9, outputVisitor);
 		this.classMembers = classMembers;
+		this.typePool = typePool;
+		this.compileRegex = compileRegex;
+		this.hardenRegex = hardenRegex;
+		this.regexBudget = regexBudget;
+		this.reuseMatcher = reuseMatcher;
 	}
 
 	private ClassVisitor outputVisitor() {
@@ -74,7 +211,9 @@ public class CacheRegexCompileCalls extends ClassVisitor {
 
 	@Override
 	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		this.version = version;
 		this.classname = name;
+		this.superName = superName;
 		super.visit(version, access, name, signature, superName, interfaces);
 	}
 
@@ -82,21 +221,209 @@ public class CacheRegexCompileCalls extends ClassVisitor {
 	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
 			String[] exceptions) {
 		if ("<clinit>".equals(name)) {
-			this.clinitFound = true;
+			// buffered since the pattern fields are not known until the end of the class
+			clinit = new ClassWriter(0);
+			clinit.visit(version, ACC_PUBLIC | ACC_SUPER, classname, null, "java/lang/Object", null);
+			return new ReplaceCompileCalls(clinit.visitMethod(access, name, descriptor, signature, exceptions));
+		}
+		return new ReplaceCompileCalls(super.visitMethod(access, name, descriptor, signature, exceptions));
+	}
+
+	private class ReplaceCompileCalls extends MethodVisitor {
+
+		private String pendingRegex;
+		private Integer pendingFlags;
+		// compile(regex, flags).matcher(input).matches() gets replaced by the compiled regex
+		private PatternKey pendingPattern;
+		private int pendingInput = -1;
+		private boolean pendingMatcher;
+
+		private ReplaceCompileCalls(MethodVisitor methodVisitor) {
+			super(ASM9, methodVisitor);
 		}
-		return new MethodVisitor(ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
 
-			@Override
-			public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
-				if (opcode == INVOKESTATIC && "java/util/regex/Pattern".equals(owner) && "compile".equals(name)) {
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			if (opcode == INVOKESTATIC && PATTERN.equals(owner) && "compile".equals(name)) {
+				var key = constantKey(descriptor);
+				if (key != null && key.isValid()) {
+					pendingRegex = null;
+					pendingFlags = null;
+					pendingPattern = key;
+				} else {
+					flush();
 					super.visitMethodInsn(INVOKESTATIC, classname, cachedRegexMethodnames.computeIfAbsent(descriptor,
 							d -> classMembers.newMethod(METHOD_NAME_IN_FRAGMENT)), descriptor, false);
+				}
+			} else if (opcode == INVOKEVIRTUAL && PATTERN.equals(owner) && "matcher".equals(name)
+					&& pendingInput >= 0 && !pendingMatcher) {
+				pendingMatcher = true;
+			} else if (opcode == INVOKEVIRTUAL && MATCHER.equals(owner) && "matches".equals(name) && pendingMatcher) {
+				if (compiled(pendingPattern) == null) {
+					writePatternMatches(mv, pendingPattern, pendingInput);
 				} else {
-					super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+					super.visitVarInsn(ALOAD, pendingInput);
+					super.visitMethodInsn(INVOKESTATIC, classname,
+							matchesMethods.computeIfAbsent(pendingPattern, k -> newMatchesMethod()),
+							MATCHES_DESCRIPTOR, false);
 				}
+				pendingPattern = null;
+				pendingInput = -1;
+				pendingMatcher = false;
+			} else {
+				flush();
+				super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+		}
+
+		private void loadPattern(PatternKey key) {
+			super.visitFieldInsn(GETSTATIC, classname, patternField(key), PATTERN_DESCRIPTOR);
+		}
+
+		private PatternKey constantKey(String descriptor) {
+			if (pendingRegex != null && COMPILE_DESCRIPTOR.equals(descriptor) && pendingFlags == null) {
+				return new PatternKey(pendingRegex, 0);
+			} else if (pendingRegex != null && COMPILE_WITH_FLAGS_DESCRIPTOR.equals(descriptor)
+					&& pendingFlags != null) {
+				return new PatternKey(pendingRegex, pendingFlags);
 			}
+			return null;
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			if (value instanceof String) {
+				flush();
+				pendingRegex = (String) value;
+			} else if (value instanceof Integer && pendingRegex != null && pendingFlags == null) {
+				pendingFlags = (Integer) value;
+			} else {
+				flush();
+				super.visitLdcInsn(value);
+			}
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			if (opcode >= ICONST_M1 && opcode <= ICONST_5 && pendingRegex != null && pendingFlags == null) {
+				pendingFlags = opcode - ICONST_0;
+			} else {
+				flush();
+				super.visitInsn(opcode);
+			}
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			if ((opcode == BIPUSH || opcode == SIPUSH) && pendingRegex != null && pendingFlags == null) {
+				pendingFlags = operand;
+			} else {
+				flush();
+				super.visitIntInsn(opcode, operand);
+			}
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int varIndex) {
+			if (opcode == ALOAD && pendingPattern != null && pendingInput < 0) {
+				pendingInput = varIndex;
+			} else {
+				flush();
+				super.visitVarInsn(opcode, varIndex);
+			}
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			flush();
+			super.visitTypeInsn(opcode, type);
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			flush();
+			super.visitFieldInsn(opcode, owner, name, descriptor);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+				Object... bootstrapMethodArguments) {
+			flush();
+			super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			flush();
+			super.visitJumpInsn(opcode, label);
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			flush();
+			super.visitLabel(label);
+		}
+
+		@Override
+		public void visitIincInsn(int varIndex, int increment) {
+			flush();
+			super.visitIincInsn(varIndex, increment);
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			flush();
+			super.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			flush();
+			super.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			flush();
+			super.visitMultiANewArrayInsn(descriptor, numDimensions);
+		}
+
+		@Override
+		public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+			flush();
+			super.visitFrame(type, numLocal, local, numStack, stack);
+		}
+
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			flush();
+			super.visitMaxs(maxStack, maxLocals);
+		}
+
+		private void flush() {
+			if (pendingPattern != null) {
+				exposedPatterns.add(pendingPattern);
+				loadPattern(pendingPattern);
+				if (pendingInput >= 0) {
+					super.visitVarInsn(ALOAD, pendingInput);
+				}
+				if (pendingMatcher) {
+					super.visitMethodInsn(INVOKEVIRTUAL, PATTERN, "matcher", MATCHER_DESCRIPTOR, false);
+				}
+				pendingPattern = null;
+				pendingInput = -1;
+				pendingMatcher = false;
+			}
+			if (pendingRegex != null) {
+				super.visitLdcInsn(pendingRegex);
+				pendingRegex = null;
+			}
+			if (pendingFlags != null) {
+				pushInt(mv, pendingFlags);
+				pendingFlags = null;
+			}
+		}
 
-		};
 	}
 
 	@Override
@@ -107,9 +434,253 @@ public class CacheRegexCompileCalls extends ClassVisitor {
 				classReader(fragment.clazz).accept(copyFieldsAndMethods(fragment.clazz, methodNameUsed), 0);
 			}
 		}
+		if (!matchesMethods.isEmpty() || !patternMatchesMethods.isEmpty()) {
+			addMatchesMethods();
+		}
+		for (String fieldName : patternFields.values()) {
+			super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, fieldName, PATTERN_DESCRIPTOR,
+					null, null).visitEnd();
+		}
+		for (String fieldName : matcherPools.values()) {
+			super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, fieldName, MATCHER_POOL_DESCRIPTOR,
+					null, null).visitEnd();
+		}
+		if (clinit != null) {
+			mergeIntoClinit(clinit);
+		} else if (!patternFields.isEmpty()) {
+			MethodVisitor mv = super.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+			mv.visitCode();
+			initPatternFields(mv);
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(initPatternFieldsMaxStack(), 0);
+			mv.visitEnd();
+		}
 		super.visitEnd();
 	}
 
+	private String patternField(PatternKey key) {
+		return patternFields.computeIfAbsent(key, k -> classMembers.newField("PATTERN"));
+	}
+
+	private String newMatchesMethod() {
+		// other than the validate methods these all have the same descriptor
+		var name = classMembers.newMethod("matches");
+		classMembers.addMethodNames(Stream.of(name));
+		return name;
+	}
+
+	private CompiledRegex compiled(PatternKey key) {
+		return compileRegex //
+				? compiledRegexes.computeIfAbsent(key, k -> RegexCompiler.compile(k.regex, k.flags)) //
+				: null;
+	}
+
+	private void addMatchesMethods() {
+		for (var entry : matchesMethods.entrySet()) {
+			var key = entry.getKey();
+			try {
+				addMatchesMethod(entry.getValue(), key);
+			} catch (MethodTooLargeException e) {
+				// the Pattern has to match, only the length gets checked upfront
+				compiledRegexes.put(key, compiled(key).lengthChecked());
+				addMatchesMethod(entry.getValue(), key);
+			}
+		}
+		// the compiled regexes above could have added some
+		if (!patternMatchesMethods.isEmpty()) {
+			var frameComputingClassWriter = newFrameComputingClassWriter();
+			for (var entry : patternMatchesMethods.entrySet()) {
+				writeMatcherReusingMethod(frameComputingClassWriter.visitMethod(
+						ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, entry.getValue(), MATCHES_DESCRIPTOR, null, null),
+						entry.getKey());
+			}
+			frameComputingClassWriter.visitEnd();
+			frameComputingClassWriter.copyMethodsTo(cv);
+		}
+	}
+
+	/**
+	 * Each method is written to a writer of its own, so if its code gets too large
+	 * nothing has been copied to the class yet.
+	 */
+	private void addMatchesMethod(String name, PatternKey key) {
+		var frameComputingClassWriter = newFrameComputingClassWriter();
+		var mv = frameComputingClassWriter.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, name,
+				MATCHES_DESCRIPTOR, null, null);
+		compiled(key).writeMatchesMethod(mv, m -> writePatternMatches(m, key, 0));
+		frameComputingClassWriter.visitEnd();
+		frameComputingClassWriter.copyMethodsTo(cv);
+	}
+
+	private FrameComputingClassWriter newFrameComputingClassWriter() {
+		var frameComputingClassWriter = new FrameComputingClassWriter(typePool);
+		frameComputingClassWriter.visit(version, ACC_PUBLIC | ACC_SUPER, classname, null, superName, null);
+		return frameComputingClassWriter;
+	}
+
+	/**
+	 * Writes the code pushing the result of
+	 * <code>pattern.matcher(input).matches()</code>.
+	 */
+	private void writePatternMatches(MethodVisitor mv, PatternKey key, int input) {
+		if (reuseMatcher) {
+			mv.visitVarInsn(ALOAD, input);
+			mv.visitMethodInsn(INVOKESTATIC, classname,
+					patternMatchesMethods.computeIfAbsent(key, k -> newMatchesMethod()), MATCHES_DESCRIPTOR, false);
+		} else {
+			mv.visitFieldInsn(GETSTATIC, classname, patternField(key), PATTERN_DESCRIPTOR);
+			mv.visitVarInsn(ALOAD, input);
+			wrapInput(mv);
+			mv.visitMethodInsn(INVOKEVIRTUAL, PATTERN, "matcher", MATCHER_DESCRIPTOR, false);
+			mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER, "matches", "()Z", false);
+		}
+	}
+
+	/**
+	 * <code>matches</code> of a pattern reusing the Matchers:
+	 * 
+	 * <pre>
+	 * int slot = (int) Thread.currentThread().getId() &amp; (MATCHER_POOL_SIZE - 1);
+	 * Matcher matcher = (Matcher) MATCHERS.getAndSet(slot, null);
+	 * if (matcher == null) {
+	 * 	matcher = PATTERN.matcher(input);
+	 * } else {
+	 * 	matcher.reset(input);
+	 * }
+	 * boolean matches = matcher.matches();
+	 * // the input must not be referenced by the pool
+	 * matcher.reset("");
+	 * MATCHERS.lazySet(slot, matcher);
+	 * return matches;
+	 * </pre>
+	 */
+	private void writeMatcherReusingMethod(MethodVisitor mv, PatternKey key) {
+		String pool = matcherPools.computeIfAbsent(key, k -> classMembers.newField("MATCHERS"));
+		int input = 0;
+		int slot = 1;
+		int matcher = 2;
+		int matches = 3;
+		mv.visitCode();
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/Thread", "currentThread", "()Ljava/lang/Thread;", false);
+		mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Thread", "getId", "()J", false);
+		mv.visitInsn(L2I);
+		pushInt(mv, MATCHER_POOL_SIZE - 1);
+		mv.visitInsn(IAND);
+		mv.visitVarInsn(ISTORE, slot);
+		mv.visitFieldInsn(GETSTATIC, classname, pool, MATCHER_POOL_DESCRIPTOR);
+		mv.visitVarInsn(ILOAD, slot);
+		mv.visitInsn(ACONST_NULL);
+		mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER_POOL, "getAndSet", "(ILjava/lang/Object;)Ljava/lang/Object;", false);
+		mv.visitTypeInsn(CHECKCAST, MATCHER);
+		mv.visitVarInsn(ASTORE, matcher);
+		Label reuse = new Label();
+		Label match = new Label();
+		mv.visitVarInsn(ALOAD, matcher);
+		mv.visitJumpInsn(IFNONNULL, reuse);
+		mv.visitFieldInsn(GETSTATIC, classname, patternField(key), PATTERN_DESCRIPTOR);
+		mv.visitVarInsn(ALOAD, input);
+		wrapInput(mv);
+		mv.visitMethodInsn(INVOKEVIRTUAL, PATTERN, "matcher", MATCHER_DESCRIPTOR, false);
+		mv.visitVarInsn(ASTORE, matcher);
+		mv.visitJumpInsn(GOTO, match);
+		mv.visitLabel(reuse);
+		mv.visitVarInsn(ALOAD, matcher);
+		mv.visitVarInsn(ALOAD, input);
+		wrapInput(mv);
+		mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER, "reset", MATCHER_DESCRIPTOR, false);
+		mv.visitInsn(POP);
+		mv.visitLabel(match);
+		mv.visitVarInsn(ALOAD, matcher);
+		mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER, "matches", "()Z", false);
+		mv.visitVarInsn(ISTORE, matches);
+		mv.visitVarInsn(ALOAD, matcher);
+		mv.visitLdcInsn("");
+		mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER, "reset", MATCHER_DESCRIPTOR, false);
+		mv.visitInsn(POP);
+		mv.visitFieldInsn(GETSTATIC, classname, pool, MATCHER_POOL_DESCRIPTOR);
+		mv.visitVarInsn(ILOAD, slot);
+		mv.visitVarInsn(ALOAD, matcher);
+		mv.visitMethodInsn(INVOKEVIRTUAL, MATCHER_POOL, "lazySet", "(ILjava/lang/Object;)V", false);
+		mv.visitVarInsn(ILOAD, matches);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void wrapInput(MethodVisitor mv) {
+		if (regexBudget > 0) {
+			mv.visitMethodInsn(INVOKESTATIC, RegexBudget.wrapperName(classname), RegexBudget.WRAP_METHOD,
+					RegexBudget.WRAP_DESCRIPTOR, false);
+		}
+	}
+
+	private String regex(PatternKey key) {
+		if (exposedPatterns.contains(key)) {
+			// the regex could be accessed, e.g. by Pattern#pattern()
+			return key.regex;
+		}
+		String regex = hardenRegex ? RegexCompiler.hardened(key.regex, key.flags) : key.regex;
+		var compiled = compiled(key);
+		if (compiled == null || compiled instanceof RegexCompiler.LengthCheckedPattern) {
+			Backtracking backtracking = RegexCompiler.backtracking(regex, key.flags);
+			if (backtracking != null) {
+				logger.log(WARNING, "Regex \"" + key.regex + "\" used in " + classname.replace('/', '.')
+						+ " might need " + backtracking.name().toLowerCase(Locale.ROOT) + " time to reject inputs");
+			}
+		}
+		return regex;
+	}
+
+	private void mergeIntoClinit(ClassWriter buffer) {
+		new ClassReader(buffer.toByteArray()).accept(new ClassVisitor(ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				return new MethodVisitor(ASM9, outputVisitor().visitMethod(access, name, descriptor, signature,
+						exceptions)) {
+
+					@Override
+					public void visitCode() {
+						super.visitCode();
+						// neither uses locals nor leaves something on the stack, so the existing frames
+						// stay valid
+						initPatternFields(mv);
+					}
+
+					@Override
+					public void visitMaxs(int maxStack, int maxLocals) {
+						super.visitMaxs(Math.max(maxStack, initPatternFieldsMaxStack()), maxLocals);
+					}
+
+				};
+			}
+		}, 0);
+	}
+
+	private int initPatternFieldsMaxStack() {
+		return patternFields.isEmpty() ? 0 : matcherPools.isEmpty() ? 2 : 3;
+	}
+
+	private void initPatternFields(MethodVisitor mv) {
+		for (var entry : patternFields.entrySet()) {
+			mv.visitLdcInsn(regex(entry.getKey()));
+			if (entry.getKey().flags == 0) {
+				mv.visitMethodInsn(INVOKESTATIC, PATTERN, "compile", COMPILE_DESCRIPTOR, false);
+			} else {
+				pushInt(mv, entry.getKey().flags);
+				mv.visitMethodInsn(INVOKESTATIC, PATTERN, "compile", COMPILE_WITH_FLAGS_DESCRIPTOR, false);
+			}
+			mv.visitFieldInsn(PUTSTATIC, classname, entry.getValue(), PATTERN_DESCRIPTOR);
+		}
+		for (String fieldName : matcherPools.values()) {
+			mv.visitTypeInsn(NEW, MATCHER_POOL);
+			mv.visitInsn(DUP);
+			pushInt(mv, MATCHER_POOL_SIZE);
+			mv.visitMethodInsn(INVOKESPECIAL, MATCHER_POOL, "<init>", "(I)V", false);
+			mv.visitFieldInsn(PUTSTATIC, classname, fieldName, MATCHER_POOL_DESCRIPTOR);
+		}
+	}
+
 	private ClassVisitor copyFieldsAndMethods(Class<?> clazz, String methodCalled) {
 		return new ClassVisitor(ASM9) {
 
@@ -127,11 +698,9 @@ public class CacheRegexCompileCalls extends ClassVisitor {
 			@Override
 			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
 					String[] exceptions) {
-				// TODO this fails if we add <clinit> but there is already a <clinit> present
-				// TODO Also the synthetic methods have to get renamed if they already exist
-				if (!"<clinit>".equals(name) && clinitFound) {
+				if ("<clinit>".equals(name)) {
 					throw new UnsupportedOperationException(
-							"fragment contains <clinit> and we don't yet support merging of clinits");
+							"fragment must not contain a <clinit>, initialize its fields lazily");
 				}
 
 				boolean isFragmentMethod = name.equals(METHOD_NAME_IN_FRAGMENT);
@@ -0,0 +1,72 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+
+import java.util.List;
+
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.field.FieldDescription.InDefinedShape;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodList;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.implementation.Implementation.Context;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * Wraps another {@link AsmVisitorWrapper} and caches its output in a
+ * {@link WeaveCache}. The events passed by ByteBuddy (including the changes
+ * other visitors, plugins or the builder made) get recorded, the class recorded
+ * is the input of the cache's key and of the weaving. The (cached or freshly
+ * woven) class then gets replayed to the next visitor, so on a cache hit the
+ * wrapped visitor chain is not run at all.
+ */
+public class CachingVisitorWrapper implements AsmVisitorWrapper {
+
+	private final AsmVisitorWrapper delegate;
+	private final WeaveCache weaveCache;
+	private final List<byte[]> dependencies;
+
+	public CachingVisitorWrapper(AsmVisitorWrapper delegate, WeaveCache weaveCache, List<byte[]> dependencies) {
+		this.delegate = delegate;
+		this.weaveCache = weaveCache;
+		this.dependencies = dependencies;
+	}
+
+	@Override
+	public int mergeReader(int flags) {
+		return delegate.mergeReader(flags);
+	}
+
+	@Override
+	public int mergeWriter(int flags) {
+		return delegate.mergeWriter(flags);
+	}
+
+	@Override
+	public ClassVisitor wrap(TypeDescription instrumentedType, ClassVisitor classVisitor, Context implementationContext,
+			TypePool typePool, FieldList<InDefinedShape> fields, MethodList<?> methods, int writerFlags,
+			int readerFlags) {
+		var recorder = new ClassWriter(0);
+		return new ClassVisitor(ASM9, recorder) {
+			@Override
+			public void visitEnd() {
+				super.visitEnd();
+				var classBytes = recorder.toByteArray();
+				var key = weaveCache.key(classBytes, dependencies);
+				var wovenBytes = weaveCache.get(key).orElseGet(() -> {
+					var classWriter = new ClassWriter(delegate.mergeWriter(0));
+					new ClassReader(classBytes).accept(delegate.wrap(instrumentedType, classWriter,
+							implementationContext, typePool, fields, methods, writerFlags, readerFlags), readerFlags);
+					var bytes = classWriter.toByteArray();
+					weaveCache.put(key, bytes);
+					return bytes;
+				});
+				new ClassReader(wovenBytes).accept(classVisitor, readerFlags);
+			}
+		};
+	}
+
+}
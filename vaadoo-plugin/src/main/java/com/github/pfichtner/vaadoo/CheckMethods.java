@@ -0,0 +1,231 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.lang.String.format;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toUnmodifiableMap;
+import static net.bytebuddy.jar.asm.Type.getType;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.validation.constraints.AssertFalse;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Negative;
+import jakarta.validation.constraints.NegativeOrZero;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Null;
+import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.jar.asm.Type;
+
+/**
+ * Dispatch table of a code fragment, built once per fragment: annotation type
+ * -&gt; parameter type -&gt; {@link CheckMethod}. The resolution of actual
+ * parameter types to the types supported by the fragment (e.g.
+ * <code>String</code> to <code>CharSequence</code>) is memoized, so resolving
+ * the check of a parameter's annotation is a few hash lookups. Thread-safe.
+ */
+final class CheckMethods {
+
+	/**
+	 * A check method of the fragment together with its parsed code.
+	 */
+	static final class CheckMethod {
+
+		private final Method method;
+		private final MethodTemplate template;
+
+		private CheckMethod(Method method, MethodTemplate template) {
+			this.method = method;
+			this.template = template;
+		}
+
+		Method method() {
+			return method;
+		}
+
+		MethodTemplate template() {
+			return template;
+		}
+
+	}
+
+	private static class ConfigEntry {
+
+		private final Class<? extends Annotation> anno;
+		private final Type type;
+
+		public ConfigEntry(Class<? extends Annotation> anno) {
+			this.anno = anno;
+			this.type = getType(anno);
+		}
+
+		Class<?> anno() {
+			return anno;
+		}
+
+		Type type() {
+			return type;
+		}
+
+		TypeDescription resolveSuperType(TypeDescription actual) {
+			return actual;
+		}
+	}
+
+	private static class FixedClassConfigEntry extends ConfigEntry {
+
+		private final TypeDescription superType;
+
+		public FixedClassConfigEntry(Class<? extends Annotation> anno, Class<?> superType) {
+			super(anno);
+			this.superType = TypeDescription.ForLoadedType.of(superType);
+		}
+
+		@Override
+		public TypeDescription resolveSuperType(TypeDescription actual) {
+			return superType;
+		}
+
+	}
+
+	// possible checks during compile time:
+	// errors
+	// - @Pattern: Is the pattern valid (compile it)
+	// - @Size: Is min >= 0
+	// - @Min: Is there a @Max that is < @Min's value
+	// - @Max: Is there a @Min that is < @Max's value
+	// - @NotNull: Is there also @Null
+	// - @Null: Is there also @NotNull
+	// warnings
+	// - @NotNull: Annotations that checks for null as well like @NotBlank @NotEmpty
+	// - @Null: most (all?) other annotations doesn't make sense
+	private static final List<ConfigEntry> configs = List.of( //
+			new FixedClassConfigEntry(Null.class, Object.class), //
+			new FixedClassConfigEntry(NotNull.class, Object.class), //
+			new FixedClassConfigEntry(NotBlank.class, CharSequence.class), //
+			new ConfigEntry(NotEmpty.class) {
+				@Override
+				TypeDescription resolveSuperType(TypeDescription actual) {
+					var validTypes = List.of(CharSequence.class, Collection.class, Map.class, Object[].class);
+					return superType(actual, validTypes).orElseThrow(() -> {
+						return annotationOnTypeNotValid(anno(), actual,
+								validTypes.stream().map(Class::getName).collect(toList()));
+					});
+				}
+			}, //
+			new ConfigEntry(Size.class) {
+				@Override
+				TypeDescription resolveSuperType(TypeDescription actual) {
+					var validTypes = List.of(CharSequence.class, Collection.class, Map.class, Object[].class);
+					return superType(actual, validTypes).orElseThrow(() -> {
+						return annotationOnTypeNotValid(anno(), actual,
+								validTypes.stream().map(Class::getName).collect(toList()));
+					});
+				}
+			}, //
+			new FixedClassConfigEntry(Pattern.class, CharSequence.class), //
+			new FixedClassConfigEntry(Email.class, CharSequence.class), //
+			new ConfigEntry(AssertTrue.class), //
+			new ConfigEntry(AssertFalse.class), //
+			new ConfigEntry(Min.class), //
+			new ConfigEntry(Max.class), //
+			new ConfigEntry(Digits.class), //
+			new ConfigEntry(Positive.class), //
+			new ConfigEntry(PositiveOrZero.class), //
+			new ConfigEntry(Negative.class), //
+			new ConfigEntry(NegativeOrZero.class), //
+			new ConfigEntry(DecimalMin.class), //
+			new ConfigEntry(DecimalMax.class), //
+			new ConfigEntry(Future.class), //
+			new ConfigEntry(FutureOrPresent.class), //
+			new ConfigEntry(Past.class), //
+			new ConfigEntry(PastOrPresent.class) //
+	);
+
+	private static Optional<TypeDescription> superType(TypeDescription classToCheck, List<Class<?>> superTypes) {
+		return superTypes.stream().map(TypeDescription.ForLoadedType::of).filter(t -> t.isAssignableFrom(classToCheck))
+				.findFirst();
+	}
+
+	private static IllegalStateException annotationOnTypeNotValid(Class<?> anno, TypeDescription type,
+			List<String> valids) {
+		return new IllegalStateException(format("Annotation %s on type %s not allowed, allowed only on types: %s",
+				anno.getName(), type.getName(), valids));
+	}
+
+	private static final Map<String, ConfigEntry> configsByDescriptor = configs.stream()
+			.collect(toUnmodifiableMap(c -> c.type().getDescriptor(), identity()));
+
+	private final Map<String, Map<String, CheckMethod>> checkMethods;
+	private final Map<String, CheckMethod> resolved = new ConcurrentHashMap<>();
+
+	CheckMethods(FragmentTemplates templates, List<Method> fragmentMethods) {
+		this.checkMethods = Map.copyOf(fragmentMethods.stream() //
+				.filter(m -> "check".equals(m.getName())) //
+				.filter(m -> m.getParameterCount() == 2) //
+				.collect(groupingBy(m -> Type.getDescriptor(m.getParameterTypes()[0]), toUnmodifiableMap(
+						m -> Type.getDescriptor(m.getParameterTypes()[1]),
+						m -> new CheckMethod(m, templates.template(m)), (m1, m2) -> m1))));
+	}
+
+	static boolean isStandardJr380Anno(TypeDescription annotationType) {
+		return configsByDescriptor.containsKey(annotationType.getDescriptor());
+	}
+
+	static boolean isStandardJr380Anno(Type annotationType) {
+		return configsByDescriptor.containsKey(annotationType.getDescriptor());
+	}
+
+	/**
+	 * Returns the check method of the fragment for the passed (standard)
+	 * annotation and the actual type of the parameter annotated.
+	 * 
+	 * @throws IllegalStateException if the annotation is not allowed on that type
+	 */
+	CheckMethod checkMethod(Type annotation, TypeDescription actual) {
+		var key = annotation.getDescriptor() + actual.getDescriptor();
+		var checkMethod = resolved.get(key);
+		if (checkMethod == null) {
+			checkMethod = resolve(configsByDescriptor.get(annotation.getDescriptor()), actual);
+			resolved.putIfAbsent(key, checkMethod);
+		}
+		return checkMethod;
+	}
+
+	private CheckMethod resolve(ConfigEntry config, TypeDescription actual) {
+		var superType = config.resolveSuperType(actual);
+		var candidates = checkMethods.getOrDefault(config.type().getDescriptor(), Map.of());
+		return Optional.ofNullable(candidates.get(superType.getDescriptor())).map(m -> {
+			var supportedType = TypeDescription.ForLoadedType.of(m.method().getParameterTypes()[1]);
+			if (supportedType.isAssignableFrom(actual)) {
+				return m;
+			}
+			throw annotationOnTypeNotValid(config.anno(), actual, List.of(supportedType.getName()));
+		}).orElseThrow(() -> annotationOnTypeNotValid(config.anno(), superType, candidates.values().stream()
+				.map(m -> m.method().getParameterTypes()[1].getName()).sorted().collect(toList())));
+	}
+
+}
@@ -22,6 +22,7 @@ public class ClassMembers {
 		for (int i = 1; fieldNames.contains(newFieldName); i++) {
 			newFieldName = arg + "$" + i;
 		}
+		fieldNames.add(newFieldName);
 		return newFieldName;
 	}
 
@@ -0,0 +1,189 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.Opcodes.AASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ACONST_NULL;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.ANEWARRAY;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.ASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ATHROW;
+import static net.bytebuddy.jar.asm.Opcodes.CHECKCAST;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.GOTO;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.IFNE;
+import static net.bytebuddy.jar.asm.Opcodes.IFNONNULL;
+import static net.bytebuddy.jar.asm.Opcodes.IFNULL;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ISTORE;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.POP;
+import static net.bytebuddy.jar.asm.Opcodes.SWAP;
+
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Makes the validate method check all constraints and throw one
+ * {@link IllegalArgumentException} listing the messages of all the violated
+ * ones (see {@link VaadooOptions#collectViolations()}). Where the injected code
+ * would throw, the message gets stored and the remaining code of the constraint
+ * is skipped. The messages are stored in a <code>String[]</code> sized to the
+ * number of constraints, allocated on the first violation, so nothing gets
+ * allocated as long as the values are valid.
+ */
+class CollectViolations {
+
+	/**
+	 * Number of local slots (following the arguments) used, the array and the
+	 * number of messages stored in it.
+	 */
+	static final int LOCALS = 2;
+
+	private static final String EXCEPTION = "java/lang/IllegalArgumentException";
+	private static final String EXCEPTION_INIT_DESCRIPTOR = "(Ljava/lang/String;)V";
+	private static final String GUAVA_PRECONDITIONS = "com/google/common/base/Preconditions";
+
+	private final MethodVisitor mv;
+	private final int messages;
+	private final int count;
+	private final int constraints;
+
+	/**
+	 * @param firstLocal  the first local slot following the arguments
+	 * @param constraints the maximum number of constraints violated
+	 */
+	CollectViolations(MethodVisitor mv, int firstLocal, int constraints) {
+		this.mv = mv;
+		this.messages = firstLocal;
+		this.count = firstLocal + 1;
+		this.constraints = constraints;
+	}
+
+	void init() {
+		mv.visitInsn(ACONST_NULL);
+		mv.visitVarInsn(ASTORE, messages);
+		mv.visitInsn(ICONST_0);
+		mv.visitVarInsn(ISTORE, count);
+	}
+
+	/**
+	 * Returns the visitor the code checking one constraint has to be written to,
+	 * {@link Recording#end()} has to be called after that code.
+	 */
+	Recording recording() {
+		return new Recording();
+	}
+
+	/**
+	 * Throws the exception if any message got stored, its message are the
+	 * messages joined by <code>", "</code>.
+	 */
+	void throwIfViolated() {
+		mv.visitVarInsn(ALOAD, messages);
+		Label valid = new Label();
+		mv.visitJumpInsn(IFNULL, valid);
+		mv.visitTypeInsn(NEW, EXCEPTION);
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn(", ");
+		mv.visitVarInsn(ALOAD, messages);
+		mv.visitVarInsn(ILOAD, count);
+		mv.visitMethodInsn(INVOKESTATIC, "java/util/Arrays", "copyOf", "([Ljava/lang/Object;I)[Ljava/lang/Object;",
+				false);
+		mv.visitTypeInsn(CHECKCAST, "[Ljava/lang/CharSequence;");
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "join",
+				"(Ljava/lang/CharSequence;[Ljava/lang/CharSequence;)Ljava/lang/String;", false);
+		mv.visitMethodInsn(INVOKESPECIAL, EXCEPTION, "<init>", EXCEPTION_INIT_DESCRIPTOR, false);
+		mv.visitInsn(ATHROW);
+		mv.visitLabel(valid);
+	}
+
+	/**
+	 * Stores the message on top of the stack.
+	 */
+	private void store(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, messages);
+		Label allocated = new Label();
+		mv.visitJumpInsn(IFNONNULL, allocated);
+		mv.visitLdcInsn(constraints);
+		mv.visitTypeInsn(ANEWARRAY, "java/lang/String");
+		mv.visitVarInsn(ASTORE, messages);
+		mv.visitLabel(allocated);
+		// messages[count++] = message
+		mv.visitVarInsn(ALOAD, messages);
+		mv.visitInsn(SWAP);
+		mv.visitVarInsn(ILOAD, count);
+		mv.visitInsn(SWAP);
+		mv.visitInsn(AASTORE);
+		mv.visitIincInsn(count, 1);
+	}
+
+	class Recording extends MethodVisitor {
+
+		private final Label end = new Label();
+		private boolean newDropped;
+		private int exceptionsDropped;
+		private int throwsToReplace;
+
+		private Recording() {
+			super(ASM9, CollectViolations.this.mv);
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			if (opcode == NEW && EXCEPTION.equals(type)) {
+				// the exception doesn't get created, only its message
+				newDropped = true;
+			} else {
+				super.visitTypeInsn(opcode, type);
+			}
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			if (newDropped) {
+				if (opcode != DUP) {
+					throw new IllegalStateException("expected DUP following NEW " + EXCEPTION);
+				}
+				newDropped = false;
+				exceptionsDropped++;
+			} else if (opcode == ATHROW && throwsToReplace > 0) {
+				throwsToReplace--;
+				super.visitJumpInsn(GOTO, end);
+			} else {
+				super.visitInsn(opcode);
+			}
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			if (opcode == INVOKESPECIAL && EXCEPTION.equals(owner) && "<init>".equals(name)
+					&& EXCEPTION_INIT_DESCRIPTOR.equals(descriptor) && exceptionsDropped > 0) {
+				exceptionsDropped--;
+				throwsToReplace++;
+				store(mv);
+			} else if (opcode == INVOKESTATIC && GUAVA_PRECONDITIONS.equals(owner) && "checkArgument".equals(name)
+					&& "(ZLjava/lang/Object;)V".equals(descriptor)) {
+				// if (!valid) { store(message); goto end; }
+				Label valid = new Label();
+				super.visitInsn(SWAP);
+				super.visitJumpInsn(IFNE, valid);
+				super.visitTypeInsn(CHECKCAST, "java/lang/String");
+				store(mv);
+				super.visitJumpInsn(GOTO, end);
+				super.visitLabel(valid);
+				super.visitInsn(POP);
+			} else {
+				super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+		}
+
+		void end() {
+			super.visitLabel(end);
+		}
+
+	}
+
+}
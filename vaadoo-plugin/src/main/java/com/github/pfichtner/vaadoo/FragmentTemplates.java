@@ -0,0 +1,66 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.AsmUtil.classReader;
+import static java.lang.String.format;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Type.getMethodDescriptor;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
+
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * The methods of a {@link Jsr380CodeFragment} parsed once into
+ * {@link MethodTemplate}s, indexed by name and descriptor.
+ */
+public final class FragmentTemplates {
+
+	private final Class<? extends Jsr380CodeFragment> codeFragment;
+	private final Map<String, MethodTemplate> templates;
+
+	private FragmentTemplates(Class<? extends Jsr380CodeFragment> codeFragment,
+			Map<String, MethodTemplate> templates) {
+		this.codeFragment = codeFragment;
+		this.templates = Map.copyOf(templates);
+	}
+
+	public static FragmentTemplates of(Class<? extends Jsr380CodeFragment> codeFragment) {
+		Map<String, MethodTemplate.Recorder> recorders = new HashMap<>();
+		classReader(codeFragment).accept(new ClassVisitor(ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				var recorder = new MethodTemplate.Recorder();
+				recorders.put(key(name, descriptor), recorder);
+				return recorder;
+			}
+		}, 0);
+
+		Map<String, MethodTemplate> templates = new HashMap<>();
+		recorders.forEach((k, v) -> templates.put(k, v.toTemplate()));
+		return new FragmentTemplates(codeFragment, templates);
+	}
+
+	public Class<? extends Jsr380CodeFragment> codeFragment() {
+		return codeFragment;
+	}
+
+	public MethodTemplate template(Method method) {
+		var template = templates.get(key(method.getName(), getMethodDescriptor(method)));
+		if (template == null) {
+			throw new IllegalStateException(
+					format("method %s not declared in %s", method, codeFragment.getName()));
+		}
+		return template;
+	}
+
+	private static String key(String name, String descriptor) {
+		return name + descriptor;
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.ClassWriter.COMPUTE_FRAMES;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * Scratch writer computing frames and maxs only for the methods written to it.
+ * The methods then get copied (including their frames) to the class being
+ * woven, so the remaining methods of that class can keep their frames. Common
+ * super classes are resolved using the {@link TypePool} so no classes get
+ * loaded.
+ */
+public class FrameComputingClassWriter extends ClassWriter {
+
+	private static final String OBJECT = "java/lang/Object";
+
+	private final TypePool typePool;
+
+	public FrameComputingClassWriter(TypePool typePool) {
+		super(COMPUTE_FRAMES);
+		this.typePool = typePool;
+	}
+
+	@Override
+	protected String getCommonSuperClass(String type1, String type2) {
+		var typeDescription1 = describe(type1);
+		var typeDescription2 = describe(type2);
+		if (typeDescription1.isAssignableFrom(typeDescription2)) {
+			return type1;
+		} else if (typeDescription2.isAssignableFrom(typeDescription1)) {
+			return type2;
+		} else if (typeDescription1.isInterface() || typeDescription2.isInterface()) {
+			return OBJECT;
+		}
+		for (TypeDefinition superClass = typeDescription1.getSuperClass(); superClass != null; superClass = superClass
+				.getSuperClass()) {
+			if (superClass.asErasure().isAssignableFrom(typeDescription2)) {
+				return superClass.asErasure().getInternalName();
+			}
+		}
+		return OBJECT;
+	}
+
+	private TypeDescription describe(String internalName) {
+		return typePool.describe(internalName.replace('/', '.')).resolve();
+	}
+
+	public void copyMethodsTo(ClassVisitor target) {
+		new ClassReader(toByteArray()).accept(new ClassVisitor(ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				return target.visitMethod(access, name, descriptor, signature, exceptions);
+			}
+		}, 0);
+	}
+
+}
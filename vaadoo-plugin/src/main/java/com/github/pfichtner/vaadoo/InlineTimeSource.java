@@ -0,0 +1,234 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.AsmUtil.classReader;
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toSet;
+import static net.bytebuddy.jar.asm.ClassReader.SKIP_DEBUG;
+import static net.bytebuddy.jar.asm.ClassReader.SKIP_FRAMES;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_FINAL;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SYNTHETIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_VOLATILE;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEVIRTUAL;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.github.pfichtner.vaadoo.fragments.impl.TimeSource;
+
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.FieldVisitor;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Type;
+
+/**
+ * Redirects the calls to {@link TimeSource} to copies of the methods (and
+ * fields) needed, added to the woven class. If a clock is configured (the binary name of a class and
+ * the name of its static method returning a <code>java.time.Clock</code>, e.g.
+ * <code>com.example.Clocks.clock</code>) the copies read the millis and the
+ * zone from that clock on each call.
+ */
+public class InlineTimeSource extends ClassVisitor {
+
+	private static final String TIME_SOURCE = Type.getInternalName(TimeSource.class);
+	private static final String CLOCK = "java/time/Clock";
+	private static final String CLOCK_DESCRIPTOR = "()L" + CLOCK + ";";
+	// replaced by the clock's zone, so it isn't copied if a clock is configured
+	private static final String CLOCK_ZONE = "clockZone";
+
+	private final ClassMembers classMembers;
+	private final String clockOwner;
+	private final String clockMethod;
+	private String classname;
+	// names of the TimeSource's methods and fields in the woven class
+	private final Map<String, String> methodNames = new HashMap<>();
+	private final Map<String, String> fieldNames = new HashMap<>();
+
+	public InlineTimeSource(ClassVisitor outputVisitor, ClassMembers classMembers, String clock) {
+		super(ASM9, outputVisitor);
+		this.classMembers = classMembers;
+		if (clock == null) {
+			this.clockOwner = null;
+			this.clockMethod = null;
+		} else {
+			int lastDot = clock.lastIndexOf('.');
+			if (lastDot <= 0 || lastDot == clock.length() - 1) {
+				throw new IllegalStateException(
+						"clock has to be <class>.<static method> (e.g. com.example.Clocks.clock) but was " + clock);
+			}
+			this.clockOwner = clock.substring(0, lastDot).replace('.', '/');
+			this.clockMethod = clock.substring(lastDot + 1);
+		}
+	}
+
+	@Override
+	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		this.classname = name;
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+			String[] exceptions) {
+		return new RedirectCalls(super.visitMethod(access, name, descriptor, signature, exceptions));
+	}
+
+	private class RedirectCalls extends MethodVisitor {
+
+		private RedirectCalls(MethodVisitor methodVisitor) {
+			super(ASM9, methodVisitor);
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			if (TIME_SOURCE.equals(owner)) {
+				super.visitMethodInsn(INVOKESTATIC, classname, methodName(name), descriptor, false);
+			} else {
+				super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+		}
+
+	}
+
+	private String methodName(String name) {
+		return methodNames.computeIfAbsent(name, n -> {
+			var newName = classMembers.newMethod(n);
+			classMembers.addMethodNames(Stream.of(newName));
+			return newName;
+		});
+	}
+
+	private String fieldName(String name) {
+		return fieldNames.computeIfAbsent(name, classMembers::newField);
+	}
+
+	@Override
+	public void visitEnd() {
+		if (!methodNames.isEmpty()) {
+			ClassReader classReader = classReader(TimeSource.class);
+			Map<String, Set<String>> calls = new HashMap<>();
+			Map<String, Set<String>> accesses = new HashMap<>();
+			classReader.accept(collectReferences(calls, accesses), SKIP_DEBUG | SKIP_FRAMES);
+
+			Set<String> methods = new HashSet<>();
+			Deque<String> toVisit = new ArrayDeque<>(methodNames.keySet());
+			while (!toVisit.isEmpty()) {
+				String method = toVisit.pop();
+				if (methods.add(method)) {
+					toVisit.addAll(calls.getOrDefault(method, emptySet()));
+				}
+			}
+			if (clockOwner != null) {
+				methods.remove(CLOCK_ZONE);
+			}
+			Set<String> fields = methods.stream().flatMap(m -> accesses.getOrDefault(m, emptySet()).stream())
+					.collect(toSet());
+			classReader.accept(copyFieldsAndMethods(fields, methods), 0);
+		}
+		super.visitEnd();
+	}
+
+	private static ClassVisitor collectReferences(Map<String, Set<String>> calls,
+			Map<String, Set<String>> accesses) {
+		return new ClassVisitor(ASM9) {
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				return new MethodVisitor(ASM9) {
+
+					@Override
+					public void visitMethodInsn(int opcode, String owner, String method, String descriptor,
+							boolean isInterface) {
+						if (TIME_SOURCE.equals(owner)) {
+							calls.computeIfAbsent(name, k -> new HashSet<>()).add(method);
+						}
+					}
+
+					@Override
+					public void visitFieldInsn(int opcode, String owner, String field, String descriptor) {
+						if (TIME_SOURCE.equals(owner)) {
+							accesses.computeIfAbsent(name, k -> new HashSet<>()).add(field);
+						}
+					}
+
+				};
+			}
+
+		};
+	}
+
+	/**
+	 * Copies the passed fields and methods (which have to contain all the methods
+	 * called by them) of {@link TimeSource}.
+	 */
+	private ClassVisitor copyFieldsAndMethods(Set<String> fields, Set<String> methods) {
+		ClassVisitor target = cv;
+		return new ClassVisitor(ASM9) {
+
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				if (!fields.contains(name)) {
+					return null;
+				}
+				int modifiers = access & (ACC_FINAL | ACC_VOLATILE);
+				return target.visitField(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC | modifiers, fieldName(name),
+						descriptor, signature, value);
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				if ("<clinit>".equals(name)) {
+					throw new UnsupportedOperationException(
+							"time source must not contain a <clinit>, initialize its fields lazily");
+				}
+				if (!methods.contains(name)) {
+					return null;
+				}
+				MethodVisitor mv = target.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, methodName(name),
+						descriptor, signature, exceptions);
+				return new MethodVisitor(ASM9, new RedirectCalls(mv)) {
+
+					@Override
+					public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+						super.visitFieldInsn(opcode, classname, fieldName(name), descriptor);
+					}
+
+					@Override
+					public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+							boolean isInterface) {
+						if (clockOwner != null && "java/lang/System".equals(owner)
+								&& "currentTimeMillis".equals(name)) {
+							loadClock();
+							super.visitMethodInsn(INVOKEVIRTUAL, CLOCK, "millis", "()J", false);
+						} else if (clockOwner != null
+								&& ("java/time/ZoneId".equals(owner) && "systemDefault".equals(name)
+										|| TIME_SOURCE.equals(owner) && CLOCK_ZONE.equals(name))) {
+							loadClock();
+							super.visitMethodInsn(INVOKEVIRTUAL, CLOCK, "getZone", "()Ljava/time/ZoneId;", false);
+						} else {
+							super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+						}
+					}
+
+					private void loadClock() {
+						super.visitMethodInsn(INVOKESTATIC, clockOwner, clockMethod, CLOCK_DESCRIPTOR, false);
+					}
+
+				};
+			}
+
+		};
+	}
+
+}
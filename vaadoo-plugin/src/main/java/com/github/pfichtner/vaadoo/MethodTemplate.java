@@ -0,0 +1,272 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.util.Collections.unmodifiableList;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Immutable recording of the code of a method. Labels are created freshly on
+ * each {@link #replay(MethodVisitor)} so a template can be replayed any number
+ * of times (even several times into the same method).
+ */
+public final class MethodTemplate {
+
+	@FunctionalInterface
+	private interface Instruction {
+		void replay(MethodVisitor mv, Labels labels);
+	}
+
+	private static final class Labels {
+
+		private final Label[] labels;
+
+		private Labels(int count) {
+			this.labels = new Label[count];
+		}
+
+		private Label get(int index) {
+			Label label = labels[index];
+			if (label == null) {
+				label = labels[index] = new Label();
+			}
+			return label;
+		}
+
+		private Label[] get(int[] indices) {
+			Label[] result = new Label[indices.length];
+			for (int i = 0; i < indices.length; i++) {
+				result[i] = get(indices[i]);
+			}
+			return result;
+		}
+
+	}
+
+	static final class Recorder extends MethodVisitor {
+
+		private final List<Instruction> instructions = new ArrayList<>();
+		private final Map<Label, Integer> labels = new IdentityHashMap<>();
+		private int maxStack;
+		private int maxLocals;
+
+		Recorder() {
+			super(ASM9);
+		}
+
+		private int index(Label label) {
+			return labels.computeIfAbsent(label, l -> labels.size());
+		}
+
+		private int[] indices(Label[] labels) {
+			int[] indices = new int[labels.length];
+			for (int i = 0; i < labels.length; i++) {
+				indices[i] = index(labels[i]);
+			}
+			return indices;
+		}
+
+		private Object[] frameTypes(int count, Object[] types) {
+			if (types == null) {
+				return null;
+			}
+			Object[] copy = new Object[count];
+			for (int i = 0; i < count; i++) {
+				copy[i] = types[i] instanceof Label ? Integer.valueOf(index((Label) types[i])) : types[i];
+			}
+			return copy;
+		}
+
+		@Override
+		public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+			var recordedLocal = frameTypes(numLocal, local);
+			var recordedStack = frameTypes(numStack, stack);
+			// labels of uninitialized types have been replaced by their index (boxed
+			// Integer), all other Integers are the primitive frame types (Opcodes.TOP...)
+			var labelsInLocal = labelPositions(local, numLocal);
+			var labelsInStack = labelPositions(stack, numStack);
+			instructions.add((mv, l) -> mv.visitFrame(type, numLocal, resolve(recordedLocal, labelsInLocal, l),
+					numStack, resolve(recordedStack, labelsInStack, l)));
+		}
+
+		private static boolean[] labelPositions(Object[] types, int count) {
+			if (types == null) {
+				return null;
+			}
+			boolean[] positions = new boolean[count];
+			for (int i = 0; i < count; i++) {
+				positions[i] = types[i] instanceof Label;
+			}
+			return positions;
+		}
+
+		private static Object[] resolve(Object[] types, boolean[] labelPositions, Labels labels) {
+			if (types == null) {
+				return null;
+			}
+			Object[] resolved = types.clone();
+			for (int i = 0; i < resolved.length; i++) {
+				if (labelPositions[i]) {
+					resolved[i] = labels.get((Integer) resolved[i]);
+				}
+			}
+			return resolved;
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			instructions.add((mv, l) -> mv.visitInsn(opcode));
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			instructions.add((mv, l) -> mv.visitIntInsn(opcode, operand));
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int varIndex) {
+			instructions.add((mv, l) -> mv.visitVarInsn(opcode, varIndex));
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			instructions.add((mv, l) -> mv.visitTypeInsn(opcode, type));
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			instructions.add((mv, l) -> mv.visitFieldInsn(opcode, owner, name, descriptor));
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			instructions.add((mv, l) -> mv.visitMethodInsn(opcode, owner, name, descriptor, isInterface));
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle handle,
+				Object... args) {
+			var recordedArgs = args.clone();
+			// visitors are allowed to modify the args, so hand out a copy on each replay
+			instructions.add((mv, l) -> mv.visitInvokeDynamicInsn(name, descriptor, handle, recordedArgs.clone()));
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			int index = index(label);
+			instructions.add((mv, l) -> mv.visitJumpInsn(opcode, l.get(index)));
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			int index = index(label);
+			instructions.add((mv, l) -> mv.visitLabel(l.get(index)));
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			instructions.add((mv, l) -> mv.visitLdcInsn(value));
+		}
+
+		@Override
+		public void visitIincInsn(int varIndex, int increment) {
+			instructions.add((mv, l) -> mv.visitIincInsn(varIndex, increment));
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			int dfltIndex = index(dflt);
+			int[] indices = indices(labels);
+			instructions.add((mv, l) -> mv.visitTableSwitchInsn(min, max, l.get(dfltIndex), l.get(indices)));
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			int dfltIndex = index(dflt);
+			int[] recordedKeys = keys.clone();
+			int[] indices = indices(labels);
+			instructions.add(
+					(mv, l) -> mv.visitLookupSwitchInsn(l.get(dfltIndex), recordedKeys.clone(), l.get(indices)));
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			instructions.add((mv, l) -> mv.visitMultiANewArrayInsn(descriptor, numDimensions));
+		}
+
+		@Override
+		public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+			int startIndex = index(start);
+			int endIndex = index(end);
+			int handlerIndex = index(handler);
+			instructions.add((mv, l) -> mv.visitTryCatchBlock(l.get(startIndex), l.get(endIndex),
+					l.get(handlerIndex), type));
+		}
+
+		@Override
+		public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end,
+				int index) {
+			int startIndex = index(start);
+			int endIndex = index(end);
+			instructions.add((mv, l) -> mv.visitLocalVariable(name, descriptor, signature, l.get(startIndex),
+					l.get(endIndex), index));
+		}
+
+		@Override
+		public void visitLineNumber(int line, Label start) {
+			int startIndex = index(start);
+			instructions.add((mv, l) -> mv.visitLineNumber(line, l.get(startIndex)));
+		}
+
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+			instructions.add((mv, l) -> mv.visitMaxs(maxStack, maxLocals));
+		}
+
+		MethodTemplate toTemplate() {
+			return new MethodTemplate(instructions, labels.size(), maxStack, maxLocals);
+		}
+
+	}
+
+	private final List<Instruction> instructions;
+	private final int labelCount;
+	private final int maxStack;
+	private final int maxLocals;
+
+	private MethodTemplate(List<Instruction> instructions, int labelCount, int maxStack, int maxLocals) {
+		this.instructions = unmodifiableList(new ArrayList<>(instructions));
+		this.labelCount = labelCount;
+		this.maxStack = maxStack;
+		this.maxLocals = maxLocals;
+	}
+
+	public int maxStack() {
+		return maxStack;
+	}
+
+	public int maxLocals() {
+		return maxLocals;
+	}
+
+	/**
+	 * Replays the code of the recorded method (without {@code visitCode} and
+	 * {@code visitEnd}) to the passed visitor.
+	 */
+	public void replay(MethodVisitor mv) {
+		var labels = new Labels(labelCount);
+		for (var instruction : instructions) {
+			instruction.replay(mv, labels);
+		}
+	}
+
+}
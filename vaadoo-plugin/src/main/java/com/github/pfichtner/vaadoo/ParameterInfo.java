@@ -6,8 +6,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.pool.TypePool;
 
 class ParameterInfo {
 
@@ -27,6 +30,23 @@ class ParameterInfo {
 		String value() {
 			return value;
 		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, value);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			EnumEntry other = (EnumEntry) obj;
+			return Objects.equals(type, other.type) && Objects.equals(value, other.value);
+		}
 	}
 
 	private final int index;
@@ -81,8 +101,8 @@ class ParameterInfo {
 		return type().equals(other);
 	}
 
-	public Class<?> classtype() {
-		return AsmUtil.classtype(type());
+	public TypeDescription typeDescription(TypePool typePool) {
+		return AsmUtil.typeDescription(typePool, type());
 	}
 
 	public boolean isArray() {
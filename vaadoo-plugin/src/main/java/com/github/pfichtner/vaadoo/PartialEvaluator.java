@@ -0,0 +1,1917 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Map.entry;
+import static net.bytebuddy.jar.asm.Opcodes.ACONST_NULL;
+import static net.bytebuddy.jar.asm.Opcodes.ANEWARRAY;
+import static net.bytebuddy.jar.asm.Opcodes.ARRAYLENGTH;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.ASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ATHROW;
+import static net.bytebuddy.jar.asm.Opcodes.BIPUSH;
+import static net.bytebuddy.jar.asm.Opcodes.CHECKCAST;
+import static net.bytebuddy.jar.asm.Opcodes.D2L;
+import static net.bytebuddy.jar.asm.Opcodes.DCONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.DCONST_1;
+import static net.bytebuddy.jar.asm.Opcodes.DLOAD;
+import static net.bytebuddy.jar.asm.Opcodes.DNEG;
+import static net.bytebuddy.jar.asm.Opcodes.DSTORE;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.DUP2;
+import static net.bytebuddy.jar.asm.Opcodes.DUP2_X1;
+import static net.bytebuddy.jar.asm.Opcodes.DUP2_X2;
+import static net.bytebuddy.jar.asm.Opcodes.DUP_X1;
+import static net.bytebuddy.jar.asm.Opcodes.DUP_X2;
+import static net.bytebuddy.jar.asm.Opcodes.F2D;
+import static net.bytebuddy.jar.asm.Opcodes.F2L;
+import static net.bytebuddy.jar.asm.Opcodes.FCONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.FCONST_2;
+import static net.bytebuddy.jar.asm.Opcodes.FSTORE;
+import static net.bytebuddy.jar.asm.Opcodes.GETFIELD;
+import static net.bytebuddy.jar.asm.Opcodes.GETSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.GOTO;
+import static net.bytebuddy.jar.asm.Opcodes.I2B;
+import static net.bytebuddy.jar.asm.Opcodes.I2C;
+import static net.bytebuddy.jar.asm.Opcodes.I2D;
+import static net.bytebuddy.jar.asm.Opcodes.I2L;
+import static net.bytebuddy.jar.asm.Opcodes.I2S;
+import static net.bytebuddy.jar.asm.Opcodes.IADD;
+import static net.bytebuddy.jar.asm.Opcodes.IALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.IAND;
+import static net.bytebuddy.jar.asm.Opcodes.IASTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_5;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_M1;
+import static net.bytebuddy.jar.asm.Opcodes.IDIV;
+import static net.bytebuddy.jar.asm.Opcodes.IFEQ;
+import static net.bytebuddy.jar.asm.Opcodes.IFLE;
+import static net.bytebuddy.jar.asm.Opcodes.IFNONNULL;
+import static net.bytebuddy.jar.asm.Opcodes.IFNULL;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ACMPEQ;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ACMPNE;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPEQ;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPLE;
+import static net.bytebuddy.jar.asm.Opcodes.IINC;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.IMUL;
+import static net.bytebuddy.jar.asm.Opcodes.INEG;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEDYNAMIC;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.IOR;
+import static net.bytebuddy.jar.asm.Opcodes.IREM;
+import static net.bytebuddy.jar.asm.Opcodes.ISHL;
+import static net.bytebuddy.jar.asm.Opcodes.ISHR;
+import static net.bytebuddy.jar.asm.Opcodes.ISTORE;
+import static net.bytebuddy.jar.asm.Opcodes.ISUB;
+import static net.bytebuddy.jar.asm.Opcodes.IUSHR;
+import static net.bytebuddy.jar.asm.Opcodes.IXOR;
+import static net.bytebuddy.jar.asm.Opcodes.JSR;
+import static net.bytebuddy.jar.asm.Opcodes.L2D;
+import static net.bytebuddy.jar.asm.Opcodes.L2I;
+import static net.bytebuddy.jar.asm.Opcodes.LADD;
+import static net.bytebuddy.jar.asm.Opcodes.LALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.LAND;
+import static net.bytebuddy.jar.asm.Opcodes.LCMP;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_1;
+import static net.bytebuddy.jar.asm.Opcodes.LLOAD;
+import static net.bytebuddy.jar.asm.Opcodes.LMUL;
+import static net.bytebuddy.jar.asm.Opcodes.LNEG;
+import static net.bytebuddy.jar.asm.Opcodes.LOOKUPSWITCH;
+import static net.bytebuddy.jar.asm.Opcodes.LOR;
+import static net.bytebuddy.jar.asm.Opcodes.LSHL;
+import static net.bytebuddy.jar.asm.Opcodes.LSHR;
+import static net.bytebuddy.jar.asm.Opcodes.LSTORE;
+import static net.bytebuddy.jar.asm.Opcodes.LSUB;
+import static net.bytebuddy.jar.asm.Opcodes.LUSHR;
+import static net.bytebuddy.jar.asm.Opcodes.LXOR;
+import static net.bytebuddy.jar.asm.Opcodes.MONITORENTER;
+import static net.bytebuddy.jar.asm.Opcodes.MONITOREXIT;
+import static net.bytebuddy.jar.asm.Opcodes.MULTIANEWARRAY;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.NEWARRAY;
+import static net.bytebuddy.jar.asm.Opcodes.NOP;
+import static net.bytebuddy.jar.asm.Opcodes.POP;
+import static net.bytebuddy.jar.asm.Opcodes.POP2;
+import static net.bytebuddy.jar.asm.Opcodes.PUTSTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.RET;
+import static net.bytebuddy.jar.asm.Opcodes.SALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.SIPUSH;
+import static net.bytebuddy.jar.asm.Opcodes.SWAP;
+import static net.bytebuddy.jar.asm.Opcodes.TABLESWITCH;
+import static net.bytebuddy.jar.asm.Opcodes.T_BOOLEAN;
+import static net.bytebuddy.jar.asm.Opcodes.T_BYTE;
+import static net.bytebuddy.jar.asm.Opcodes.T_CHAR;
+import static net.bytebuddy.jar.asm.Opcodes.T_DOUBLE;
+import static net.bytebuddy.jar.asm.Opcodes.T_FLOAT;
+import static net.bytebuddy.jar.asm.Opcodes.T_INT;
+import static net.bytebuddy.jar.asm.Opcodes.T_LONG;
+import static net.bytebuddy.jar.asm.Opcodes.T_SHORT;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import net.bytebuddy.jar.asm.ConstantDynamic;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Type;
+
+/**
+ * Partial evaluator for the code of a fragment injected by the
+ * {@link MethodInjector}: The attributes of the annotation are constants at
+ * weave time, so the code is interpreted with these constants and only the
+ * code depending on the (unknown) parameter values gets emitted. Operations on
+ * constants are folded, branches with constant conditions get resolved (code
+ * that can't be reached is not emitted at all) and loops over constant arrays
+ * (e.g. <code>Pattern#flags()</code>) get unrolled. Numbers like
+ * <code>new BigDecimal(anno.value())</code> are constants as well, so values
+ * derived from them (e.g. their <code>scale()</code>) are folded, too.
+ * <p>
+ * The code is collected until {@link #evaluate()} gets called. If it contains
+ * something that is not supported, it is emitted unchanged.
+ */
+final class PartialEvaluator extends MethodVisitor {
+
+	/**
+	 * Array constant, e.g. the value of an annotation's array attribute, allowed as
+	 * value of {@link #visitLdcInsn(Object)}. Gets materialized if it can't be
+	 * folded away.
+	 */
+	static final class ConstantArray {
+
+		private final Type elementType;
+		private final List<Object> values;
+
+		ConstantArray(Type elementType, List<?> values) {
+			this.elementType = elementType;
+			this.values = List.copyOf(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(elementType, values);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			ConstantArray other = (ConstantArray) obj;
+			return elementType.equals(other.elementType) && values.equals(other.values);
+		}
+
+	}
+
+	// bounds to guarantee termination, if reached the code is emitted unchanged
+	private static final int MAX_STEPS = 100_000;
+	private static final int MAX_RESTARTS = 64;
+
+	private static final Object NULL = new Object() {
+		@Override
+		public String toString() {
+			return "null";
+		}
+	};
+
+	private static final Map<String, Function<Object, Object>> foldableMethods = Map.ofEntries( //
+			entry("jakarta/validation/constraints/Pattern$Flag.getValue()I",
+					e -> jakarta.validation.constraints.Pattern.Flag.valueOf(((ParameterInfo.EnumEntry) e).value())
+							.getValue()), //
+			entry("java/lang/String.length()I", s -> ((String) s).length()), //
+			entry("java/lang/String.isEmpty()Z", s -> ((String) s).isEmpty() ? 1 : 0), //
+			entry("java/lang/Long.signum(J)I", l -> Long.signum((Long) l)), //
+			entry("java/math/BigDecimal.valueOf(J)Ljava/math/BigDecimal;", l -> BigDecimal.valueOf((Long) l)), //
+			entry("java/math/BigDecimal.stripTrailingZeros()Ljava/math/BigDecimal;",
+					d -> ((BigDecimal) d).stripTrailingZeros()), //
+			entry("java/math/BigDecimal.signum()I", d -> ((BigDecimal) d).signum()), //
+			entry("java/math/BigDecimal.precision()I", d -> ((BigDecimal) d).precision()), //
+			entry("java/math/BigDecimal.scale()I", d -> ((BigDecimal) d).scale()), //
+			entry("java/math/BigDecimal.intValue()I", d -> ((BigDecimal) d).intValue()), //
+			entry("java/math/BigDecimal.longValue()J", d -> ((BigDecimal) d).longValue()), //
+			entry("java/math/BigDecimal.unscaledValue()Ljava/math/BigInteger;", d -> ((BigDecimal) d).unscaledValue()), //
+			entry("java/math/BigInteger.abs()Ljava/math/BigInteger;", i -> ((BigInteger) i).abs()), //
+			entry("java/math/BigInteger.toString()Ljava/lang/String;", i -> ((BigInteger) i).toString()) //
+	);
+
+	/**
+	 * Constructors that are folded if called with a constant, e.g.
+	 * <code>new BigDecimal(anno.value())</code>.
+	 */
+	private static final Map<String, Function<Object, Object>> foldableConstructors = Map.of( //
+			"java/math/BigDecimal.<init>(Ljava/lang/String;)V", s -> new BigDecimal((String) s) //
+	);
+
+	private static final Map<String, BiFunction<Object, Object, Object>> foldableBinaryMethods = Map.of( //
+			"java/lang/String.equals(Ljava/lang/Object;)Z", (s, o) -> s.equals(o) ? 1 : 0, //
+			"java/math/BigDecimal.compareTo(Ljava/math/BigDecimal;)I",
+			(d, o) -> ((BigDecimal) d).compareTo((BigDecimal) o) //
+	);
+
+	private static final Set<String> nonNegativeMethods = Set.of( //
+			"java/lang/CharSequence.length()I", //
+			"java/lang/String.length()I", //
+			"java/lang/StringBuilder.length()I", //
+			"java/util/Collection.size()I", //
+			"java/util/List.size()I", //
+			"java/util/Set.size()I", //
+			"java/util/Map.size()I" //
+	);
+
+	// -- instructions --------------------------------------------------------
+
+	private abstract static class Insn {
+
+		final int opcode;
+
+		Insn(int opcode) {
+			this.opcode = opcode;
+		}
+
+		abstract void accept(MethodVisitor mv);
+
+	}
+
+	private static final class LabelInsn extends Insn {
+
+		final Label label;
+
+		LabelInsn(Label label) {
+			super(-1);
+			this.label = label;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitLabel(label);
+		}
+
+	}
+
+	private static final class SimpleInsn extends Insn {
+
+		SimpleInsn(int opcode) {
+			super(opcode);
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitInsn(opcode);
+		}
+
+	}
+
+	private static final class IntInsn extends Insn {
+
+		final int operand;
+
+		IntInsn(int opcode, int operand) {
+			super(opcode);
+			this.operand = operand;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitIntInsn(opcode, operand);
+		}
+
+	}
+
+	private static final class VarInsn extends Insn {
+
+		final int var;
+
+		VarInsn(int opcode, int var) {
+			super(opcode);
+			this.var = var;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitVarInsn(opcode, var);
+		}
+
+	}
+
+	private static final class TypeInsn extends Insn {
+
+		final String type;
+
+		TypeInsn(int opcode, String type) {
+			super(opcode);
+			this.type = type;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitTypeInsn(opcode, type);
+		}
+
+	}
+
+	private static final class FieldInsn extends Insn {
+
+		final String owner;
+		final String name;
+		final String descriptor;
+
+		FieldInsn(int opcode, String owner, String name, String descriptor) {
+			super(opcode);
+			this.owner = owner;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitFieldInsn(opcode, owner, name, descriptor);
+		}
+
+	}
+
+	private static final class MethodInsn extends Insn {
+
+		final String owner;
+		final String name;
+		final String descriptor;
+		final boolean isInterface;
+
+		MethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			super(opcode);
+			this.owner = owner;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.isInterface = isInterface;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+		}
+
+	}
+
+	private static final class InvokeDynamicInsn extends Insn {
+
+		final String name;
+		final String descriptor;
+		final Handle handle;
+		final Object[] args;
+
+		InvokeDynamicInsn(String name, String descriptor, Handle handle, Object[] args) {
+			super(INVOKEDYNAMIC);
+			this.name = name;
+			this.descriptor = descriptor;
+			this.handle = handle;
+			this.args = args;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitInvokeDynamicInsn(name, descriptor, handle, args.clone());
+		}
+
+	}
+
+	private static final class JumpInsn extends Insn {
+
+		final Label label;
+
+		JumpInsn(int opcode, Label label) {
+			super(opcode);
+			this.label = label;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitJumpInsn(opcode, label);
+		}
+
+	}
+
+	private static final class LdcInsn extends Insn {
+
+		final Object value;
+
+		LdcInsn(Object value) {
+			super(-2);
+			this.value = value;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			if (value instanceof ConstantArray) {
+				List<Insn> insns = new ArrayList<>();
+				constant(value, insns);
+				insns.forEach(i -> i.accept(mv));
+			} else {
+				mv.visitLdcInsn(value);
+			}
+		}
+
+	}
+
+	private static final class IincInsn extends Insn {
+
+		final int var;
+		final int increment;
+
+		IincInsn(int var, int increment) {
+			super(IINC);
+			this.var = var;
+			this.increment = increment;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitIincInsn(var, increment);
+		}
+
+	}
+
+	private static final class SwitchInsn extends Insn {
+
+		final int[] keys;
+		final Label dflt;
+		final Label[] labels;
+
+		SwitchInsn(int opcode, int[] keys, Label dflt, Label[] labels) {
+			super(opcode);
+			this.keys = keys;
+			this.dflt = dflt;
+			this.labels = labels;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			if (opcode == TABLESWITCH) {
+				mv.visitTableSwitchInsn(keys[0], keys[keys.length - 1], dflt, labels.clone());
+			} else {
+				mv.visitLookupSwitchInsn(dflt, keys.clone(), labels.clone());
+			}
+		}
+
+	}
+
+	private static final class MultiANewArrayInsn extends Insn {
+
+		final String descriptor;
+		final int dimensions;
+
+		MultiANewArrayInsn(String descriptor, int dimensions) {
+			super(MULTIANEWARRAY);
+			this.descriptor = descriptor;
+			this.dimensions = dimensions;
+		}
+
+		@Override
+		void accept(MethodVisitor mv) {
+			mv.visitMultiANewArrayInsn(descriptor, dimensions);
+		}
+
+	}
+
+	private static final class TryCatch {
+
+		final Label start;
+		final Label end;
+		final Label handler;
+		final String type;
+		final int order;
+
+		TryCatch(Label start, Label end, Label handler, String type, int order) {
+			this.start = start;
+			this.end = end;
+			this.handler = handler;
+			this.type = type;
+			this.order = order;
+		}
+
+	}
+
+	// -- abstract values -----------------------------------------------------
+
+	private static final class Value {
+
+		/** the value if known at weave time, <code>null</code> if not */
+		final Object constant;
+		final int size;
+		final boolean nonNegative;
+		/**
+		 * index of the (side effect free) instruction that pushed this value,
+		 * <code>-1</code> if there is none
+		 */
+		final int pushedAt;
+
+		private Value(Object constant, int size, boolean nonNegative, int pushedAt) {
+			this.constant = constant;
+			this.size = size;
+			this.nonNegative = nonNegative;
+			this.pushedAt = pushedAt;
+		}
+
+		static Value known(Object constant) {
+			return new Value(constant, constant instanceof Long || constant instanceof Double ? 2 : 1,
+					constant instanceof Integer && (Integer) constant >= 0, -1);
+		}
+
+		static Value unknown(int size) {
+			return unknown(size, false, -1);
+		}
+
+		static Value unknown(int size, boolean nonNegative, int pushedAt) {
+			return new Value(null, size, nonNegative, pushedAt);
+		}
+
+		boolean isKnown() {
+			return constant != null;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(constant, size, nonNegative);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Value other = (Value) obj;
+			return Objects.equals(constant, other.constant) && size == other.size && nonNegative == other.nonNegative;
+		}
+
+	}
+
+	private static final class LoopEntry {
+
+		final int forks;
+		final Map<Integer, Value> locals;
+
+		LoopEntry(int forks, Map<Integer, Value> locals) {
+			this.forks = forks;
+			this.locals = Map.copyOf(locals);
+		}
+
+	}
+
+	/**
+	 * The operand stack and the local variables known. Known values on the stack
+	 * are not (yet) pushed by the code emitted, they are always on top of the
+	 * unknown ones.
+	 */
+	private static final class State {
+
+		final List<Value> stack;
+		final Map<Integer, Value> locals;
+		/** number of branches emitted on the path to this state */
+		int forks;
+		/** loop headers on the path to this state */
+		final Map<Integer, LoopEntry> loops;
+
+		State() {
+			this(new ArrayList<>(), new HashMap<>(), 0, new HashMap<>());
+		}
+
+		private State(List<Value> stack, Map<Integer, Value> locals, int forks, Map<Integer, LoopEntry> loops) {
+			this.stack = stack;
+			this.locals = locals;
+			this.forks = forks;
+			this.loops = loops;
+		}
+
+		State copy() {
+			return new State(new ArrayList<>(stack), new HashMap<>(locals), forks, new HashMap<>(loops));
+		}
+
+		Value pop() {
+			return stack.remove(stack.size() - 1);
+		}
+
+		Value peek(int depth) {
+			return stack.get(stack.size() - 1 - depth);
+		}
+
+		void push(Value value) {
+			stack.add(value);
+		}
+
+		List<Object> key(int index) {
+			return List.of(index, List.copyOf(stack), Map.copyOf(locals));
+		}
+
+	}
+
+	private static final class Pending {
+
+		final int index;
+		final State state;
+		final Label label;
+
+		Pending(int index, State state, Label label) {
+			this.index = index;
+			this.state = state;
+			this.label = label;
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Unsupported extends RuntimeException {
+		Unsupported() {
+			super(null, null, false, false);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Restart extends RuntimeException {
+		Restart() {
+			super(null, null, false, false);
+		}
+	}
+
+	// -- recording -----------------------------------------------------------
+
+	private final boolean enabled;
+	private final List<Insn> code = new ArrayList<>();
+	private final List<TryCatch> tryCatches = new ArrayList<>();
+
+	PartialEvaluator(MethodVisitor target, boolean enabled) {
+		super(ASM9, target);
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+		// frames get computed for the methods the code is injected to
+	}
+
+	@Override
+	public void visitInsn(int opcode) {
+		code.add(new SimpleInsn(opcode));
+	}
+
+	@Override
+	public void visitIntInsn(int opcode, int operand) {
+		code.add(new IntInsn(opcode, operand));
+	}
+
+	@Override
+	public void visitVarInsn(int opcode, int varIndex) {
+		code.add(new VarInsn(opcode, varIndex));
+	}
+
+	@Override
+	public void visitTypeInsn(int opcode, String type) {
+		code.add(new TypeInsn(opcode, type));
+	}
+
+	@Override
+	public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+		code.add(new FieldInsn(opcode, owner, name, descriptor));
+	}
+
+	@Override
+	public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+		code.add(new MethodInsn(opcode, owner, name, descriptor, isInterface));
+	}
+
+	@Override
+	public void visitInvokeDynamicInsn(String name, String descriptor, Handle handle, Object... args) {
+		code.add(new InvokeDynamicInsn(name, descriptor, handle, args.clone()));
+	}
+
+	@Override
+	public void visitJumpInsn(int opcode, Label label) {
+		code.add(new JumpInsn(opcode, label));
+	}
+
+	@Override
+	public void visitLabel(Label label) {
+		code.add(new LabelInsn(label));
+	}
+
+	@Override
+	public void visitLdcInsn(Object value) {
+		code.add(new LdcInsn(value));
+	}
+
+	@Override
+	public void visitIincInsn(int varIndex, int increment) {
+		code.add(new IincInsn(varIndex, increment));
+	}
+
+	@Override
+	public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+		int[] keys = new int[max - min + 1];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = min + i;
+		}
+		code.add(new SwitchInsn(TABLESWITCH, keys, dflt, labels.clone()));
+	}
+
+	@Override
+	public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+		code.add(new SwitchInsn(LOOKUPSWITCH, keys.clone(), dflt, labels.clone()));
+	}
+
+	@Override
+	public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+		code.add(new MultiANewArrayInsn(descriptor, numDimensions));
+	}
+
+	@Override
+	public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+		tryCatches.add(new TryCatch(start, end, handler, type, tryCatches.size()));
+	}
+
+	/**
+	 * Evaluates the code collected and emits the result to the target visitor.
+	 */
+	void evaluate() {
+		if (enabled) {
+			try {
+				new Evaluation().run();
+				return;
+			} catch (Unsupported e) {
+				// emit unchanged
+			}
+		}
+		replay(tryCatches, code);
+	}
+
+	private void replay(List<TryCatch> tryCatches, List<Insn> insns) {
+		for (TryCatch tryCatch : tryCatches) {
+			mv.visitTryCatchBlock(tryCatch.start, tryCatch.end, tryCatch.handler, tryCatch.type);
+		}
+		for (Insn insn : insns) {
+			insn.accept(mv);
+		}
+	}
+
+	// -- evaluation ----------------------------------------------------------
+
+	private final class Evaluation {
+
+		private final Map<Label, Integer> labelIndex = new IdentityHashMap<>();
+		private final Set<Integer> loopHeaders = new HashSet<>();
+		private final Set<Integer> storedInTryBlocks = new HashSet<>();
+		/** locals that are not tracked on entry of the loop header */
+		private final Map<Integer, Set<Integer>> forcedUnknown = new HashMap<>();
+
+		// per run
+		private List<Insn> out;
+		private List<TryCatch> outTryCatches;
+		private Map<List<Object>, Label> specialized;
+		private Deque<Pending> worklist;
+		private List<TryCatch> openTryCatches;
+		private int steps;
+		private Label exit;
+
+		Evaluation() {
+			for (int i = 0; i < code.size(); i++) {
+				if (code.get(i) instanceof LabelInsn) {
+					labelIndex.put(((LabelInsn) code.get(i)).label, i);
+				}
+			}
+			for (int i = 0; i < code.size(); i++) {
+				for (Label target : targets(code.get(i))) {
+					int targetIndex = indexOf(target);
+					if (targetIndex <= i) {
+						loopHeaders.add(targetIndex);
+					}
+				}
+			}
+			for (TryCatch tryCatch : tryCatches) {
+				for (int i = indexOf(tryCatch.start); i < indexOf(tryCatch.end); i++) {
+					Insn insn = code.get(i);
+					// a store also invalidates a wide value starting at the slot before
+					if (insn instanceof IincInsn) {
+						storedInTryBlocks.addAll(List.of(((IincInsn) insn).var - 1, ((IincInsn) insn).var));
+					} else if (insn instanceof VarInsn && insn.opcode >= ISTORE && insn.opcode <= ISTORE + 4) {
+						int var = ((VarInsn) insn).var;
+						boolean wide = insn.opcode == LSTORE || insn.opcode == DSTORE;
+						storedInTryBlocks.addAll(List.of(var - 1, var, wide ? var + 1 : var));
+					}
+				}
+			}
+		}
+
+		private List<Label> targets(Insn insn) {
+			if (insn instanceof JumpInsn) {
+				return List.of(((JumpInsn) insn).label);
+			} else if (insn instanceof SwitchInsn) {
+				List<Label> labels = new ArrayList<>(Arrays.asList(((SwitchInsn) insn).labels));
+				labels.add(((SwitchInsn) insn).dflt);
+				return labels;
+			}
+			return List.of();
+		}
+
+		private int indexOf(Label label) {
+			Integer index = labelIndex.get(label);
+			if (index == null) {
+				throw new Unsupported();
+			}
+			return index;
+		}
+
+		void run() {
+			for (int restarts = 0;; restarts++) {
+				try {
+					specialize();
+					break;
+				} catch (Restart e) {
+					if (restarts >= MAX_RESTARTS) {
+						throw new Unsupported();
+					}
+				}
+			}
+			simplify();
+			outTryCatches.sort(comparingInt(t -> t.order));
+			replay(outTryCatches, out);
+		}
+
+		private void specialize() {
+			out = new ArrayList<>();
+			outTryCatches = new ArrayList<>();
+			specialized = new HashMap<>();
+			worklist = new ArrayDeque<>();
+			openTryCatches = List.of();
+			steps = 0;
+			exit = new Label();
+
+			interpret(0, new State());
+			while (!worklist.isEmpty()) {
+				Pending pending = worklist.pop();
+				out.add(new LabelInsn(pending.label));
+				interpret(pending.index + 1, pending.state);
+			}
+			out.add(new LabelInsn(exit));
+		}
+
+		private void interpret(int index, State state) {
+			while (index >= 0) {
+				if (++steps > MAX_STEPS) {
+					throw new Unsupported();
+				}
+				if (index == code.size()) {
+					if (!state.stack.isEmpty()) {
+						throw new Unsupported();
+					}
+					emit(new JumpInsn(GOTO, exit), index, state);
+					index = -1;
+				} else if (code.get(index) instanceof LabelInsn) {
+					index = enter(index, state) ? index + 1 : -1;
+				} else {
+					index = execute(index, code.get(index), state);
+				}
+			}
+			closeTryCatches();
+		}
+
+		/**
+		 * Continues at the label or jumps to the code already emitted for the label
+		 * and the state.
+		 */
+		private boolean enter(int index, State state) {
+			prepareEntry(index, state, index);
+			List<Object> key = state.key(index);
+			Label label = specialized.get(key);
+			if (label != null) {
+				emit(new JumpInsn(GOTO, label), index, state);
+				return false;
+			}
+			label = new Label();
+			specialized.put(key, label);
+			out.add(new LabelInsn(label));
+			return true;
+		}
+
+		/**
+		 * Returns the label of the code for the label and the state, the code gets
+		 * emitted later on if not yet done.
+		 */
+		private Label request(int targetIndex, State state, int index) {
+			prepareEntry(targetIndex, state, index);
+			List<Object> key = state.key(targetIndex);
+			Label label = specialized.get(key);
+			if (label == null) {
+				label = new Label();
+				specialized.put(key, label);
+				worklist.push(new Pending(targetIndex, state, label));
+			}
+			return label;
+		}
+
+		/**
+		 * Loops are unrolled as long as the loop's condition is known. If there is a
+		 * branch not known at weave time between two entries of a loop header the
+		 * locals that differ must not be tracked at the loop header and the evaluation
+		 * gets restarted.
+		 */
+		private void prepareEntry(int labelIndex, State state, int index) {
+			if (!loopHeaders.contains(labelIndex)) {
+				return;
+			}
+			for (int var : forcedUnknown.getOrDefault(labelIndex, Set.of())) {
+				Value value = state.locals.remove(var);
+				if (value != null) {
+					materialize(value.constant, index, state);
+					emit(new VarInsn(storeOpcode(value.constant), var), index, state);
+				}
+			}
+			LoopEntry previous = state.loops.get(labelIndex);
+			if (previous != null && state.forks > previous.forks) {
+				Set<Integer> differing = new HashSet<>(previous.locals.keySet());
+				differing.addAll(state.locals.keySet());
+				differing.removeIf(v -> Objects.equals(previous.locals.get(v), state.locals.get(v)));
+				if (!differing.isEmpty()) {
+					forcedUnknown.computeIfAbsent(labelIndex, k -> new HashSet<>()).addAll(differing);
+					throw new Restart();
+				}
+			}
+			state.loops.put(labelIndex, new LoopEntry(state.forks, state.locals));
+		}
+
+		/**
+		 * Executes the instruction, returns the index of the next instruction or
+		 * <code>-1</code> if the code ends here.
+		 */
+		private int execute(int index, Insn insn, State state) {
+			int opcode = insn.opcode;
+			if (insn instanceof LdcInsn) {
+				return ldc(index, (LdcInsn) insn, state);
+			} else if (insn instanceof VarInsn) {
+				return var(index, (VarInsn) insn, state);
+			} else if (insn instanceof IincInsn) {
+				IincInsn iinc = (IincInsn) insn;
+				Value value = state.locals.get(iinc.var);
+				if (value != null) {
+					state.locals.put(iinc.var, Value.known((Integer) value.constant + iinc.increment));
+				} else {
+					emit(insn, index, state);
+				}
+				return index + 1;
+			} else if (insn instanceof JumpInsn) {
+				return jump(index, (JumpInsn) insn, state);
+			} else if (insn instanceof SwitchInsn) {
+				return switchInsn(index, (SwitchInsn) insn, state);
+			} else if (insn instanceof IntInsn) {
+				if (opcode == BIPUSH || opcode == SIPUSH) {
+					state.push(Value.known(((IntInsn) insn).operand));
+				} else {
+					residual(insn, index, state, 1, Value.unknown(1));
+				}
+				return index + 1;
+			} else if (insn instanceof TypeInsn) {
+				return typeInsn(index, (TypeInsn) insn, state);
+			} else if (insn instanceof FieldInsn) {
+				int size = Type.getType(((FieldInsn) insn).descriptor).getSize();
+				int pops = opcode == GETSTATIC ? 0 : opcode == GETFIELD || opcode == PUTSTATIC ? 1 : 2;
+				residual(insn, index, state, pops, opcode == GETSTATIC || opcode == GETFIELD ? Value.unknown(size) : null);
+				return index + 1;
+			} else if (insn instanceof MethodInsn) {
+				return invoke(index, (MethodInsn) insn, state);
+			} else if (insn instanceof InvokeDynamicInsn) {
+				String descriptor = ((InvokeDynamicInsn) insn).descriptor;
+				int size = Type.getReturnType(descriptor).getSize();
+				residual(insn, index, state, Type.getArgumentTypes(descriptor).length,
+						size == 0 ? null : Value.unknown(size));
+				return index + 1;
+			} else if (insn instanceof MultiANewArrayInsn) {
+				residual(insn, index, state, ((MultiANewArrayInsn) insn).dimensions, Value.unknown(1));
+				return index + 1;
+			}
+			return simple(index, insn, state);
+		}
+
+		private int ldc(int index, LdcInsn insn, State state) {
+			Object value = normalize(insn.value);
+			if (value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double
+					|| value instanceof String || value instanceof ConstantArray
+					|| (value instanceof Type && ((Type) value).getSort() != Type.METHOD)) {
+				state.push(Value.known(value));
+			} else {
+				int size = value instanceof ConstantDynamic ? ((ConstantDynamic) value).getSize() : 1;
+				residual(insn, index, state, 0, Value.unknown(size));
+			}
+			return index + 1;
+		}
+
+		private int var(int index, VarInsn insn, State state) {
+			int opcode = insn.opcode;
+			if (opcode >= ILOAD && opcode <= ILOAD + 4) {
+				Value value = state.locals.get(insn.var);
+				if (value != null) {
+					state.push(value);
+				} else {
+					flush(index, state);
+					emit(insn, index, state);
+					state.push(Value.unknown(opcode == LLOAD || opcode == DLOAD ? 2 : 1, false, out.size() - 1));
+				}
+			} else if (opcode >= ISTORE && opcode <= ISTORE + 4) {
+				Value value = state.peek(0);
+				invalidate(state, insn.var, value.size);
+				if (value.isKnown() && !storedInTryBlocks.contains(insn.var)) {
+					state.pop();
+					state.locals.put(insn.var, value);
+				} else {
+					residual(insn, index, state, 1, null);
+				}
+			} else if (opcode == RET) {
+				throw new Unsupported();
+			}
+			return index + 1;
+		}
+
+		private void invalidate(State state, int var, int size) {
+			state.locals.remove(var);
+			if (size == 2) {
+				state.locals.remove(var + 1);
+			}
+			Value previous = state.locals.get(var - 1);
+			if (previous != null && previous.size == 2) {
+				state.locals.remove(var - 1);
+			}
+		}
+
+		private int typeInsn(int index, TypeInsn insn, State state) {
+			int opcode = insn.opcode;
+			if (opcode == NEW) {
+				Object constructed = construct(index, insn.type);
+				if (constructed != null) {
+					state.push(Value.known(constructed));
+					// NEW, DUP, LDC, INVOKESPECIAL
+					return index + 4;
+				}
+				residual(insn, index, state, 0, Value.unknown(1));
+			} else if (opcode == CHECKCAST && state.peek(0).isKnown() && state.peek(0).constant == NULL) {
+				// null can be casted to any type
+			} else {
+				residual(insn, index, state, 1, Value.unknown(1));
+			}
+			return index + 1;
+		}
+
+		/**
+		 * Returns the object constructed if the <code>NEW</code> at the index is
+		 * directly followed by the call of a foldable constructor with a constant,
+		 * <code>null</code> if not.
+		 */
+		private Object construct(int index, String type) {
+			if (index + 3 >= code.size() || code.get(index + 1).opcode != DUP
+					|| !(code.get(index + 2) instanceof LdcInsn) || code.get(index + 3).opcode != INVOKESPECIAL) {
+				return null;
+			}
+			Object argument = ((LdcInsn) code.get(index + 2)).value;
+			MethodInsn init = (MethodInsn) code.get(index + 3);
+			Function<Object, Object> constructor = foldableConstructors.get(init.owner + "." + init.name + init.descriptor);
+			if (constructor == null || !init.owner.equals(type) || !(argument instanceof String)) {
+				return null;
+			}
+			try {
+				return constructor.apply(argument);
+			} catch (NumberFormatException e) {
+				// fails at runtime as well
+				throw new Unsupported();
+			}
+		}
+
+		private int invoke(int index, MethodInsn insn, State state) {
+			String signature = insn.owner + "." + insn.name + insn.descriptor;
+			Type[] argumentTypes = Type.getArgumentTypes(insn.descriptor);
+			int pops = argumentTypes.length + (insn.opcode == INVOKESTATIC ? 0 : 1);
+			Function<Object, Object> fold = foldableMethods.get(signature);
+			if (fold != null && pops == 1 && state.peek(0).isKnown() && state.peek(0).constant != NULL) {
+				state.push(Value.known(fold.apply(state.pop().constant)));
+				return index + 1;
+			}
+			BiFunction<Object, Object, Object> binaryFold = foldableBinaryMethods.get(signature);
+			if (binaryFold != null && pops == 2 && state.peek(0).isKnown() && state.peek(1).isKnown()
+					&& state.peek(1).constant != NULL) {
+				Object argument = state.pop().constant;
+				Object receiver = state.pop().constant;
+				state.push(Value.known(binaryFold.apply(receiver, argument == NULL ? null : argument)));
+				return index + 1;
+			}
+			int size = Type.getReturnType(insn.descriptor).getSize();
+			residual(insn, index, state, pops,
+					size == 0 ? null : Value.unknown(size, nonNegativeMethods.contains(signature), -1));
+			return index + 1;
+		}
+
+		private int simple(int index, Insn insn, State state) {
+			int opcode = insn.opcode;
+			if (opcode == NOP) {
+				return index + 1;
+			} else if (opcode == ACONST_NULL) {
+				state.push(Value.known(NULL));
+			} else if (opcode >= ICONST_M1 && opcode <= ICONST_5) {
+				state.push(Value.known(opcode - ICONST_0));
+			} else if (opcode == LCONST_0 || opcode == LCONST_1) {
+				state.push(Value.known((long) (opcode - LCONST_0)));
+			} else if (opcode >= FCONST_0 && opcode <= FCONST_2) {
+				state.push(Value.known((float) (opcode - FCONST_0)));
+			} else if (opcode == DCONST_0 || opcode == DCONST_1) {
+				state.push(Value.known((double) (opcode - DCONST_0)));
+			} else if (opcode >= IALOAD && opcode <= SALOAD) {
+				arrayLoad(index, insn, state);
+			} else if (opcode >= IASTORE && opcode <= IASTORE + 7) {
+				if (state.peek(2).constant instanceof ConstantArray) {
+					// would modify the constant
+					throw new Unsupported();
+				}
+				residual(insn, index, state, 3, null);
+			} else if (opcode == POP) {
+				drop(index, state);
+			} else if (opcode == POP2) {
+				if (state.peek(0).size == 1) {
+					drop(index, state);
+				}
+				drop(index, state);
+			} else if (opcode >= DUP && opcode <= SWAP) {
+				stackManipulation(index, insn, state);
+			} else if (opcode >= IADD && opcode <= LXOR) {
+				arithmetic(index, insn, state);
+			} else if (opcode == I2L || opcode == L2I || opcode == I2B || opcode == I2C || opcode == I2S) {
+				conversion(index, insn, state);
+			} else if (opcode > IINC && opcode <= I2S) {
+				residual(insn, index, state, 1, Value.unknown(resultSize(opcode)));
+			} else if (opcode == LCMP && state.peek(0).isKnown() && state.peek(1).isKnown()) {
+				long value2 = (Long) state.pop().constant;
+				long value1 = (Long) state.pop().constant;
+				state.push(Value.known(Long.compare(value1, value2)));
+			} else if (opcode >= LCMP && opcode <= LCMP + 4) {
+				residual(insn, index, state, 2, Value.unknown(1));
+			} else if (opcode == ARRAYLENGTH) {
+				if (state.peek(0).constant instanceof ConstantArray) {
+					state.push(Value.known(((ConstantArray) state.pop().constant).values.size()));
+				} else {
+					residual(insn, index, state, 1, Value.unknown(1, true, -1));
+				}
+			} else if (opcode == ATHROW) {
+				residual(insn, index, state, 1, null);
+				return -1;
+			} else if (opcode == MONITORENTER || opcode == MONITOREXIT) {
+				residual(insn, index, state, 1, null);
+			} else {
+				// returns (the injector removes them), ...
+				throw new Unsupported();
+			}
+			return index + 1;
+		}
+
+		private void arrayLoad(int index, Insn insn, State state) {
+			Value arrayIndex = state.peek(0);
+			Value array = state.peek(1);
+			if (array.constant instanceof ConstantArray && arrayIndex.isKnown()) {
+				List<Object> values = ((ConstantArray) array.constant).values;
+				int i = (Integer) arrayIndex.constant;
+				if (i >= 0 && i < values.size()) {
+					state.pop();
+					state.pop();
+					state.push(Value.known(normalize(values.get(i))));
+					return;
+				}
+			}
+			int opcode = insn.opcode;
+			residual(insn, index, state, 2, Value.unknown(opcode == LALOAD || opcode == LALOAD + 2 ? 2 : 1));
+		}
+
+		private void stackManipulation(int index, Insn insn, State state) {
+			int opcode = insn.opcode;
+			int involved = involvedValues(opcode, state);
+			boolean allKnown = true;
+			for (int i = 0; i < involved; i++) {
+				allKnown &= state.peek(i).isKnown();
+			}
+			if (!allKnown) {
+				flush(index, state);
+				emit(insn, index, state);
+			}
+			List<Value> values = new ArrayList<>();
+			for (int i = 0; i < involved; i++) {
+				values.add(0, state.pop());
+			}
+			// values: bottom to top, e.g. value3, value2, value1
+			Value v1 = values.get(involved - 1);
+			switch (opcode) {
+			case DUP:
+				push(state, v1, v1);
+				break;
+			case SWAP:
+				push(state, v1, values.get(0));
+				break;
+			case DUP_X1:
+				push(state, v1, values.get(0), v1);
+				break;
+			case DUP_X2:
+				values.add(0, v1);
+				push(state, values.toArray(new Value[0]));
+				break;
+			case DUP2:
+				values.addAll(List.copyOf(values));
+				push(state, values.toArray(new Value[0]));
+				break;
+			case DUP2_X1:
+			case DUP2_X2:
+				int duplicated = v1.size == 2 ? 1 : 2;
+				values.addAll(0, List.copyOf(values.subList(values.size() - duplicated, values.size())));
+				push(state, values.toArray(new Value[0]));
+				break;
+			default:
+				throw new Unsupported();
+			}
+		}
+
+		private int involvedValues(int opcode, State state) {
+			switch (opcode) {
+			case DUP:
+				return 1;
+			case SWAP:
+			case DUP_X1:
+				return 2;
+			case DUP_X2:
+				return state.peek(1).size == 2 ? 2 : 3;
+			case DUP2:
+				return state.peek(0).size == 2 ? 1 : 2;
+			case DUP2_X1:
+				return state.peek(0).size == 2 ? 2 : 3;
+			case DUP2_X2:
+				if (state.peek(0).size == 2) {
+					return state.peek(1).size == 2 ? 2 : 3;
+				}
+				return state.peek(2).size == 2 ? 3 : 4;
+			default:
+				throw new Unsupported();
+			}
+		}
+
+		private void push(State state, Value... values) {
+			for (Value value : values) {
+				state.push(value);
+			}
+		}
+
+		private void arithmetic(int index, Insn insn, State state) {
+			int opcode = insn.opcode;
+			if (opcode >= INEG && opcode <= DNEG) {
+				if ((opcode == INEG || opcode == LNEG) && state.peek(0).isKnown()) {
+					Object value = state.pop().constant;
+					state.push(Value.known(opcode == INEG ? (Object) (-(Integer) value) : (Object) (-(Long) value)));
+				} else {
+					residual(insn, index, state, 1, Value.unknown(resultSize(opcode)));
+				}
+				return;
+			}
+			if (state.peek(0).isKnown() && state.peek(1).isKnown()) {
+				Object value2 = state.peek(0).constant;
+				Object value1 = state.peek(1).constant;
+				Object result = null;
+				if (value1 instanceof Integer && value2 instanceof Integer) {
+					result = foldInt(opcode, (Integer) value1, (Integer) value2);
+				} else if (value1 instanceof Long) {
+					result = foldLong(opcode, (Long) value1, value2);
+				}
+				if (result != null) {
+					state.pop();
+					state.pop();
+					state.push(Value.known(result));
+					return;
+				}
+			}
+			residual(insn, index, state, 2, Value.unknown(resultSize(opcode)));
+		}
+
+		private Integer foldInt(int opcode, int value1, int value2) {
+			switch (opcode) {
+			case IADD:
+				return value1 + value2;
+			case ISUB:
+				return value1 - value2;
+			case IMUL:
+				return value1 * value2;
+			case IDIV:
+				return value2 == 0 ? null : value1 / value2;
+			case IREM:
+				return value2 == 0 ? null : value1 % value2;
+			case ISHL:
+				return value1 << value2;
+			case ISHR:
+				return value1 >> value2;
+			case IUSHR:
+				return value1 >>> value2;
+			case IAND:
+				return value1 & value2;
+			case IOR:
+				return value1 | value2;
+			case IXOR:
+				return value1 ^ value2;
+			default:
+				return null;
+			}
+		}
+
+		private Long foldLong(int opcode, long value1, Object value2) {
+			if (value2 instanceof Integer) {
+				int shift = (Integer) value2;
+				switch (opcode) {
+				case LSHL:
+					return value1 << shift;
+				case LSHR:
+					return value1 >> shift;
+				case LUSHR:
+					return value1 >>> shift;
+				default:
+					return null;
+				}
+			}
+			long long2 = (Long) value2;
+			switch (opcode) {
+			case LADD:
+				return value1 + long2;
+			case LSUB:
+				return value1 - long2;
+			case LMUL:
+				return value1 * long2;
+			case LAND:
+				return value1 & long2;
+			case LOR:
+				return value1 | long2;
+			case LXOR:
+				return value1 ^ long2;
+			default:
+				return null;
+			}
+		}
+
+		private void conversion(int index, Insn insn, State state) {
+			int opcode = insn.opcode;
+			if (!state.peek(0).isKnown()) {
+				residual(insn, index, state, 1, Value.unknown(resultSize(opcode)));
+				return;
+			}
+			Object value = state.pop().constant;
+			switch (opcode) {
+			case I2L:
+				state.push(Value.known((long) (Integer) value));
+				break;
+			case L2I:
+				state.push(Value.known((int) (long) (Long) value));
+				break;
+			case I2B:
+				state.push(Value.known((int) (byte) (int) (Integer) value));
+				break;
+			case I2C:
+				state.push(Value.known((int) (char) (int) (Integer) value));
+				break;
+			default:
+				state.push(Value.known((int) (short) (int) (Integer) value));
+				break;
+			}
+		}
+
+		private int resultSize(int opcode) {
+			if (opcode >= IADD && opcode <= DNEG) {
+				// xADD ... xNEG: int, long, float, double
+				int type = (opcode - IADD) % 4;
+				return type == 1 || type == 3 ? 2 : 1;
+			} else if (opcode >= ISHL && opcode <= LXOR) {
+				return (opcode - ISHL) % 2 == 1 ? 2 : 1;
+			}
+			switch (opcode) {
+			case I2L:
+			case I2D:
+			case L2D:
+			case F2L:
+			case F2D:
+			case D2L:
+				return 2;
+			default:
+				return 1;
+			}
+		}
+
+		private int jump(int index, JumpInsn insn, State state) {
+			int opcode = insn.opcode;
+			int target = indexOf(insn.label);
+			if (opcode == GOTO) {
+				return target;
+			} else if (opcode == JSR) {
+				throw new Unsupported();
+			} else if (opcode >= IFEQ && opcode <= IFLE) {
+				Value value = state.peek(0);
+				if (value.isKnown()) {
+					state.pop();
+					return compare(opcode - IFEQ, (Integer) value.constant, 0) ? target : index + 1;
+				}
+				Boolean decided = decide(opcode - IFEQ, value, Value.known(0));
+				if (decided != null) {
+					drop(index, state);
+					return decided ? target : index + 1;
+				}
+				return branch(index, insn, state, 1);
+			} else if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE) {
+				Value value2 = state.peek(0);
+				Value value1 = state.peek(1);
+				if (value1.isKnown() && value2.isKnown()) {
+					state.pop();
+					state.pop();
+					return compare(opcode - IF_ICMPEQ, (Integer) value1.constant, (Integer) value2.constant) ? target
+							: index + 1;
+				}
+				Boolean decided = decide(opcode - IF_ICMPEQ, value1, value2);
+				if (decided != null) {
+					state.pop();
+					drop(index, state);
+					return decided ? target : index + 1;
+				}
+				if (value2.isKnown() && Integer.valueOf(0).equals(value2.constant)) {
+					// compare against zero
+					state.pop();
+					return branch(index, new JumpInsn(opcode - IF_ICMPEQ + IFEQ, insn.label), state, 1);
+				}
+				return branch(index, insn, state, 2);
+			} else if (opcode == IF_ACMPEQ || opcode == IF_ACMPNE) {
+				Value value2 = state.peek(0);
+				Value value1 = state.peek(1);
+				if (value1.isKnown() && value2.isKnown() && (value1.constant == NULL || value2.constant == NULL)) {
+					// constants other than null are never null
+					state.pop();
+					state.pop();
+					return (value1.constant == value2.constant) == (opcode == IF_ACMPEQ) ? target : index + 1;
+				}
+				if (value2.constant == NULL) {
+					state.pop();
+					return branch(index, new JumpInsn(opcode == IF_ACMPEQ ? IFNULL : IFNONNULL, insn.label), state, 1);
+				}
+				return branch(index, insn, state, 2);
+			} else if (opcode == IFNULL || opcode == IFNONNULL) {
+				Value value = state.peek(0);
+				if (value.isKnown()) {
+					state.pop();
+					return (value.constant == NULL) == (opcode == IFNULL) ? target : index + 1;
+				}
+				return branch(index, insn, state, 1);
+			}
+			throw new Unsupported();
+		}
+
+		private boolean compare(int condition, int value1, int value2) {
+			switch (condition) {
+			case 0:
+				return value1 == value2;
+			case 1:
+				return value1 != value2;
+			case 2:
+				return value1 < value2;
+			case 3:
+				return value1 >= value2;
+			case 4:
+				return value1 > value2;
+			default:
+				return value1 <= value2;
+			}
+		}
+
+		/**
+		 * Decides comparisons with only one of the values known if the result does not
+		 * depend on the value not known, e.g. <code>x &gt; Integer.MAX_VALUE</code> or
+		 * <code>collection.size() &lt; 0</code>.
+		 */
+		private Boolean decide(int condition, Value value1, Value value2) {
+			if (!value2.isKnown()) {
+				return null;
+			}
+			int known = (Integer) value2.constant;
+			boolean negative = value1.nonNegative && known < 0;
+			Boolean equal = negative ? Boolean.FALSE : null;
+			Boolean lessThan = known == Integer.MIN_VALUE || (value1.nonNegative && known <= 0) ? Boolean.FALSE : null;
+			Boolean greaterThan = known == Integer.MAX_VALUE ? Boolean.FALSE : negative ? Boolean.TRUE : null;
+			switch (condition) {
+			case 0:
+				return equal;
+			case 1:
+				return not(equal);
+			case 2:
+				return lessThan;
+			case 3:
+				return not(lessThan);
+			case 4:
+				return greaterThan;
+			default:
+				return not(greaterThan);
+			}
+		}
+
+		private Boolean not(Boolean value) {
+			return value == null ? null : !value;
+		}
+
+		private int switchInsn(int index, SwitchInsn insn, State state) {
+			Value key = state.peek(0);
+			if (key.isKnown()) {
+				state.pop();
+				int value = (Integer) key.constant;
+				for (int i = 0; i < insn.keys.length; i++) {
+					if (insn.keys[i] == value) {
+						return indexOf(insn.labels[i]);
+					}
+				}
+				return indexOf(insn.dflt);
+			}
+			state.pop();
+			state.forks++;
+			Label[] labels = new Label[insn.labels.length];
+			for (int i = 0; i < labels.length; i++) {
+				labels[i] = request(indexOf(insn.labels[i]), state.copy(), index);
+			}
+			Label dflt = request(indexOf(insn.dflt), state.copy(), index);
+			emit(new SwitchInsn(insn.opcode, insn.keys, dflt, labels), index, state);
+			return -1;
+		}
+
+		/**
+		 * Emits a conditional jump whose condition is not known at weave time.
+		 */
+		private int branch(int index, JumpInsn insn, State state, int pops) {
+			flush(index, state);
+			for (int i = 0; i < pops; i++) {
+				state.pop();
+			}
+			state.forks++;
+			Label target = request(indexOf(insn.label), state.copy(), index);
+			emit(new JumpInsn(insn.opcode, target), index, state);
+			return index + 1;
+		}
+
+		/**
+		 * Emits the instruction, the values known on the stack get pushed before.
+		 */
+		private void residual(Insn insn, int index, State state, int pops, Value pushed) {
+			flush(index, state);
+			for (int i = 0; i < pops; i++) {
+				state.pop();
+			}
+			emit(insn, index, state);
+			if (pushed != null) {
+				state.push(pushed);
+			}
+		}
+
+		private void drop(int index, State state) {
+			Value value = state.pop();
+			if (!value.isKnown()) {
+				if (value.pushedAt >= 0 && value.pushedAt == out.size() - 1) {
+					out.remove(out.size() - 1);
+				} else {
+					emit(new SimpleInsn(value.size == 2 ? POP2 : POP), index, state);
+				}
+			}
+		}
+
+		/**
+		 * Pushes the values known on the stack.
+		 */
+		private void flush(int index, State state) {
+			for (int i = 0; i < state.stack.size(); i++) {
+				Value value = state.stack.get(i);
+				if (value.isKnown()) {
+					if (value.constant instanceof ConstantArray && isShared(value.constant, state)) {
+						// the array would no longer be the same instance
+						throw new Unsupported();
+					}
+					materialize(value.constant, index, state);
+					boolean single = !(value.constant instanceof ConstantArray || value.constant instanceof BigDecimal
+							|| value.constant instanceof BigInteger);
+					state.stack.set(i, Value.unknown(value.size, value.nonNegative, single ? out.size() - 1 : -1));
+				}
+			}
+		}
+
+		private boolean isShared(Object constant, State state) {
+			int references = 0;
+			for (Value value : state.stack) {
+				references += value.constant == constant ? 1 : 0;
+			}
+			for (Value value : state.locals.values()) {
+				references += value.constant == constant ? 1 : 0;
+			}
+			return references > 1;
+		}
+
+		private void materialize(Object constant, int index, State state) {
+			List<Insn> insns = new ArrayList<>();
+			constant(constant, insns);
+			for (Insn insn : insns) {
+				emit(insn, index, state);
+			}
+		}
+
+		private void emit(Insn insn, int index, State state) {
+			List<TryCatch> covering = covering(index, state);
+			if (!sameHandlers(covering, openTryCatches)) {
+				closeTryCatches();
+				if (!covering.isEmpty()) {
+					Label start = new Label();
+					out.add(new LabelInsn(start));
+					List<TryCatch> opened = new ArrayList<>();
+					for (TryCatch tryCatch : covering) {
+						opened.add(new TryCatch(start, null, tryCatch.handler, tryCatch.type, tryCatch.order));
+					}
+					openTryCatches = opened;
+				}
+			}
+			out.add(insn);
+		}
+
+		private List<TryCatch> covering(int index, State state) {
+			List<TryCatch> covering = new ArrayList<>();
+			for (TryCatch tryCatch : tryCatches) {
+				if (indexOf(tryCatch.start) <= index && index < indexOf(tryCatch.end)) {
+					State handlerState = state.copy();
+					handlerState.stack.clear();
+					handlerState.stack.add(Value.unknown(1));
+					handlerState.forks++;
+					Label handler = request(indexOf(tryCatch.handler), handlerState, index);
+					covering.add(new TryCatch(null, null, handler, tryCatch.type, tryCatch.order));
+				}
+			}
+			return covering;
+		}
+
+		private boolean sameHandlers(List<TryCatch> tryCatches1, List<TryCatch> tryCatches2) {
+			if (tryCatches1.size() != tryCatches2.size()) {
+				return false;
+			}
+			for (int i = 0; i < tryCatches1.size(); i++) {
+				if (tryCatches1.get(i).handler != tryCatches2.get(i).handler
+						|| tryCatches1.get(i).order != tryCatches2.get(i).order) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void closeTryCatches() {
+			if (!openTryCatches.isEmpty()) {
+				Label end = new Label();
+				out.add(new LabelInsn(end));
+				for (TryCatch tryCatch : openTryCatches) {
+					outTryCatches.add(new TryCatch(tryCatch.start, end, tryCatch.handler, tryCatch.type, tryCatch.order));
+				}
+				openTryCatches = List.of();
+			}
+		}
+
+		/**
+		 * Peephole cleanup of the residual code: jumps to jumps get threaded,
+		 * conditional jumps over a <code>goto</code> get inverted, code that became
+		 * unreachable and jumps to the next instruction get removed.
+		 */
+		private void simplify() {
+			for (int size = -1; size != out.size();) {
+				size = out.size();
+				threadJumps();
+				invertJumpsOverGotos();
+				removeUnreachable();
+				removeJumpsToNext();
+			}
+			outTryCatches.removeIf(t -> isFollowedBy(indexOfOut(t.start), t.end));
+		}
+
+		private void threadJumps() {
+			for (int i = 0; i < out.size(); i++) {
+				Insn insn = out.get(i);
+				if (insn instanceof JumpInsn) {
+					out.set(i, new JumpInsn(insn.opcode, finalTarget(((JumpInsn) insn).label)));
+				} else if (insn instanceof SwitchInsn) {
+					SwitchInsn switchInsn = (SwitchInsn) insn;
+					out.set(i, new SwitchInsn(insn.opcode, switchInsn.keys, finalTarget(switchInsn.dflt),
+							Arrays.stream(switchInsn.labels).map(this::finalTarget).toArray(Label[]::new)));
+				}
+			}
+		}
+
+		private Label finalTarget(Label label) {
+			Set<Label> seen = new HashSet<>();
+			while (seen.add(label)) {
+				Insn next = firstInsnAfter(indexOfOut(label));
+				if (next == null || next.opcode != GOTO) {
+					break;
+				}
+				label = ((JumpInsn) next).label;
+			}
+			return label;
+		}
+
+		private void invertJumpsOverGotos() {
+			for (int i = 0; i < out.size(); i++) {
+				Insn insn = out.get(i);
+				Insn next = firstInsnAfter(i);
+				if (insn instanceof JumpInsn && insn.opcode != GOTO && next != null && next.opcode == GOTO
+						&& isFollowedBy(out.indexOf(next), ((JumpInsn) insn).label)) {
+					out.set(i, new JumpInsn(inverted(insn.opcode), ((JumpInsn) next).label));
+					out.remove(next);
+				}
+			}
+		}
+
+		private void removeUnreachable() {
+			Set<Label> referenced = new HashSet<>();
+			out.stream().map(this::targets).forEach(referenced::addAll);
+			outTryCatches.forEach(t -> referenced.addAll(List.of(t.start, t.end, t.handler)));
+			List<Insn> result = new ArrayList<>(out.size());
+			boolean reachable = true;
+			for (Insn insn : out) {
+				if (insn instanceof LabelInsn && referenced.contains(((LabelInsn) insn).label)) {
+					reachable = true;
+				}
+				if (reachable) {
+					result.add(insn);
+				}
+				if (insn.opcode == GOTO || insn.opcode == ATHROW || insn instanceof SwitchInsn) {
+					reachable = false;
+				}
+			}
+			out = result;
+		}
+
+		private void removeJumpsToNext() {
+			List<Insn> result = new ArrayList<>(out.size());
+			for (int i = 0; i < out.size(); i++) {
+				Insn insn = out.get(i);
+				if (insn.opcode != GOTO || !isFollowedBy(i, ((JumpInsn) insn).label)) {
+					result.add(insn);
+				}
+			}
+			out = result;
+		}
+
+		private Insn firstInsnAfter(int index) {
+			for (int i = index + 1; i < out.size(); i++) {
+				if (!(out.get(i) instanceof LabelInsn)) {
+					return out.get(i);
+				}
+			}
+			return null;
+		}
+
+		private int indexOfOut(Label label) {
+			for (int i = 0; i < out.size(); i++) {
+				if (out.get(i) instanceof LabelInsn && ((LabelInsn) out.get(i)).label == label) {
+					return i;
+				}
+			}
+			throw new IllegalStateException("Label not emitted: " + label);
+		}
+
+		private boolean isFollowedBy(int index, Label label) {
+			for (int i = index + 1; i < out.size() && out.get(i) instanceof LabelInsn; i++) {
+				if (((LabelInsn) out.get(i)).label == label) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	// -- constants -----------------------------------------------------------
+
+	private static int inverted(int jumpOpcode) {
+		// IFEQ/IFNE, IFLT/IFGE, ... as well as IFNULL/IFNONNULL are pairs
+		return jumpOpcode >= IFNULL ? jumpOpcode ^ 1 : ((jumpOpcode - IFEQ) ^ 1) + IFEQ;
+	}
+
+	private static Object normalize(Object value) {
+		if (value instanceof Boolean) {
+			return (Boolean) value ? 1 : 0;
+		} else if (value instanceof Character) {
+			return (int) (Character) value;
+		} else if (value instanceof Byte || value instanceof Short) {
+			return ((Number) value).intValue();
+		}
+		return value;
+	}
+
+	private static int storeOpcode(Object constant) {
+		if (constant instanceof Integer) {
+			return ISTORE;
+		} else if (constant instanceof Long) {
+			return LSTORE;
+		} else if (constant instanceof Float) {
+			return FSTORE;
+		} else if (constant instanceof Double) {
+			return DSTORE;
+		}
+		return ASTORE;
+	}
+
+	/**
+	 * Adds the instructions pushing the constant.
+	 */
+	private static void constant(Object constant, List<Insn> insns) {
+		Object value = normalize(constant);
+		if (value == NULL) {
+			insns.add(new SimpleInsn(ACONST_NULL));
+		} else if (value instanceof Integer) {
+			int intValue = (Integer) value;
+			if (intValue >= -1 && intValue <= 5) {
+				insns.add(new SimpleInsn(ICONST_0 + intValue));
+			} else if (intValue >= Byte.MIN_VALUE && intValue <= Byte.MAX_VALUE) {
+				insns.add(new IntInsn(BIPUSH, intValue));
+			} else if (intValue >= Short.MIN_VALUE && intValue <= Short.MAX_VALUE) {
+				insns.add(new IntInsn(SIPUSH, intValue));
+			} else {
+				insns.add(new LdcInsn(value));
+			}
+		} else if (value instanceof Long && ((Long) value == 0L || (Long) value == 1L)) {
+			insns.add(new SimpleInsn(LCONST_0 + (int) (long) (Long) value));
+		} else if (value instanceof Float && isSmallFloat((Float) value)) {
+			insns.add(new SimpleInsn(FCONST_0 + (int) (float) (Float) value));
+		} else if (value instanceof Double && (Double.doubleToLongBits((Double) value) == 0L
+				|| Double.doubleToLongBits((Double) value) == Double.doubleToLongBits(1.0))) {
+			insns.add(new SimpleInsn(DCONST_0 + (int) (double) (Double) value));
+		} else if (value instanceof ParameterInfo.EnumEntry) {
+			ParameterInfo.EnumEntry entry = (ParameterInfo.EnumEntry) value;
+			insns.add(new FieldInsn(GETSTATIC, entry.type().getInternalName(), entry.value(),
+					entry.type().getDescriptor()));
+		} else if (value instanceof ConstantArray) {
+			ConstantArray array = (ConstantArray) value;
+			constant(array.values.size(), insns);
+			Type elementType = array.elementType;
+			if (elementType.getSort() == Type.OBJECT || elementType.getSort() == Type.ARRAY) {
+				insns.add(new TypeInsn(ANEWARRAY, elementType.getInternalName()));
+			} else {
+				insns.add(new IntInsn(NEWARRAY, newArrayOperand(elementType)));
+			}
+			for (int i = 0; i < array.values.size(); i++) {
+				insns.add(new SimpleInsn(DUP));
+				constant(i, insns);
+				constant(array.values.get(i), insns);
+				insns.add(new SimpleInsn(elementType.getOpcode(IASTORE)));
+			}
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			String type = Type.getInternalName(value.getClass());
+			insns.add(new TypeInsn(NEW, type));
+			insns.add(new SimpleInsn(DUP));
+			insns.add(new LdcInsn(value.toString()));
+			insns.add(new MethodInsn(INVOKESPECIAL, type, "<init>", "(Ljava/lang/String;)V", false));
+		} else {
+			insns.add(new LdcInsn(value));
+		}
+	}
+
+	private static boolean isSmallFloat(float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits == Float.floatToIntBits(0f) || bits == Float.floatToIntBits(1f)
+				|| bits == Float.floatToIntBits(2f);
+	}
+
+	private static int newArrayOperand(Type elementType) {
+		switch (elementType.getSort()) {
+		case Type.BOOLEAN:
+			return T_BOOLEAN;
+		case Type.CHAR:
+			return T_CHAR;
+		case Type.BYTE:
+			return T_BYTE;
+		case Type.SHORT:
+			return T_SHORT;
+		case Type.INT:
+			return T_INT;
+		case Type.FLOAT:
+			return T_FLOAT;
+		case Type.LONG:
+			return T_LONG;
+		case Type.DOUBLE:
+			return T_DOUBLE;
+		default:
+			throw new IllegalStateException("Unsupported array element type " + elementType);
+		}
+	}
+
+}
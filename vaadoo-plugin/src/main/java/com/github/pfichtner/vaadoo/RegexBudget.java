@@ -0,0 +1,157 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.Opcodes.ACC_FINAL;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SYNTHETIC;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.ARETURN;
+import static net.bytebuddy.jar.asm.Opcodes.ATHROW;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.DUP2_X1;
+import static net.bytebuddy.jar.asm.Opcodes.GETFIELD;
+import static net.bytebuddy.jar.asm.Opcodes.I2L;
+import static net.bytebuddy.jar.asm.Opcodes.IFGE;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEINTERFACE;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
+import static net.bytebuddy.jar.asm.Opcodes.IRETURN;
+import static net.bytebuddy.jar.asm.Opcodes.LADD;
+import static net.bytebuddy.jar.asm.Opcodes.LCMP;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.LCONST_1;
+import static net.bytebuddy.jar.asm.Opcodes.LMUL;
+import static net.bytebuddy.jar.asm.Opcodes.LSUB;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.PUTFIELD;
+import static net.bytebuddy.jar.asm.Opcodes.RETURN;
+import static net.bytebuddy.jar.asm.Opcodes.V1_8;
+
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Generates the class the inputs of regexes are wrapped into if a budget is
+ * configured (see {@link VaadooOptions#regexBudget(String)}): A
+ * <code>CharSequence</code> that allows the regex engine
+ * <code>budget * (length + 1)</code> calls of <code>charAt</code> and throws an
+ * {@link IllegalArgumentException} afterwards. The class gets generated per
+ * woven class (the budget is a constant of it) since the woven classes must not
+ * depend on vaadoo at runtime.
+ */
+public final class RegexBudget {
+
+	private static final String CHAR_SEQUENCE = "java/lang/CharSequence";
+	private static final String CHAR_SEQUENCE_DESCRIPTOR = "L" + CHAR_SEQUENCE + ";";
+	static final String WRAP_METHOD = "wrap";
+	static final String WRAP_DESCRIPTOR = "(" + CHAR_SEQUENCE_DESCRIPTOR + ")" + CHAR_SEQUENCE_DESCRIPTOR;
+
+	private RegexBudget() {
+		super();
+	}
+
+	/**
+	 * Returns the binary name of the wrapper class generated for the passed class.
+	 */
+	public static String wrapperName(String className) {
+		return className + "$VaadooRegexBudget";
+	}
+
+	/**
+	 * Returns the class file of the wrapper for the passed class (binary name), its
+	 * only entry point is <code>static CharSequence wrap(CharSequence)</code>.
+	 */
+	public static byte[] wrapperClass(String className, int budget) {
+		String name = wrapperName(className).replace('.', '/');
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, "java/lang/Object",
+				new String[] { CHAR_SEQUENCE });
+		cw.visitField(ACC_PRIVATE | ACC_FINAL, "chars", CHAR_SEQUENCE_DESCRIPTOR, null, null).visitEnd();
+		cw.visitField(ACC_PRIVATE, "steps", "J", null, null).visitEnd();
+
+		MethodVisitor mv = cw.visitMethod(ACC_PRIVATE, "<init>", "(" + CHAR_SEQUENCE_DESCRIPTOR + ")V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitFieldInsn(PUTFIELD, name, "chars", CHAR_SEQUENCE_DESCRIPTOR);
+		// steps = budget * (chars.length() + 1L)
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitLdcInsn((long) budget);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE, "length", "()I", true);
+		mv.visitInsn(I2L);
+		mv.visitInsn(LCONST_1);
+		mv.visitInsn(LADD);
+		mv.visitInsn(LMUL);
+		mv.visitFieldInsn(PUTFIELD, name, "steps", "J");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(ACC_STATIC, WRAP_METHOD, WRAP_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(NEW, name);
+		mv.visitInsn(DUP);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "(" + CHAR_SEQUENCE_DESCRIPTOR + ")V", false);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(ACC_PUBLIC, "charAt", "(I)C", null, null);
+		mv.visitCode();
+		// if ((steps = steps - 1) < 0) throw new IllegalArgumentException(...)
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitInsn(DUP);
+		mv.visitFieldInsn(GETFIELD, name, "steps", "J");
+		mv.visitInsn(LCONST_1);
+		mv.visitInsn(LSUB);
+		mv.visitInsn(DUP2_X1);
+		mv.visitFieldInsn(PUTFIELD, name, "steps", "J");
+		mv.visitInsn(LCONST_0);
+		mv.visitInsn(LCMP);
+		Label withinBudget = new Label();
+		mv.visitJumpInsn(IFGE, withinBudget);
+		mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn("regex matching exceeded its budget of " + budget + " steps per char");
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V",
+				false);
+		mv.visitInsn(ATHROW);
+		mv.visitLabel(withinBudget);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, "chars", CHAR_SEQUENCE_DESCRIPTOR);
+		mv.visitVarInsn(ILOAD, 1);
+		mv.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE, "charAt", "(I)C", true);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		delegate(cw, name, "length", "()I", IRETURN);
+		delegate(cw, name, "subSequence", "(II)" + CHAR_SEQUENCE_DESCRIPTOR, ARETURN);
+		delegate(cw, name, "toString", "()Ljava/lang/String;", ARETURN);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void delegate(ClassWriter cw, String name, String methodName, String descriptor, int returnOpcode) {
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, methodName, descriptor, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, "chars", CHAR_SEQUENCE_DESCRIPTOR);
+		if (descriptor.startsWith("(II)")) {
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitVarInsn(ILOAD, 2);
+		}
+		mv.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE, methodName, descriptor, true);
+		mv.visitInsn(returnOpcode);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+}
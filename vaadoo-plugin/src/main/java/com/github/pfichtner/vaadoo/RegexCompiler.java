@@ -0,0 +1,1587 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.AsmUtil.pushInt;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.MULTILINE;
+import static java.util.regex.Pattern.UNIX_LINES;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.BIPUSH;
+import static net.bytebuddy.jar.asm.Opcodes.GOTO;
+import static net.bytebuddy.jar.asm.Opcodes.IADD;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_0;
+import static net.bytebuddy.jar.asm.Opcodes.ICONST_1;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPEQ;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPGE;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPGT;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPLE;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPLT;
+import static net.bytebuddy.jar.asm.Opcodes.IF_ICMPNE;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.IMUL;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEINTERFACE;
+import static net.bytebuddy.jar.asm.Opcodes.IRETURN;
+import static net.bytebuddy.jar.asm.Opcodes.ISTORE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Compiles regular expressions of a subset of the <code>java.util.regex</code>
+ * syntax (literals, character classes, groups, alternations and greedy/lazy
+ * quantifiers) to a DFA that gets emitted as bytecode: Each state is a block of
+ * code reading the next char of the {@link CharSequence} and jumping to the
+ * block of the next state, so matching allocates nothing and takes linear time.
+ * <p>
+ * Anything else (backreferences, lookarounds, possessive quantifiers, flags
+ * other than {@link java.util.regex.Pattern#CASE_INSENSITIVE}, ...) is not
+ * supported, {@link #compile(String, int)} returns <code>null</code> for these
+ * and the {@link java.util.regex.Pattern} has to be used. Since
+ * <code>java.util.regex</code> matches code points the generated code falls
+ * back to the {@link java.util.regex.Pattern} for inputs containing surrogates
+ * if the expression can match these.
+ */
+final class RegexCompiler {
+
+	private static final int MAX_NFA_STATES = 2_000;
+	private static final int MAX_DFA_STATES = 256;
+	private static final int MAX_LITERALS = 1_024;
+	/**
+	 * Maximum (estimated) size of the code of a {@link LiteralSet}, larger ones
+	 * get compiled to a {@link Dfa}: HotSpot doesn't JIT compile methods larger
+	 * than 8000 bytes (and methods must not exceed 64KB anyway).
+	 */
+	private static final int MAX_LITERAL_SET_CODE_SIZE = 8_000;
+	/**
+	 * Flags not changing the number of chars a regex matches (COMMENTS, LITERAL,
+	 * CANON_EQ, ... change the syntax or the way chars are compared)
+	 */
+	private static final int LENGTH_PRESERVING_FLAGS = CASE_INSENSITIVE | MULTILINE | DOTALL | UNIX_LINES;
+
+	private static final int MAX_CHAR = Character.MAX_VALUE;
+
+	private static final CharSet DIGITS = CharSet.range('0', '9');
+	private static final CharSet WORD_CHARS = DIGITS.union(CharSet.range('a', 'z')).union(CharSet.range('A', 'Z'))
+			.union(CharSet.of('_'));
+	private static final CharSet WHITESPACES = CharSet.of(' ').union(CharSet.range('\t', '\r'));
+	private static final CharSet LINE_TERMINATORS = CharSet.of('\n').union(CharSet.of('\r'))
+			.union(CharSet.of('\u0085')).union(CharSet.range(0x2028, 0x2029));
+	private static final CharSet SURROGATES = CharSet.range(Character.MIN_SURROGATE, Character.MAX_SURROGATE);
+
+	private RegexCompiler() {
+		super();
+	}
+
+	/**
+	 * Code matching the whole input against a regex, emitted as the body of a
+	 * static method <code>(CharSequence)Z</code>. Inputs having a length the regex
+	 * can never match are rejected upfront.
+	 */
+	abstract static class CompiledRegex {
+
+		private static final int INPUT = 0;
+		private static final int LENGTH = 1;
+
+		private final int minLength;
+		private final int maxLength;
+
+		private CompiledRegex(int minLength, int maxLength) {
+			this.minLength = minLength;
+			this.maxLength = maxLength;
+		}
+
+		int minLength() {
+			return minLength;
+		}
+
+		/**
+		 * Returns the maximum length of the matched inputs or <code>-1</code> if
+		 * unbounded.
+		 */
+		int maxLength() {
+			return maxLength;
+		}
+
+		/**
+		 * Writes the method's body, <code>patternMatches</code> has to push the result
+		 * of matching the input (local 0) with the {@link java.util.regex.Pattern}
+		 * (used for inputs the generated code can't decide) without using other
+		 * locals. Frames and maxs have to be computed by the ClassWriter.
+		 */
+		final void writeMatchesMethod(MethodVisitor mv, Consumer<MethodVisitor> patternMatches) {
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, INPUT);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/CharSequence", "length", "()I", true);
+			mv.visitVarInsn(ISTORE, LENGTH);
+			Label reject = new Label();
+			if (minLength > 0) {
+				mv.visitVarInsn(ILOAD, LENGTH);
+				pushInt(mv, minLength);
+				mv.visitJumpInsn(IF_ICMPLT, reject);
+			}
+			if (maxLength >= 0) {
+				mv.visitVarInsn(ILOAD, LENGTH);
+				pushInt(mv, maxLength);
+				mv.visitJumpInsn(IF_ICMPGT, reject);
+			}
+			writeMatches(mv, m -> {
+				patternMatches.accept(m);
+				m.visitInsn(IRETURN);
+			}, reject);
+			mv.visitLabel(reject);
+			mv.visitInsn(ICONST_0);
+			mv.visitInsn(IRETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		/**
+		 * Writes the code following the length check, every path has to end in a
+		 * return or a jump to <code>reject</code>. <code>patternMatches</code> writes
+		 * the return of the Pattern's result.
+		 */
+		abstract void writeMatches(MethodVisitor mv, Consumer<MethodVisitor> patternMatches, Label reject);
+
+		/**
+		 * Returns the {@link LengthCheckedPattern} to be used if the code of this one
+		 * gets too large.
+		 */
+		CompiledRegex lengthChecked() {
+			return new LengthCheckedPattern(minLength, maxLength);
+		}
+
+	}
+
+	/**
+	 * Returns the compiled form of the passed regex (which has to be a valid regex)
+	 * or <code>null</code> if the regex is not supported. Regexes matching only a
+	 * finite set of strings (e.g. <code>EUR|USD|GBP</code>) are compiled to a
+	 * {@link LiteralSet}, all others to a {@link Dfa}. If neither is possible but
+	 * the length of the matched inputs is bounded a {@link LengthCheckedPattern}
+	 * gets returned.
+	 */
+	static CompiledRegex compile(String regex, int flags) {
+		CompiledRegex compiled = (flags & ~CASE_INSENSITIVE) == 0
+				? automaton(regex, (flags & CASE_INSENSITIVE) != 0)
+				: null;
+		return compiled == null ? lengthChecked(regex, flags) : compiled;
+	}
+
+	private static CompiledRegex automaton(String regex, boolean caseInsensitive) {
+		try {
+			Node node = new Parser(regex, false, false).parse();
+			Set<String> literals = node.literals();
+			if (literals != null && LiteralSet.codeSize(literals, caseInsensitive) <= MAX_LITERAL_SET_CODE_SIZE) {
+				return new LiteralSet(literals, caseInsensitive);
+			}
+			if (caseInsensitive) {
+				node = new Parser(regex, true, false).parse();
+			}
+			Nfa nfa = new Nfa();
+			nfa.accepting = node.build(nfa, nfa.newState());
+			return Dfa.of(nfa, node.minLength(), node.maxLength());
+		} catch (Unsupported e) {
+			return null;
+		}
+	}
+
+	private static CompiledRegex lengthChecked(String regex, int flags) {
+		if ((flags & ~LENGTH_PRESERVING_FLAGS) != 0) {
+			return null;
+		}
+		try {
+			Node node = new Parser(regex, false, true).parse();
+			return node.minLength() > 0 || node.maxLength() >= 0 //
+					? new LengthCheckedPattern(node.minLength(), node.maxLength()) //
+					: null;
+		} catch (Unsupported e) {
+			return null;
+		}
+	}
+
+	// -- backtracking --------------------------------------------------------
+
+	/**
+	 * How the time {@link java.util.regex.Pattern} needs to reject an input might
+	 * grow with the input's length.
+	 */
+	enum Backtracking {
+		/** e.g. <code>\d+\.?\d+</code>, adjacent quantifiers matching the same chars */
+		POLYNOMIAL,
+		/** e.g. <code>(\w+\s?)+</code>, nested quantifiers matching the same chars */
+		EXPONENTIAL
+	}
+
+	/**
+	 * Returns the regex having the greedy quantifiers that never have to give back
+	 * chars replaced by possessive ones, e.g. <code>\d+-\d+$</code> gets
+	 * <code>\d++-\d++$</code>: A quantified char class followed by chars it can't
+	 * match gives back chars without a chance to match. Regexes that can't be
+	 * analysed are returned unchanged.
+	 */
+	static String hardened(String regex, int flags) {
+		Node node = analysable(regex, flags);
+		if (node == null) {
+			return regex;
+		}
+		Map<RepetitionNode, CharSet> follows = follows(node);
+		TreeSet<Integer> positions = new TreeSet<>();
+		for (RepetitionNode repetition : follows.keySet()) {
+			if (repetition.greedyEnd >= 0 && repetition.min != repetition.max && repetition.node instanceof CharNode
+					&& !givesBack(repetition, follows)) {
+				positions.add(repetition.greedyEnd);
+			}
+		}
+		StringBuilder hardened = new StringBuilder(regex);
+		for (int position : positions.descendingSet()) {
+			hardened.insert(position, '+');
+		}
+		return hardened.toString();
+	}
+
+	/**
+	 * Returns the worst backtracking found in the regex or <code>null</code> if
+	 * there is none or the regex can't be analysed. This is a heuristic looking
+	 * for quantifiers that can split the same chars in several ways.
+	 */
+	static Backtracking backtracking(String regex, int flags) {
+		Node node = analysable(regex, flags);
+		return node == null ? null : backtracking(node, follows(node));
+	}
+
+	private static Node analysable(String regex, int flags) {
+		if ((flags & ~LENGTH_PRESERVING_FLAGS) != 0) {
+			return null;
+		}
+		try {
+			return new Parser(regex, (flags & CASE_INSENSITIVE) != 0, true).parse();
+		} catch (Unsupported e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the chars the input might continue with where the node starts to
+	 * match (the end of the input excluded). Zero-width nodes add the chars they
+	 * might hold in front of.
+	 */
+	private static CharSet first(Node node) {
+		if (node instanceof CharNode) {
+			return ((CharNode) node).chars;
+		} else if (node == END_ANCHOR) {
+			return LINE_TERMINATORS;
+		} else if (node == ZERO_WIDTH) {
+			// lookarounds, word boundaries, ...
+			return CharSet.range(0, MAX_CHAR);
+		} else if (node instanceof SequenceNode) {
+			return first(((SequenceNode) node).nodes, CharSet.EMPTY);
+		} else if (node instanceof AlternationNode) {
+			return ((AlternationNode) node).alternatives.stream().map(RegexCompiler::first).reduce(CharSet.EMPTY,
+					CharSet::union);
+		}
+		RepetitionNode repetition = (RepetitionNode) node;
+		return repetition.max == 0 ? CharSet.EMPTY : first(repetition.node);
+	}
+
+	private static CharSet first(List<Node> nodes, CharSet follow) {
+		CharSet result = CharSet.EMPTY;
+		for (Node node : nodes) {
+			result = result.union(first(node));
+			if (node.minLength() > 0) {
+				return result;
+			}
+		}
+		return result.union(follow);
+	}
+
+	/**
+	 * Returns the chars that might follow each repetition.
+	 */
+	private static Map<RepetitionNode, CharSet> follows(Node node) {
+		Map<RepetitionNode, CharSet> follows = new IdentityHashMap<>();
+		follows(node, CharSet.EMPTY, follows);
+		return follows;
+	}
+
+	private static void follows(Node node, CharSet follow, Map<RepetitionNode, CharSet> follows) {
+		if (node instanceof SequenceNode) {
+			List<Node> nodes = ((SequenceNode) node).nodes;
+			for (int i = nodes.size() - 1; i >= 0; i--) {
+				follows(nodes.get(i), follow, follows);
+				follow = first(nodes.subList(i, i + 1), follow);
+			}
+		} else if (node instanceof AlternationNode) {
+			for (Node alternative : ((AlternationNode) node).alternatives) {
+				follows(alternative, follow, follows);
+			}
+		} else if (node instanceof RepetitionNode && node != BACKREFERENCE) {
+			RepetitionNode repetition = (RepetitionNode) node;
+			follows.put(repetition, follow);
+			// the repetition's node might be followed by itself
+			follows(repetition.node, repetition.max == 1 ? follow : first(repetition.node).union(follow), follows);
+		}
+	}
+
+	private static boolean givesBack(RepetitionNode repetition, Map<RepetitionNode, CharSet> follows) {
+		return !repetition.possessive && repetition.min != repetition.max
+				&& first(repetition.node).intersects(follows.get(repetition));
+	}
+
+	private static Backtracking backtracking(Node node, Map<RepetitionNode, CharSet> follows) {
+		if (node instanceof RepetitionNode && node != BACKREFERENCE) {
+			RepetitionNode repetition = (RepetitionNode) node;
+			return !repetition.possessive && repetition.max < 0 && ambiguous(repetition.node, follows) //
+					? Backtracking.EXPONENTIAL //
+					: backtracking(repetition.node, follows);
+		}
+		List<Node> nodes = node instanceof SequenceNode ? ((SequenceNode) node).nodes
+				: node instanceof AlternationNode ? ((AlternationNode) node).alternatives : List.of();
+		Backtracking worst = null;
+		for (Node child : nodes) {
+			Backtracking backtracking = backtracking(child, follows);
+			if (worst == null || (backtracking != null && backtracking.compareTo(worst) > 0)) {
+				worst = backtracking;
+			}
+		}
+		return worst == null && node instanceof SequenceNode && adjacentRepetitions(flatten(nodes), follows) //
+				? Backtracking.POLYNOMIAL //
+				: worst;
+	}
+
+	/**
+	 * Returns if the node contains quantifiers giving back chars or alternatives
+	 * starting with the same chars, so repeating the node can split an input in
+	 * several ways.
+	 */
+	private static boolean ambiguous(Node node, Map<RepetitionNode, CharSet> follows) {
+		if (node instanceof RepetitionNode && node != BACKREFERENCE) {
+			RepetitionNode repetition = (RepetitionNode) node;
+			return !repetition.possessive && (givesBack(repetition, follows) || ambiguous(repetition.node, follows));
+		} else if (node instanceof SequenceNode) {
+			return ((SequenceNode) node).nodes.stream().anyMatch(n -> ambiguous(n, follows));
+		} else if (node instanceof AlternationNode) {
+			List<Node> alternatives = ((AlternationNode) node).alternatives;
+			for (int i = 0; i < alternatives.size(); i++) {
+				if (ambiguous(alternatives.get(i), follows)) {
+					return true;
+				}
+				for (int j = i + 1; j < alternatives.size(); j++) {
+					if (first(alternatives.get(i)).intersects(first(alternatives.get(j)))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if a quantified char class giving back chars is followed by another
+	 * one matching the same chars with nothing in between that has to match other
+	 * chars, e.g. <code>\d+\.?\d+</code>.
+	 */
+	private static boolean adjacentRepetitions(List<Node> nodes, Map<RepetitionNode, CharSet> follows) {
+		for (int i = 0; i < nodes.size(); i++) {
+			if (unboundedCharRepetition(nodes.get(i)) && givesBack((RepetitionNode) nodes.get(i), follows)) {
+				CharSet chars = first(nodes.get(i));
+				for (int j = i + 1; j < nodes.size(); j++) {
+					Node next = nodes.get(j);
+					if (unboundedCharRepetition(next) && chars.intersects(first(next))) {
+						return true;
+					} else if (next.minLength() > 0 && !(next instanceof CharNode && chars.intersects(first(next)))) {
+						break;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean unboundedCharRepetition(Node node) {
+		return node instanceof RepetitionNode && node != BACKREFERENCE && ((RepetitionNode) node).max < 0
+				&& ((RepetitionNode) node).node instanceof CharNode;
+	}
+
+	/**
+	 * Groups without alternatives are sequences within the sequence.
+	 */
+	private static List<Node> flatten(List<Node> nodes) {
+		List<Node> result = new ArrayList<>();
+		for (Node node : nodes) {
+			if (node instanceof SequenceNode && !((SequenceNode) node).nodes.isEmpty()) {
+				result.addAll(flatten(((SequenceNode) node).nodes));
+			} else {
+				result.add(node);
+			}
+		}
+		return result;
+	}
+
+	private static final class Unsupported extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private Unsupported() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	// -- character sets ------------------------------------------------------
+
+	/**
+	 * Immutable set of chars stored as sorted, disjoint and non-adjacent ranges.
+	 */
+	private static final class CharSet {
+
+		private static final CharSet EMPTY = new CharSet(new int[0]);
+
+		private final int[] ranges;
+
+		private CharSet(int[] ranges) {
+			this.ranges = ranges;
+		}
+
+		static CharSet of(char c) {
+			return range(c, c);
+		}
+
+		static CharSet range(int from, int to) {
+			return new CharSet(new int[] { from, to });
+		}
+
+		int size() {
+			int size = 0;
+			for (int i = 0; i < ranges.length; i += 2) {
+				size += ranges[i + 1] - ranges[i] + 1;
+			}
+			return size;
+		}
+
+		boolean contains(int c) {
+			for (int i = 0; i < ranges.length; i += 2) {
+				if (c >= ranges[i] && c <= ranges[i + 1]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean containsAll(CharSet other) {
+			return !other.intersects(complement());
+		}
+
+		boolean intersects(CharSet other) {
+			for (int i = 0; i < ranges.length; i += 2) {
+				for (int j = 0; j < other.ranges.length; j += 2) {
+					if (ranges[i] <= other.ranges[j + 1] && other.ranges[j] <= ranges[i + 1]) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		CharSet union(CharSet other) {
+			int[] all = Arrays.copyOf(ranges, ranges.length + other.ranges.length);
+			System.arraycopy(other.ranges, 0, all, ranges.length, other.ranges.length);
+			Integer[] order = new Integer[all.length / 2];
+			Arrays.setAll(order, i -> i * 2);
+			Arrays.sort(order, (i1, i2) -> Integer.compare(all[i1], all[i2]));
+			List<Integer> merged = new ArrayList<>();
+			for (int i : order) {
+				int last = merged.size() - 1;
+				if (last > 0 && all[i] <= merged.get(last) + 1) {
+					merged.set(last, Math.max(merged.get(last), all[i + 1]));
+				} else {
+					merged.add(all[i]);
+					merged.add(all[i + 1]);
+				}
+			}
+			return new CharSet(merged.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		CharSet complement() {
+			List<Integer> result = new ArrayList<>();
+			int next = 0;
+			for (int i = 0; i < ranges.length; i += 2) {
+				if (ranges[i] > next) {
+					result.add(next);
+					result.add(ranges[i] - 1);
+				}
+				next = ranges[i + 1] + 1;
+			}
+			if (next <= MAX_CHAR) {
+				result.add(next);
+				result.add(MAX_CHAR);
+			}
+			return new CharSet(result.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		/**
+		 * Case insensitive (without UNICODE_CASE) only affects US-ASCII letters.
+		 */
+		CharSet caseInsensitive() {
+			CharSet result = this;
+			for (char c = 'a'; c <= 'z'; c++) {
+				char upper = Character.toUpperCase(c);
+				if (contains(c) || contains(upper)) {
+					result = result.union(of(c)).union(of(upper));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CharSet && Arrays.equals(ranges, ((CharSet) obj).ranges);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(ranges);
+		}
+
+	}
+
+	// -- parser --------------------------------------------------------------
+
+	private abstract static class Node {
+
+		/**
+		 * Adds the states of this node to the NFA starting at the passed state and
+		 * returns the state reached after this node matched.
+		 */
+		abstract int build(Nfa nfa, int start);
+
+		/**
+		 * Returns the strings matched by this node or <code>null</code> if these are
+		 * more than {@value #MAX_LITERALS}.
+		 */
+		abstract Set<String> literals();
+
+		abstract int minLength();
+
+		/**
+		 * Returns the maximum number of chars matched or <code>-1</code> if unbounded.
+		 */
+		abstract int maxLength();
+
+	}
+
+	private static Set<String> concat(Set<String> prefixes, Set<String> suffixes) {
+		if (prefixes == null || suffixes == null || (long) prefixes.size() * suffixes.size() > MAX_LITERALS) {
+			return null;
+		}
+		Set<String> result = new TreeSet<>();
+		for (String prefix : prefixes) {
+			for (String suffix : suffixes) {
+				result.add(prefix + suffix);
+			}
+		}
+		return result;
+	}
+
+	private static final class CharNode extends Node {
+
+		private final CharSet chars;
+
+		private CharNode(CharSet chars) {
+			this.chars = chars;
+		}
+
+		@Override
+		int build(Nfa nfa, int start) {
+			int end = nfa.newState();
+			nfa.addTransition(start, chars, end);
+			return end;
+		}
+
+		@Override
+		Set<String> literals() {
+			if (chars.size() > MAX_LITERALS || chars.intersects(SURROGATES)) {
+				return null;
+			}
+			Set<String> result = new TreeSet<>();
+			for (int i = 0; i < chars.ranges.length; i += 2) {
+				for (int c = chars.ranges[i]; c <= chars.ranges[i + 1]; c++) {
+					result.add(String.valueOf((char) c));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		int minLength() {
+			return 1;
+		}
+
+		@Override
+		int maxLength() {
+			// supplementary code points are matched as a whole
+			return chars.intersects(SURROGATES) ? 2 : 1;
+		}
+
+	}
+
+	private static final class SequenceNode extends Node {
+
+		private final List<Node> nodes;
+
+		private SequenceNode(List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		int build(Nfa nfa, int start) {
+			int state = start;
+			for (Node node : nodes) {
+				state = node.build(nfa, state);
+			}
+			return state;
+		}
+
+		@Override
+		Set<String> literals() {
+			Set<String> result = Set.of("");
+			for (Node node : nodes) {
+				result = concat(result, node.literals());
+			}
+			return result;
+		}
+
+		@Override
+		int minLength() {
+			return saturate(nodes.stream().mapToLong(Node::minLength).sum());
+		}
+
+		@Override
+		int maxLength() {
+			long sum = 0;
+			for (Node node : nodes) {
+				if (node.maxLength() < 0) {
+					return -1;
+				}
+				sum += node.maxLength();
+			}
+			return bounded(sum);
+		}
+
+	}
+
+	private static final class AlternationNode extends Node {
+
+		private final List<Node> alternatives;
+
+		private AlternationNode(List<Node> alternatives) {
+			this.alternatives = alternatives;
+		}
+
+		@Override
+		int build(Nfa nfa, int start) {
+			int end = nfa.newState();
+			for (Node alternative : alternatives) {
+				int alternativeStart = nfa.newState();
+				nfa.addEpsilon(start, alternativeStart);
+				nfa.addEpsilon(alternative.build(nfa, alternativeStart), end);
+			}
+			return end;
+		}
+
+		@Override
+		Set<String> literals() {
+			Set<String> result = new TreeSet<>();
+			for (Node alternative : alternatives) {
+				Set<String> literals = alternative.literals();
+				if (literals == null) {
+					return null;
+				}
+				result.addAll(literals);
+			}
+			return result.size() > MAX_LITERALS ? null : result;
+		}
+
+		@Override
+		int minLength() {
+			return alternatives.stream().mapToInt(Node::minLength).min().orElse(0);
+		}
+
+		@Override
+		int maxLength() {
+			int max = 0;
+			for (Node alternative : alternatives) {
+				if (alternative.maxLength() < 0) {
+					return -1;
+				}
+				max = Math.max(max, alternative.maxLength());
+			}
+			return max;
+		}
+
+	}
+
+	private static final class RepetitionNode extends Node {
+
+		private final Node node;
+		private final int min;
+		private final int max;
+		private final boolean possessive;
+		/**
+		 * position in the regex following the quantifier if it is greedy,
+		 * <code>-1</code> otherwise
+		 */
+		private final int greedyEnd;
+
+		private RepetitionNode(Node node, int min, int max) {
+			this(node, min, max, false, -1);
+		}
+
+		private RepetitionNode(Node node, int min, int max, boolean possessive, int greedyEnd) {
+			this.node = node;
+			this.min = min;
+			this.max = max;
+			this.possessive = possessive;
+			this.greedyEnd = greedyEnd;
+		}
+
+		@Override
+		int build(Nfa nfa, int start) {
+			int state = start;
+			for (int i = 0; i < min; i++) {
+				state = node.build(nfa, state);
+			}
+			if (max < 0) {
+				int loopStart = nfa.newState();
+				nfa.addEpsilon(state, loopStart);
+				nfa.addEpsilon(node.build(nfa, loopStart), loopStart);
+				return loopStart;
+			}
+			int end = nfa.newState();
+			nfa.addEpsilon(state, end);
+			for (int i = min; i < max; i++) {
+				state = node.build(nfa, state);
+				nfa.addEpsilon(state, end);
+			}
+			return end;
+		}
+
+		@Override
+		Set<String> literals() {
+			Set<String> literals = node.literals();
+			if (literals == null || max < 0 || max > MAX_LITERALS) {
+				return null;
+			}
+			Set<String> result = new TreeSet<>();
+			Set<String> repeated = Set.of("");
+			for (int i = 0; i <= max; i++) {
+				if (i >= min) {
+					result.addAll(repeated);
+				}
+				if (i < max) {
+					repeated = concat(repeated, literals);
+					if (repeated == null) {
+						return null;
+					}
+				}
+			}
+			return result.size() > MAX_LITERALS ? null : result;
+		}
+
+		@Override
+		int minLength() {
+			return saturate((long) min * node.minLength());
+		}
+
+		@Override
+		int maxLength() {
+			if (node.maxLength() == 0 || max == 0) {
+				return 0;
+			}
+			return max < 0 || node.maxLength() < 0 ? -1 : bounded((long) max * node.maxLength());
+		}
+
+	}
+
+	private static final Node ZERO_WIDTH = new SequenceNode(List.of());
+	/** <code>$</code> and <code>\Z</code>, only hold at the end or before line terminators */
+	private static final Node END_ANCHOR = new SequenceNode(List.of());
+	/** <code>\z</code> */
+	private static final Node INPUT_END = new SequenceNode(List.of());
+	/** backreferences can match anything captured before */
+	private static final Node BACKREFERENCE = new RepetitionNode(new CharNode(CharSet.range(0, MAX_CHAR)), 0, -1);
+
+	private static int saturate(long length) {
+		return (int) Math.min(length, Integer.MAX_VALUE);
+	}
+
+	private static int bounded(long length) {
+		return length > Integer.MAX_VALUE ? -1 : (int) length;
+	}
+
+	private static final class Parser {
+
+		private final String regex;
+		private final boolean caseInsensitive;
+		/**
+		 * The resulting node is only used for its lengths, so zero-width constructs and
+		 * possessive quantifiers are supported.
+		 */
+		private final boolean lengthsOnly;
+		private int pos;
+
+		private Parser(String regex, boolean caseInsensitive, boolean lengthsOnly) {
+			this.regex = regex;
+			this.caseInsensitive = caseInsensitive;
+			this.lengthsOnly = lengthsOnly;
+		}
+
+		Node parse() {
+			// matches() has to match the whole input, so anchors at the very start/end are
+			// no-ops, anywhere else they are not supported
+			if (!lengthsOnly && regex.startsWith("^")) {
+				pos++;
+			}
+			Node node = alternation();
+			if (pos < regex.length()) {
+				if (regex.charAt(pos) != '$' || pos != regex.length() - 1) {
+					throw new Unsupported();
+				}
+				pos++;
+			}
+			return node;
+		}
+
+		private Node alternation() {
+			List<Node> alternatives = new ArrayList<>();
+			alternatives.add(sequence());
+			while (peek('|')) {
+				pos++;
+				alternatives.add(sequence());
+			}
+			return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+		}
+
+		private Node sequence() {
+			List<Node> nodes = new ArrayList<>();
+			while (pos < regex.length() && !peek('|') && !peek(')') && (lengthsOnly || !peek('$'))) {
+				nodes.add(quantified(atom()));
+			}
+			return new SequenceNode(nodes);
+		}
+
+		private Node quantified(Node atom) {
+			if (pos >= regex.length()) {
+				return atom;
+			}
+			int min;
+			int max;
+			char c = regex.charAt(pos);
+			if (c == '*') {
+				min = 0;
+				max = -1;
+				pos++;
+			} else if (c == '+') {
+				min = 1;
+				max = -1;
+				pos++;
+			} else if (c == '?') {
+				min = 0;
+				max = 1;
+				pos++;
+			} else if (c == '{') {
+				int close = regex.indexOf('}', pos);
+				String[] bounds = regex.substring(pos + 1, close).split(",", -1);
+				min = Integer.parseInt(bounds[0].trim());
+				max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+				pos = close + 1;
+			} else {
+				return atom;
+			}
+			boolean possessive = peek('+');
+			int greedyEnd = -1;
+			if (possessive) {
+				// possessive quantifiers do not backtrack, so they change the language (but
+				// can't match more or less chars than the greedy ones)
+				if (!lengthsOnly) {
+					throw new Unsupported();
+				}
+				pos++;
+			} else if (peek('?')) {
+				// lazy quantifiers match the same inputs when the whole input has to match
+				pos++;
+			} else {
+				greedyEnd = pos;
+			}
+			if (peek('*') || peek('+') || peek('?') || peek('{')) {
+				throw new Unsupported();
+			}
+			return new RepetitionNode(atom, min, max, possessive, greedyEnd);
+		}
+
+		private Node atom() {
+			char c = regex.charAt(pos++);
+			switch (c) {
+			case '(':
+				if (peek('?')) {
+					pos++;
+					if (peek(':')) {
+						pos++;
+					} else if (peek('<') && pos + 1 < regex.length() && Character.isLetter(regex.charAt(pos + 1))) {
+						// named group
+						pos = regex.indexOf('>', pos) + 1;
+					} else if (lengthsOnly && peek('>')) {
+						// atomic groups are the same as a possessive {1}
+						pos++;
+						Node group = alternation();
+						expect(')');
+						return new RepetitionNode(group, 1, 1, true, -1);
+					} else if (lengthsOnly && (peek('=') || peek('!') || regex.startsWith("<=", pos)
+							|| regex.startsWith("<!", pos))) {
+						pos += peek('<') ? 2 : 1;
+						alternation();
+						expect(')');
+						return ZERO_WIDTH;
+					} else {
+						// lookarounds, atomic groups and inline flags
+						throw new Unsupported();
+					}
+				}
+				Node group = alternation();
+				expect(')');
+				return group;
+			case '[':
+				return new CharNode(charClass());
+			case '.':
+				// when calculating the lengths DOTALL or UNIX_LINES might be set
+				return new CharNode(lengthsOnly ? CharSet.range(0, MAX_CHAR) : LINE_TERMINATORS.complement());
+			case '\\':
+				if (lengthsOnly) {
+					Node node = lengthsOnlyEscape();
+					if (node != null) {
+						return node;
+					}
+				}
+				// folding the predefined classes is a no-op
+				return new CharNode(caseInsensitive(escape()));
+			case '^':
+			case '$':
+				if (lengthsOnly) {
+					return c == '$' ? END_ANCHOR : ZERO_WIDTH;
+				}
+				throw new Unsupported();
+			case ')':
+			case '|':
+			case '*':
+			case '+':
+			case '?':
+			case '{':
+				throw new Unsupported();
+			default:
+				return new CharNode(caseInsensitive(literal(c)));
+			}
+		}
+
+		/**
+		 * Returns the node for escapes which are only supported when calculating the
+		 * lengths or <code>null</code>.
+		 */
+		private Node lengthsOnlyEscape() {
+			char c = regex.charAt(pos);
+			if ("bBAGzZ".indexOf(c) >= 0) {
+				pos++;
+				return c == 'Z' ? END_ANCHOR : c == 'z' ? INPUT_END : ZERO_WIDTH;
+			} else if (c == 'p' || c == 'P') {
+				// unicode classes match one code point
+				pos = peekAt(pos + 1, '{') ? regex.indexOf('}', pos) + 1 : pos + 2;
+				return new CharNode(CharSet.range(0, MAX_CHAR));
+			} else if (c >= '1' && c <= '9') {
+				while (peekAt(pos, '0', '9')) {
+					pos++;
+				}
+				return BACKREFERENCE;
+			}
+			return null;
+		}
+
+		private boolean peekAt(int index, char c) {
+			return peekAt(index, c, c);
+		}
+
+		private boolean peekAt(int index, char from, char to) {
+			return index < regex.length() && regex.charAt(index) >= from && regex.charAt(index) <= to;
+		}
+
+		private CharSet charClass() {
+			boolean negated = peek('^');
+			if (negated) {
+				pos++;
+			}
+			if (peek(']')) {
+				throw new Unsupported();
+			}
+			CharSet result = CharSet.EMPTY;
+			while (!peek(']')) {
+				if (peek('[') || regex.startsWith("&&", pos)) {
+					// nested classes, unions and intersections
+					throw new Unsupported();
+				}
+				CharSet element = classElement();
+				if (peek('-') && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+					pos++;
+					element = CharSet.range(single(element), single(classElement()));
+				}
+				result = result.union(element);
+			}
+			pos++;
+			// the elements have to be case folded before the class gets negated
+			result = caseInsensitive(result);
+			return negated ? result.complement() : result;
+		}
+
+		private CharSet classElement() {
+			char c = regex.charAt(pos++);
+			return c == '\\' ? escape() : literal(c);
+		}
+
+		private int single(CharSet chars) {
+			if (chars.ranges.length != 2 || chars.ranges[0] != chars.ranges[1]) {
+				throw new Unsupported();
+			}
+			return chars.ranges[0];
+		}
+
+		private CharSet caseInsensitive(CharSet chars) {
+			return caseInsensitive ? chars.caseInsensitive() : chars;
+		}
+
+		private CharSet literal(char c) {
+			if (Character.isSurrogate(c) && !lengthsOnly) {
+				throw new Unsupported();
+			}
+			return CharSet.of(c);
+		}
+
+		private CharSet escape() {
+			char c = regex.charAt(pos++);
+			switch (c) {
+			case 'd':
+				return DIGITS;
+			case 'D':
+				return DIGITS.complement();
+			case 'w':
+				return WORD_CHARS;
+			case 'W':
+				return WORD_CHARS.complement();
+			case 's':
+				return WHITESPACES;
+			case 'S':
+				return WHITESPACES.complement();
+			case 't':
+				return CharSet.of('\t');
+			case 'n':
+				return CharSet.of('\n');
+			case 'r':
+				return CharSet.of('\r');
+			case 'f':
+				return CharSet.of('\f');
+			case 'a':
+				return CharSet.of('\u0007');
+			case 'e':
+				return CharSet.of('\u001B');
+			case 'x':
+				return hex(2);
+			case 'u':
+				return hex(4);
+			default:
+				if (Character.isLetterOrDigit(c)) {
+					// backreferences, boundaries, unicode classes, quotations, ...
+					throw new Unsupported();
+				}
+				return literal(c);
+			}
+		}
+
+		private CharSet hex(int digits) {
+			if (pos + digits > regex.length() || peek('{')) {
+				throw new Unsupported();
+			}
+			char c;
+			try {
+				c = (char) Integer.parseInt(regex.substring(pos, pos + digits), 16);
+			} catch (NumberFormatException e) {
+				throw new Unsupported();
+			}
+			pos += digits;
+			return literal(c);
+		}
+
+		private boolean peek(char c) {
+			return pos < regex.length() && regex.charAt(pos) == c;
+		}
+
+		private void expect(char c) {
+			if (!peek(c)) {
+				throw new Unsupported();
+			}
+			pos++;
+		}
+
+	}
+
+	// -- automatons ----------------------------------------------------------
+
+	private static final class Nfa {
+
+		private final List<List<Integer>> epsilons = new ArrayList<>();
+		private final List<List<CharSet>> transitionChars = new ArrayList<>();
+		private final List<List<Integer>> transitionTargets = new ArrayList<>();
+		private int accepting;
+
+		int newState() {
+			if (epsilons.size() >= MAX_NFA_STATES) {
+				throw new Unsupported();
+			}
+			epsilons.add(new ArrayList<>());
+			transitionChars.add(new ArrayList<>());
+			transitionTargets.add(new ArrayList<>());
+			return epsilons.size() - 1;
+		}
+
+		void addEpsilon(int from, int to) {
+			epsilons.get(from).add(to);
+		}
+
+		void addTransition(int from, CharSet chars, int to) {
+			transitionChars.get(from).add(chars);
+			transitionTargets.get(from).add(to);
+		}
+
+		BitSet closure(BitSet states) {
+			BitSet result = (BitSet) states.clone();
+			Deque<Integer> todo = new ArrayDeque<>();
+			states.stream().forEach(todo::push);
+			while (!todo.isEmpty()) {
+				for (int next : epsilons.get(todo.pop())) {
+					if (!result.get(next)) {
+						result.set(next);
+						todo.push(next);
+					}
+				}
+			}
+			return result;
+		}
+
+		BitSet move(BitSet states, int c) {
+			BitSet result = new BitSet();
+			states.stream().forEach(s -> {
+				for (int i = 0; i < transitionChars.get(s).size(); i++) {
+					if (transitionChars.get(s).get(i).contains(c)) {
+						result.set(transitionTargets.get(s).get(i));
+					}
+				}
+			});
+			return closure(result);
+		}
+
+		/**
+		 * The boundaries of the intervals of chars that all states treat the same.
+		 */
+		int[] intervalStarts() {
+			TreeSet<Integer> starts = new TreeSet<>(List.of(0));
+			for (List<CharSet> sets : transitionChars) {
+				for (CharSet set : sets) {
+					for (int i = 0; i < set.ranges.length; i += 2) {
+						starts.add(set.ranges[i]);
+						if (set.ranges[i + 1] < MAX_CHAR) {
+							starts.add(set.ranges[i + 1] + 1);
+						}
+					}
+				}
+			}
+			return starts.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		boolean consumes(CharSet chars) {
+			return transitionChars.stream().flatMap(List::stream).anyMatch(s -> s.intersects(chars));
+		}
+
+	}
+
+	/**
+	 * Minimal DFA, the start state is 0, transitions to -1 reject the input.
+	 */
+	static final class Dfa extends CompiledRegex {
+
+		private final int[] intervalStarts;
+		private final int[][] next;
+		private final boolean[] accepting;
+		private final boolean consumesSurrogates;
+
+		private Dfa(int[] intervalStarts, int[][] next, boolean[] accepting, boolean consumesSurrogates,
+				int minLength, int maxLength) {
+			super(minLength, maxLength);
+			this.intervalStarts = intervalStarts;
+			this.next = next;
+			this.accepting = accepting;
+			this.consumesSurrogates = consumesSurrogates;
+		}
+
+		private static Dfa of(Nfa nfa, int minLength, int maxLength) {
+			int[] intervalStarts = nfa.intervalStarts();
+			BitSet start = new BitSet();
+			start.set(0);
+			List<BitSet> states = new ArrayList<>(List.of(nfa.closure(start)));
+			Map<BitSet, Integer> stateIds = new HashMap<>(Map.of(states.get(0), 0));
+			List<int[]> transitions = new ArrayList<>();
+			for (int s = 0; s < states.size(); s++) {
+				int[] targets = new int[intervalStarts.length];
+				for (int i = 0; i < intervalStarts.length; i++) {
+					BitSet target = nfa.move(states.get(s), intervalStarts[i]);
+					if (target.isEmpty()) {
+						targets[i] = -1;
+					} else {
+						Integer id = stateIds.get(target);
+						if (id == null) {
+							if (states.size() >= MAX_DFA_STATES) {
+								throw new Unsupported();
+							}
+							id = states.size();
+							states.add(target);
+							stateIds.put(target, id);
+						}
+						targets[i] = id;
+					}
+				}
+				transitions.add(targets);
+			}
+			boolean[] accepting = new boolean[states.size()];
+			for (int s = 0; s < states.size(); s++) {
+				accepting[s] = states.get(s).get(nfa.accepting);
+			}
+			return minimize(intervalStarts, transitions.toArray(int[][]::new), accepting,
+					nfa.consumes(SURROGATES), minLength, maxLength);
+		}
+
+		/**
+		 * Moore's partition refinement, states that can't reach an accepting state
+		 * get removed.
+		 */
+		private static Dfa minimize(int[] intervalStarts, int[][] next, boolean[] accepting,
+				boolean consumesSurrogates, int minLength, int maxLength) {
+			boolean[] live = live(next, accepting);
+			int[] block = new int[next.length];
+			for (int s = 0; s < next.length; s++) {
+				block[s] = !live[s] ? -1 : accepting[s] ? 1 : 0;
+			}
+			for (int blocks = -1;;) {
+				Map<List<Integer>, Integer> signatures = new HashMap<>();
+				int[] refined = new int[next.length];
+				for (int s = 0; s < next.length; s++) {
+					if (!live[s]) {
+						refined[s] = -1;
+						continue;
+					}
+					List<Integer> signature = new ArrayList<>();
+					signature.add(block[s]);
+					for (int target : next[s]) {
+						signature.add(target < 0 ? -1 : block[target]);
+					}
+					// ids in the order of the states so the start state stays 0
+					refined[s] = signatures.computeIfAbsent(signature, k -> signatures.size());
+				}
+				block = refined;
+				if (signatures.size() == blocks) {
+					break;
+				}
+				blocks = signatures.size();
+			}
+			if (!live[0]) {
+				// matches nothing
+				return new Dfa(new int[] { 0 }, new int[][] { { -1 } }, new boolean[1], false, minLength, maxLength);
+			}
+			int size = Arrays.stream(block).max().getAsInt() + 1;
+			int[][] minimalNext = new int[size][];
+			boolean[] minimalAccepting = new boolean[size];
+			for (int s = 0; s < next.length; s++) {
+				if (block[s] >= 0 && minimalNext[block[s]] == null) {
+					int[] targets = new int[intervalStarts.length];
+					for (int i = 0; i < targets.length; i++) {
+						targets[i] = next[s][i] < 0 ? -1 : block[next[s][i]];
+					}
+					minimalNext[block[s]] = targets;
+					minimalAccepting[block[s]] = accepting[s];
+				}
+			}
+			return new Dfa(intervalStarts, minimalNext, minimalAccepting, consumesSurrogates, minLength, maxLength);
+		}
+
+		private static boolean[] live(int[][] next, boolean[] accepting) {
+			boolean[] live = accepting.clone();
+			for (boolean changed = true; changed;) {
+				changed = false;
+				for (int s = 0; s < next.length; s++) {
+					for (int target : next[s]) {
+						if (!live[s] && target >= 0 && live[target]) {
+							live[s] = changed = true;
+						}
+					}
+				}
+			}
+			return live;
+		}
+
+		int states() {
+			return next.length;
+		}
+
+		@Override
+		void writeMatches(MethodVisitor mv, Consumer<MethodVisitor> patternMatches, Label reject) {
+			int input = CompiledRegex.INPUT;
+			int length = CompiledRegex.LENGTH;
+			int index = 2;
+			int c = 3;
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, index);
+
+			Label[] stateLabels = new Label[next.length];
+			Arrays.setAll(stateLabels, i -> new Label());
+			Label fallback = new Label();
+			for (int s = 0; s < next.length; s++) {
+				mv.visitLabel(stateLabels[s]);
+				Label read = new Label();
+				mv.visitVarInsn(ILOAD, index);
+				mv.visitVarInsn(ILOAD, length);
+				mv.visitJumpInsn(IF_ICMPLT, read);
+				mv.visitInsn(accepting[s] ? ICONST_1 : ICONST_0);
+				mv.visitInsn(IRETURN);
+
+				mv.visitLabel(read);
+				mv.visitVarInsn(ALOAD, input);
+				mv.visitVarInsn(ILOAD, index);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/CharSequence", "charAt", "(I)C", true);
+				mv.visitVarInsn(ISTORE, c);
+				mv.visitIincInsn(index, 1);
+				if (consumesSurrogates) {
+					writeRangeCheck(mv, c, Character.MIN_SURROGATE, Character.MAX_SURROGATE, fallback);
+				}
+				writeTransitions(mv, s, c, stateLabels, reject);
+			}
+			if (consumesSurrogates) {
+				// java.util.regex matches code points, not chars
+				mv.visitLabel(fallback);
+				patternMatches.accept(mv);
+			}
+		}
+
+		private void writeTransitions(MethodVisitor mv, int state, int c, Label[] stateLabels, Label reject) {
+			int[] targets = next[state];
+			// the intervals are sorted, so if c is below the current interval it can't
+			// match any of the following
+			for (int i = 0; i < targets.length; i++) {
+				int from = intervalStarts[i];
+				int to = i + 1 < intervalStarts.length ? intervalStarts[i + 1] - 1 : MAX_CHAR;
+				// merge adjacent intervals with the same target
+				while (i + 1 < targets.length && targets[i + 1] == targets[i]) {
+					i++;
+					to = i + 1 < intervalStarts.length ? intervalStarts[i + 1] - 1 : MAX_CHAR;
+				}
+				if (targets[i] < 0) {
+					continue;
+				}
+				Label target = stateLabels[targets[i]];
+				if (from == to) {
+					mv.visitVarInsn(ILOAD, c);
+					pushInt(mv, from);
+					mv.visitJumpInsn(IF_ICMPEQ, target);
+				} else {
+					if (from > 0) {
+						mv.visitVarInsn(ILOAD, c);
+						pushInt(mv, from);
+						mv.visitJumpInsn(IF_ICMPLT, reject);
+					}
+					if (to == MAX_CHAR) {
+						mv.visitJumpInsn(GOTO, target);
+						return;
+					}
+					mv.visitVarInsn(ILOAD, c);
+					pushInt(mv, to);
+					mv.visitJumpInsn(IF_ICMPLE, target);
+				}
+			}
+			mv.visitJumpInsn(GOTO, reject);
+		}
+
+		private static void writeRangeCheck(MethodVisitor mv, int c, int from, int to, Label target) {
+			Label outside = new Label();
+			mv.visitVarInsn(ILOAD, c);
+			pushInt(mv, from);
+			mv.visitJumpInsn(IF_ICMPLT, outside);
+			mv.visitVarInsn(ILOAD, c);
+			pushInt(mv, to);
+			mv.visitJumpInsn(IF_ICMPLE, target);
+			mv.visitLabel(outside);
+		}
+
+	}
+
+	/**
+	 * Finite set of strings, matched by comparing the length, switching over the
+	 * hash of the input and comparing the chars of the literals having that hash.
+	 * If case insensitive the literals are stored lower case and the (US-ASCII)
+	 * chars of the input get lowered while comparing.
+	 */
+	static final class LiteralSet extends CompiledRegex {
+
+		private final Map<Integer, List<String>> byHash = new TreeMap<>();
+		private final boolean caseInsensitive;
+		private final boolean sameLength;
+
+		private LiteralSet(Set<String> literals, boolean caseInsensitive) {
+			this(literals, caseInsensitive, literals.stream().mapToInt(String::length).summaryStatistics());
+		}
+
+		private LiteralSet(Set<String> literals, boolean caseInsensitive, IntSummaryStatistics lengths) {
+			super(lengths.getMin(), lengths.getMax());
+			this.caseInsensitive = caseInsensitive;
+			this.sameLength = lengths.getMin() == lengths.getMax();
+			literals.stream().map(l -> caseInsensitive ? toLowerAscii(l) : l).distinct()
+					.forEach(l -> byHash.computeIfAbsent(l.hashCode(), h -> new ArrayList<>()).add(l));
+		}
+
+		/**
+		 * Returns the estimated number of bytes of the code matching the passed
+		 * literals: a switch entry, length check and return per literal and the
+		 * comparison (including the lowering if case insensitive) per char.
+		 */
+		static long codeSize(Set<String> literals, boolean caseInsensitive) {
+			int perChar = caseInsensitive ? 37 : 20;
+			return literals.stream().mapToLong(l -> 20 + (long) perChar * l.length()).sum();
+		}
+
+		private static String toLowerAscii(String string) {
+			char[] chars = string.toCharArray();
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] >= 'A' && chars[i] <= 'Z') {
+					chars[i] += 'a' - 'A';
+				}
+			}
+			return new String(chars);
+		}
+
+		@Override
+		void writeMatches(MethodVisitor mv, Consumer<MethodVisitor> patternMatches, Label reject) {
+			int input = CompiledRegex.INPUT;
+			int length = CompiledRegex.LENGTH;
+			int hash = 2;
+			int index = 3;
+			int c = 4;
+			// hash = 31 * hash + c, the same as String#hashCode
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, hash);
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, index);
+			Label loop = new Label();
+			Label hashed = new Label();
+			mv.visitLabel(loop);
+			mv.visitVarInsn(ILOAD, index);
+			mv.visitVarInsn(ILOAD, length);
+			mv.visitJumpInsn(IF_ICMPGE, hashed);
+			writeCharAt(mv, input, index, c);
+			mv.visitIntInsn(BIPUSH, 31);
+			mv.visitVarInsn(ILOAD, hash);
+			mv.visitInsn(IMUL);
+			mv.visitVarInsn(ILOAD, c);
+			mv.visitInsn(IADD);
+			mv.visitVarInsn(ISTORE, hash);
+			mv.visitIincInsn(index, 1);
+			mv.visitJumpInsn(GOTO, loop);
+
+			mv.visitLabel(hashed);
+			int[] keys = byHash.keySet().stream().mapToInt(Integer::intValue).toArray();
+			Label[] labels = new Label[keys.length];
+			Arrays.setAll(labels, i -> new Label());
+			mv.visitVarInsn(ILOAD, hash);
+			mv.visitLookupSwitchInsn(reject, keys, labels);
+			for (int i = 0; i < keys.length; i++) {
+				mv.visitLabel(labels[i]);
+				for (String literal : byHash.get(keys[i])) {
+					Label next = new Label();
+					if (!sameLength) {
+						mv.visitVarInsn(ILOAD, length);
+						pushInt(mv, literal.length());
+						mv.visitJumpInsn(IF_ICMPNE, next);
+					}
+					for (int j = 0; j < literal.length(); j++) {
+						pushInt(mv, j);
+						mv.visitVarInsn(ISTORE, index);
+						writeCharAt(mv, input, index, c);
+						mv.visitVarInsn(ILOAD, c);
+						pushInt(mv, literal.charAt(j));
+						mv.visitJumpInsn(IF_ICMPNE, next);
+					}
+					mv.visitInsn(ICONST_1);
+					mv.visitInsn(IRETURN);
+					mv.visitLabel(next);
+				}
+				mv.visitJumpInsn(GOTO, reject);
+			}
+		}
+
+		/**
+		 * Stores <code>input.charAt(index)</code> (lowered if case insensitive) in
+		 * <code>c</code>.
+		 */
+		private void writeCharAt(MethodVisitor mv, int input, int index, int c) {
+			mv.visitVarInsn(ALOAD, input);
+			mv.visitVarInsn(ILOAD, index);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/CharSequence", "charAt", "(I)C", true);
+			mv.visitVarInsn(ISTORE, c);
+			if (caseInsensitive) {
+				Label lowered = new Label();
+				mv.visitVarInsn(ILOAD, c);
+				pushInt(mv, 'A');
+				mv.visitJumpInsn(IF_ICMPLT, lowered);
+				mv.visitVarInsn(ILOAD, c);
+				pushInt(mv, 'Z');
+				mv.visitJumpInsn(IF_ICMPGT, lowered);
+				mv.visitIincInsn(c, 'a' - 'A');
+				mv.visitLabel(lowered);
+			}
+		}
+
+	}
+
+	/**
+	 * Regex that can't be compiled but only matches inputs of a bounded length, so
+	 * the {@link java.util.regex.Pattern} only runs for inputs having a matching
+	 * length.
+	 */
+	static final class LengthCheckedPattern extends CompiledRegex {
+
+		private LengthCheckedPattern(int minLength, int maxLength) {
+			super(minLength, maxLength);
+		}
+
+		@Override
+		void writeMatches(MethodVisitor mv, Consumer<MethodVisitor> patternMatches, Label reject) {
+			patternMatches.accept(mv);
+		}
+
+	}
+
+}
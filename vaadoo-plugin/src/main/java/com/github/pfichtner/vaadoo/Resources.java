@@ -62,10 +62,17 @@ public final class Resources {
 		return messages.getOrDefault(key, key);
 	}
 
+	/**
+	 * Returns all messages (merged from all the resources on the classpath).
+	 */
+	public static Map<String, String> messages() {
+		return messages;
+	}
+
 	private static Map<String, String> loadMessages() {
 		ResourceBundle bundle = ResourceBundle.getBundle("com/github/pfichtner/vaadoo",
 				new MergingResourceBundleControl());
-		return bundle.keySet().stream().collect(toMap(key -> key, bundle::getString));
+		return Map.copyOf(bundle.keySet().stream().collect(toMap(key -> key, bundle::getString)));
 	}
 
 }
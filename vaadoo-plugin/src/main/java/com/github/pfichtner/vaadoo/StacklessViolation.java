@@ -0,0 +1,170 @@
+package com.github.pfichtner.vaadoo;
+
+import static net.bytebuddy.jar.asm.Opcodes.ACC_FINAL;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PRIVATE;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SYNTHETIC;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.ARETURN;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static net.bytebuddy.jar.asm.Opcodes.ATHROW;
+import static net.bytebuddy.jar.asm.Opcodes.DUP;
+import static net.bytebuddy.jar.asm.Opcodes.GETFIELD;
+import static net.bytebuddy.jar.asm.Opcodes.IFNE;
+import static net.bytebuddy.jar.asm.Opcodes.ILOAD;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESPECIAL;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.NEW;
+import static net.bytebuddy.jar.asm.Opcodes.PUTFIELD;
+import static net.bytebuddy.jar.asm.Opcodes.RETURN;
+import static net.bytebuddy.jar.asm.Opcodes.V1_8;
+
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Generates the exception the woven code throws if
+ * {@link VaadooOptions#stacklessExceptions()} is enabled: An
+ * {@link IllegalArgumentException} (so existing catch clauses still match) that
+ * doesn't fill in its stack trace and carries the name of the parameter and
+ * the constraint (the annotation's class name) rejecting it. Like
+ * {@link RegexBudget} the class gets generated per woven class since the woven
+ * classes must not depend on vaadoo at runtime.
+ */
+public final class StacklessViolation {
+
+	private static final String SUPER_CLASS = "java/lang/IllegalArgumentException";
+	private static final String STRING_DESCRIPTOR = "Ljava/lang/String;";
+	private static final String INIT_DESCRIPTOR = "(" + STRING_DESCRIPTOR + STRING_DESCRIPTOR + STRING_DESCRIPTOR
+			+ ")V";
+	private static final String CHECK_ARGUMENT = "checkArgument";
+	private static final String CHECK_ARGUMENT_DESCRIPTOR = "(ZLjava/lang/Object;" + STRING_DESCRIPTOR
+			+ STRING_DESCRIPTOR + ")V";
+	private static final String GUAVA_PRECONDITIONS = "com/google/common/base/Preconditions";
+
+	private StacklessViolation() {
+		super();
+	}
+
+	/**
+	 * Returns the binary name of the exception generated for the passed class.
+	 */
+	public static String exceptionName(String className) {
+		return className + "$VaadooViolation";
+	}
+
+	/**
+	 * Returns a visitor that replaces the <code>IllegalArgumentException</code>s
+	 * thrown (and Guava's <code>checkArgument</code>) by the exception generated
+	 * for the passed class (internal name).
+	 */
+	static MethodVisitor throwing(MethodVisitor methodVisitor, String className, String parameter,
+			String constraint) {
+		String name = exceptionName(className);
+		return new MethodVisitor(ASM9, methodVisitor) {
+
+			@Override
+			public void visitTypeInsn(int opcode, String type) {
+				super.visitTypeInsn(opcode, opcode == NEW && SUPER_CLASS.equals(type) ? name : type);
+			}
+
+			@Override
+			public void visitMethodInsn(int opcode, String owner, String methodName, String descriptor,
+					boolean isInterface) {
+				if (opcode == INVOKESPECIAL && SUPER_CLASS.equals(owner) && "<init>".equals(methodName)
+						&& ("(" + STRING_DESCRIPTOR + ")V").equals(descriptor)) {
+					super.visitLdcInsn(parameter);
+					super.visitLdcInsn(constraint);
+					super.visitMethodInsn(INVOKESPECIAL, name, "<init>", INIT_DESCRIPTOR, false);
+				} else if (opcode == INVOKESTATIC && GUAVA_PRECONDITIONS.equals(owner)
+						&& CHECK_ARGUMENT.equals(methodName) && "(ZLjava/lang/Object;)V".equals(descriptor)) {
+					super.visitLdcInsn(parameter);
+					super.visitLdcInsn(constraint);
+					super.visitMethodInsn(INVOKESTATIC, name, CHECK_ARGUMENT, CHECK_ARGUMENT_DESCRIPTOR, false);
+				} else {
+					super.visitMethodInsn(opcode, owner, methodName, descriptor, isInterface);
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the class file of the exception for the passed class (binary name).
+	 * Besides its constructor <code>(message, parameter, constraint)</code> it has
+	 * <code>static void checkArgument(boolean, Object, String, String)</code>
+	 * replacing Guava's one and the accessors <code>getParameter()</code> and
+	 * <code>getConstraint()</code>.
+	 */
+	public static byte[] exceptionClass(String className) {
+		String name = exceptionName(className).replace('.', '/');
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, SUPER_CLASS, null);
+		cw.visitField(ACC_PRIVATE | ACC_FINAL, "parameter", STRING_DESCRIPTOR, null, null).visitEnd();
+		cw.visitField(ACC_PRIVATE | ACC_FINAL, "constraint", STRING_DESCRIPTOR, null, null).visitEnd();
+
+		// the message is a constant, so it's just passed on, nothing gets formatted
+		MethodVisitor mv = cw.visitMethod(0, "<init>", INIT_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_CLASS, "<init>", "(" + STRING_DESCRIPTOR + ")V", false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitFieldInsn(PUTFIELD, name, "parameter", STRING_DESCRIPTOR);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 3);
+		mv.visitFieldInsn(PUTFIELD, name, "constraint", STRING_DESCRIPTOR);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// IllegalArgumentException has no constructor taking writableStackTrace, so
+		// the stack trace doesn't get filled in by overriding fillInStackTrace
+		mv = cw.visitMethod(ACC_PUBLIC, "fillInStackTrace", "()Ljava/lang/Throwable;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		getter(cw, name, "getParameter", "parameter");
+		getter(cw, name, "getConstraint", "constraint");
+
+		mv = cw.visitMethod(ACC_STATIC, CHECK_ARGUMENT, CHECK_ARGUMENT_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ILOAD, 0);
+		Label valid = new Label();
+		mv.visitJumpInsn(IFNE, valid);
+		mv.visitTypeInsn(NEW, name);
+		mv.visitInsn(DUP);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)" + STRING_DESCRIPTOR,
+				false);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitVarInsn(ALOAD, 3);
+		mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", INIT_DESCRIPTOR, false);
+		mv.visitInsn(ATHROW);
+		mv.visitLabel(valid);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void getter(ClassWriter cw, String name, String methodName, String field) {
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, methodName, "()" + STRING_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, field, STRING_DESCRIPTOR);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+}
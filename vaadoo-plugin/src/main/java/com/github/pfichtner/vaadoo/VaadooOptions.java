@@ -0,0 +1,175 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.util.stream.Collectors.joining;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Options of the plugin, immutable. Since the plugin gets instantiated by ByteBuddy's
+ * build plugins (maven/gradle) the options are read from system properties
+ * prefixed with {@value #PREFIX}, e.g.
+ * <code>mvn -Dvaadoo.cache.dir=/tmp/vaadoo-cache ...</code>
+ */
+public final class VaadooOptions {
+
+	public static final String PREFIX = "vaadoo.";
+
+	public static final String CACHE_DIR = PREFIX + "cache.dir";
+	public static final String OPTIMIZE_REGEX = PREFIX + "optimizeRegex";
+	public static final String COMPILE_REGEX = PREFIX + "compileRegex";
+	public static final String HARDEN_REGEX = PREFIX + "hardenRegex";
+	/**
+	 * The budget of regex matches (see {@link #regexBudget(String)}), can be
+	 * overridden per package or class by appending its name, e.g.
+	 * <code>vaadoo.regexBudget.com.example=1000</code>
+	 */
+	public static final String REGEX_BUDGET = PREFIX + "regexBudget";
+	public static final String REUSE_MATCHER = PREFIX + "reuseMatcher";
+	public static final String CACHE_BIG_NUMBERS = PREFIX + "cacheBigNumbers";
+	/**
+	 * The static method returning the <code>java.time.Clock</code> the temporal
+	 * constraints are checked against, e.g. <code>com.example.Clocks.clock</code>
+	 */
+	public static final String CLOCK = PREFIX + "clock";
+	public static final String STACKLESS_EXCEPTIONS = PREFIX + "stacklessExceptions";
+	public static final String COLLECT_VIOLATIONS = PREFIX + "collectViolations";
+	public static final String CUSTOM_ANNOTATIONS = PREFIX + "customAnnotations";
+	public static final String PARTIAL_EVALUATION = PREFIX + "partialEvaluation";
+	/**
+	 * Not read by the plugin itself but passed to the build plugin, e.g.
+	 * <code>&lt;threads&gt;${vaadoo.threads}&lt;/threads&gt;</code>
+	 */
+	public static final String THREADS = PREFIX + "threads";
+
+	private static final Set<String> NOT_AFFECTING_GENERATED_CODE = Set.of(CACHE_DIR, THREADS);
+
+	private final Map<String, String> values;
+
+	private VaadooOptions(Map<String, String> values) {
+		this.values = Map.copyOf(values);
+	}
+
+	public static VaadooOptions defaults() {
+		return of(Map.of());
+	}
+
+	public static VaadooOptions fromSystemProperties() {
+		return fromProperties(System.getProperties());
+	}
+
+	public static VaadooOptions fromProperties(Properties properties) {
+		Map<String, String> values = new TreeMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(PREFIX)) {
+				values.put(key, properties.getProperty(key));
+			}
+		}
+		return of(values);
+	}
+
+	public static VaadooOptions of(Map<String, String> values) {
+		return new VaadooOptions(values);
+	}
+
+	public Optional<Path> cacheDir() {
+		return value(CACHE_DIR).map(Paths::get);
+	}
+
+	public boolean optimizeRegex() {
+		return booleanValue(OPTIMIZE_REGEX, true);
+	}
+
+	public boolean compileRegex() {
+		return booleanValue(COMPILE_REGEX, true);
+	}
+
+	public boolean hardenRegex() {
+		return booleanValue(HARDEN_REGEX, true);
+	}
+
+	/**
+	 * Returns the number of steps (<code>charAt</code> calls) per char of the input
+	 * <code>java.util.regex</code> may take to match a regex of the passed class
+	 * (binary name) or <code>0</code> if unlimited. The most specific of
+	 * {@value #REGEX_BUDGET}<code>.&lt;class&gt;</code>,
+	 * {@value #REGEX_BUDGET}<code>.&lt;package&gt;</code> (including the parent
+	 * packages) and {@value #REGEX_BUDGET} wins.
+	 */
+	public int regexBudget(String className) {
+		for (String name = className; !name.isEmpty(); name = name.substring(0,
+				Math.max(0, Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'))))) {
+			Optional<String> value = value(REGEX_BUDGET + "." + name);
+			if (value.isPresent()) {
+				return intValue(value.get());
+			}
+		}
+		return value(REGEX_BUDGET).map(VaadooOptions::intValue).orElse(0);
+	}
+
+	private static int intValue(String value) {
+		int budget = Integer.parseInt(value.trim());
+		if (budget < 0) {
+			throw new IllegalStateException(REGEX_BUDGET + " must not be negative but was " + budget);
+		}
+		return budget;
+	}
+
+	public boolean reuseMatcher() {
+		return booleanValue(REUSE_MATCHER, false);
+	}
+
+	public boolean cacheBigNumbers() {
+		return booleanValue(CACHE_BIG_NUMBERS, true);
+	}
+
+	public Optional<String> clock() {
+		return value(CLOCK).map(String::trim).filter(v -> !v.isEmpty());
+	}
+
+	public boolean stacklessExceptions() {
+		return booleanValue(STACKLESS_EXCEPTIONS, false);
+	}
+
+	public boolean collectViolations() {
+		return booleanValue(COLLECT_VIOLATIONS, false);
+	}
+
+	public boolean customAnnotations() {
+		return booleanValue(CUSTOM_ANNOTATIONS, true);
+	}
+
+	public boolean partialEvaluation() {
+		return booleanValue(PARTIAL_EVALUATION, true);
+	}
+
+	public Optional<String> value(String key) {
+		return Optional.ofNullable(values.get(key));
+	}
+
+	private boolean booleanValue(String key, boolean defaultValue) {
+		return value(key).map(String::trim).map(Boolean::parseBoolean).orElse(defaultValue);
+	}
+
+	/**
+	 * Returns a stable string of all options that have influence on the generated
+	 * code (so e.g. the cache directory or the number of threads is not part of it).
+	 */
+	public String fingerprint() {
+		return new TreeMap<>(values).entrySet().stream() //
+				.filter(e -> !NOT_AFFECTING_GENERATED_CODE.contains(e.getKey())) //
+				.map(e -> e.getKey() + "=" + e.getValue()) //
+				.collect(joining("\n"));
+	}
+
+	@Override
+	public String toString() {
+		return "VaadooOptions " + new TreeMap<>(values);
+	}
+
+}
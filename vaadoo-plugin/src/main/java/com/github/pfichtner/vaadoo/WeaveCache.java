@@ -0,0 +1,174 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed on-disk cache of woven classes. The key of an entry is the
+ * hash of the class' bytes, the bytes of the classes the woven code depends on
+ * (see {@link #key(byte[], List)}), the bytes of the code fragment, the plugin
+ * (version), the messages and the options used for weaving. So the directory
+ * can be shared between builds (e.g. persisted by CI). Entries are written
+ * atomically, I/O errors are reported but never fail the build (they just are
+ * cache misses).
+ */
+public class WeaveCache {
+
+	private static final System.Logger logger = System.getLogger(WeaveCache.class.getName());
+
+	private final Path directory;
+	private final byte[] salt;
+
+	public WeaveCache(Path directory, Class<?> codeFragment, VaadooOptions options) {
+		this(directory, codeFragment, options, Resources.messages());
+	}
+
+	WeaveCache(Path directory, Class<?> codeFragment, VaadooOptions options, Map<String, String> messages) {
+		this.directory = directory;
+		this.salt = salt(codeFragment, options, messages);
+	}
+
+	private static byte[] salt(Class<?> codeFragment, VaadooOptions options, Map<String, String> messages) {
+		var digest = sha256();
+		digest.update(classBytes(codeFragment));
+		digest.update(pluginVersion().getBytes(UTF_8));
+		digest.update(options.fingerprint().getBytes(UTF_8));
+		// the messages (which could be overridden by the user) get inlined
+		new TreeMap<>(messages).forEach((k, v) -> digest.update((k + '=' + v + '\n').getBytes(UTF_8)));
+		return digest.digest();
+	}
+
+	/**
+	 * The version of the plugin. If there is no version (or it is a snapshot) the
+	 * content of the plugin's code source gets hashed additionally so changes to
+	 * the plugin during development invalidate the cache as well.
+	 */
+	private static String pluginVersion() {
+		var version = WeaveCache.class.getPackage().getImplementationVersion();
+		if (version != null && !version.endsWith("-SNAPSHOT")) {
+			return version;
+		}
+		return version + "@" + hex(codeSourceHash(WeaveCache.class.getProtectionDomain().getCodeSource()));
+	}
+
+	private static byte[] codeSourceHash(CodeSource codeSource) {
+		var digest = sha256();
+		if (codeSource != null && codeSource.getLocation() != null) {
+			try {
+				var path = Paths.get(codeSource.getLocation().toURI());
+				try (Stream<Path> files = Files.walk(path)) {
+					for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+						digest.update(path.relativize(file).toString().getBytes(UTF_8));
+						digest.update(Files.readAllBytes(file));
+					}
+				}
+			} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+				logger.log(WARNING, "Cannot hash code source " + codeSource.getLocation(), e);
+			}
+		}
+		return digest.digest();
+	}
+
+	private static byte[] classBytes(Class<?> clazz) {
+		try (InputStream inputStream = clazz.getClassLoader()
+				.getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+			if (inputStream == null) {
+				throw new IllegalStateException("Class " + clazz.getName() + " not found on classpath.");
+			}
+			return inputStream.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the key of the passed class. <code>dependencies</code> are the bytes
+	 * of the classes the woven code depends on besides the class itself, e.g. the
+	 * custom constraint annotations (their default message) and the types the
+	 * injected checks were chosen for (their super types).
+	 */
+	public String key(byte[] classBytes, List<byte[]> dependencies) {
+		var digest = sha256();
+		digest.update(salt);
+		digest.update(classBytes);
+		for (byte[] dependency : dependencies) {
+			digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(dependency.length).array());
+			digest.update(dependency);
+		}
+		return hex(digest.digest());
+	}
+
+	public Optional<byte[]> get(String key) {
+		var file = file(key);
+		if (!Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(Files.readAllBytes(file));
+		} catch (IOException e) {
+			logger.log(WARNING, "Cannot read cache entry " + file, e);
+			return Optional.empty();
+		}
+	}
+
+	public void put(String key, byte[] wovenBytes) {
+		var file = file(key);
+		try {
+			Files.createDirectories(file.getParent());
+			var tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+			try {
+				Files.write(tmp, wovenBytes);
+				try {
+					Files.move(tmp, file, ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmp, file, REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		} catch (IOException e) {
+			logger.log(WARNING, "Cannot write cache entry " + file, e);
+		}
+	}
+
+	private Path file(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key + ".class");
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		var sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+}
@@ -67,7 +67,20 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(NotBlank anno, CharSequence charSequence) {
-		checkArgument(checkNotNull(charSequence, anno.message()).toString().trim().length() > 0, anno.message());
+		// same as toString().trim().isEmpty() (all chars <= ' ') without copying
+		int length = checkNotNull(charSequence, anno.message()).length();
+		int index = 0;
+		if (charSequence instanceof String) {
+			String string = (String) charSequence;
+			while (index < length && string.charAt(index) <= ' ') {
+				index++;
+			}
+		} else {
+			while (index < length && charSequence.charAt(index) <= ' ') {
+				index++;
+			}
+		}
+		checkArgument(index < length, anno.message());
 	}
 
 	@Override
@@ -87,25 +100,33 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Email anno, CharSequence charSequence) {
 		if (charSequence != null && charSequence.length() != 0) {
-			String stringValue = charSequence.toString();
-			int splitPosition = stringValue.lastIndexOf('@');
+			// the parts are matched as regions, so toString() of the CharSequence is not
+			// called
+			int length = charSequence.length();
+			int splitPosition = length - 1;
+			while (splitPosition >= 0 && charSequence.charAt(splitPosition) != '@') {
+				splitPosition--;
+			}
 			checkArgument(splitPosition >= 0, anno.message());
 
-			String localPart = stringValue.substring(0, splitPosition);
-			checkArgument(localPart.length() <= 64 && compile("(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]"
+			checkArgument(splitPosition <= 64 && compile("(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]"
 					+ "+|\"" + "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")"
 					+ "+\")" + "(?:\\." + "(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]" + "+|\""
 					+ "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")" + "+\")" + ")*",
-					CASE_INSENSITIVE).matcher(localPart).matches(), anno.message());
+					CASE_INSENSITIVE).matcher(charSequence).region(0, splitPosition).matches(), anno.message());
 
-			String domainPart = stringValue.substring(splitPosition + 1);
 			boolean validEmailDomainAddress = false;
 			try {
+				// IDN needs a String, appending does not call toString() of the CharSequence
+				String domainPart = new StringBuilder(length - splitPosition - 1)
+						.append(charSequence, splitPosition + 1, length).toString();
+				// a label is "[char](?:-*[char])*", the same as Hibernate's
+				// "(?:[char]-*)*[char]++" but without the ambiguity making the Pattern backtrack
 				validEmailDomainAddress = !domainPart.endsWith(".") && IDN.toASCII(domainPart).length() <= 255
-						&& compile("(?:" + "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+(?:\\." + "(?:"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+)*" + "|\\["
+						&& compile("[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "(?:-*"
+								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + ")*" + "(?:\\."
+								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "(?:-*"
+								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + ")*" + ")*" + "|\\["
 								+ "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}" + "\\]|" + "\\[IPv6:"
 								+ "(?:(?:[0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,7}:|(?:[0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,5}(?::[0-9a-fA-F]{1,4}){1,2}|(?:[0-9a-fA-F]{1,4}:){1,4}(?::[0-9a-fA-F]{1,4}){1,3}|(?:[0-9a-fA-F]{1,4}:){1,3}(?::[0-9a-fA-F]{1,4}){1,4}|(?:[0-9a-fA-F]{1,4}:){1,2}(?::[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:(?:(?::[0-9a-fA-F]{1,4}){1,6})|:(?:(?::[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(?::[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(?:ffff(:0{1,4}){0,1}:){0,1}(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])|(?:[0-9a-fA-F]{1,4}:){1,4}:(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9]))"
 								+ "\\]", CASE_INSENSITIVE).matcher(domainPart).matches();
@@ -235,12 +256,23 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Min anno, BigInteger value) {
-		checkArgument(value == null || value.compareTo(BigInteger.valueOf(anno.value())) >= 0, anno.message());
+		// values not fitting into a long are out of the bound's range
+		checkArgument(value == null
+				|| (value.bitLength() < Long.SIZE ? value.longValue() >= anno.value() : value.signum() >= 0),
+				anno.message());
 	}
 
 	@Override
 	public void check(Min anno, BigDecimal value) {
-		checkArgument(value == null || value.compareTo(BigDecimal.valueOf(anno.value())) >= 0, anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one, integral values
+			// of less than 19 digits are compared as long
+			int signum = value.signum();
+			checkArgument(signum != Long.signum(anno.value()) ? signum > Long.signum(anno.value())
+					: value.scale() == 0 && value.precision() < 19 ? value.longValue() >= anno.value()
+							: value.compareTo(BigDecimal.valueOf(anno.value())) >= 0,
+					anno.message());
+		}
 	}
 
 	// -----------------------------------------------------------------
@@ -287,37 +319,80 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Max anno, BigInteger value) {
-		checkArgument(value == null || value.compareTo(BigInteger.valueOf(anno.value())) <= 0, anno.message());
+		// values not fitting into a long are out of the bound's range
+		checkArgument(value == null
+				|| (value.bitLength() < Long.SIZE ? value.longValue() <= anno.value() : value.signum() <= 0),
+				anno.message());
 	}
 
 	@Override
 	public void check(Max anno, BigDecimal value) {
-		checkArgument(value == null || value.compareTo(BigDecimal.valueOf(anno.value())) <= 0, anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one, integral values
+			// of less than 19 digits are compared as long
+			int signum = value.signum();
+			checkArgument(signum != Long.signum(anno.value()) ? signum < Long.signum(anno.value())
+					: value.scale() == 0 && value.precision() < 19 ? value.longValue() <= anno.value()
+							: value.compareTo(BigDecimal.valueOf(anno.value())) <= 0,
+					anno.message());
+		}
 	}
 
 	// -----------------------------------------------------------------
 
 	@Override
 	public void check(DecimalMin anno, byte value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Byte.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Byte.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		checkArgument(!aboveRange && (belowRange || (orEqual ? value > truncated : value >= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMin anno, short value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Short.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Short.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		checkArgument(!aboveRange && (belowRange || (orEqual ? value > truncated : value >= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMin anno, int value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		checkArgument(!aboveRange && (belowRange || (orEqual ? value > truncated : value >= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMin anno, long value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+		long truncated = bound.longValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		checkArgument(!aboveRange && (belowRange || (orEqual ? value > truncated : value >= truncated)),
 				anno.message());
 	}
 
@@ -355,25 +430,113 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMin anno, BigInteger value) {
-		checkArgument(
-				value == null
-						|| new BigDecimal(value).compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
-				anno.message());
+		if (value != null) {
+			// the bound gets folded at weave time like for long, values not fitting into
+			// a long are decided by their signum unless the bound is out of long's range
+			BigDecimal bound = new BigDecimal(anno.value());
+			boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+			boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+			long truncated = bound.longValue();
+			int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+			boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+			if (value.bitLength() < Long.SIZE) {
+				checkArgument(
+						!aboveRange && (belowRange || (orEqual ? value.longValue() > truncated : value.longValue() >= truncated)),
+						anno.message());
+			} else {
+				checkArgument(aboveRange || belowRange //
+						? new BigDecimal(value).compareTo(bound) >= (anno.inclusive() ? 0 : 1) //
+						: value.signum() >= 0, anno.message());
+			}
+		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, BigDecimal value) {
-		checkArgument(value == null || value.compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1),
-				anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one
+			BigDecimal bound = new BigDecimal(anno.value());
+			int signum = value.signum();
+			checkArgument(signum != bound.signum() ? signum > bound.signum()
+					: value.compareTo(bound) >= (anno.inclusive() ? 0 : 1), anno.message());
+		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, CharSequence value) {
-		try {
-			checkArgument(value == null || new BigDecimal(String.valueOf(value))
-					.compareTo(new BigDecimal(anno.value())) >= (anno.inclusive() ? 0 : 1), anno.message());
-		} catch (NumberFormatException nfe) {
-			// ignore
+		if (value != null) {
+			// gets folded at weave time
+			BigDecimal bound = new BigDecimal(anno.value()).stripTrailingZeros();
+			int boundSignum = bound.signum();
+			String boundDigits = bound.unscaledValue().abs().toString();
+			long boundExponent = (long) bound.precision() - bound.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			int signum = 0;
+			boolean negative = false;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+						signum = negative ? -1 : 1;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					negative = c == '-';
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int comparison = Integer.compare(signum, boundSignum);
+				if (comparison == 0 && signum != 0) {
+					// both are 0.d1d2... * 10^exponent, d1 being the first non zero digit
+					long valueExponent = (long) digits - fractionDigits - firstNonZero + exponent;
+					int magnitude = Long.compare(valueExponent, boundExponent);
+					int significant = -firstNonZero;
+					for (int i = 0; magnitude == 0 && i < end; i++) {
+						char c = value.charAt(i);
+						int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+						if (digit >= 0) {
+							if (significant >= 0) {
+								magnitude = Integer.compare(digit,
+										significant < boundDigits.length() ? boundDigits.charAt(significant) - '0' : 0);
+							}
+							significant++;
+						}
+					}
+					comparison = signum * (magnitude == 0 && significant < boundDigits.length() ? -1 : magnitude);
+				}
+				checkArgument(comparison >= (anno.inclusive() ? 0 : 1), anno.message());
+			}
 		}
 	}
 
@@ -381,25 +544,57 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMax anno, byte value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Byte.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Byte.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		checkArgument(!belowRange && (aboveRange || (orEqual ? value < truncated : value <= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMax anno, short value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Short.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Short.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		checkArgument(!belowRange && (aboveRange || (orEqual ? value < truncated : value <= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMax anno, int value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		checkArgument(!belowRange && (aboveRange || (orEqual ? value < truncated : value <= truncated)),
 				anno.message());
 	}
 
 	@Override
 	public void check(DecimalMax anno, long value) {
-		checkArgument(new BigDecimal(value).compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+		long truncated = bound.longValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		checkArgument(!belowRange && (aboveRange || (orEqual ? value < truncated : value <= truncated)),
 				anno.message());
 	}
 
@@ -437,25 +632,113 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMax anno, BigInteger value) {
-		checkArgument(
-				value == null
-						|| new BigDecimal(value).compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
-				anno.message());
+		if (value != null) {
+			// the bound gets folded at weave time like for long, values not fitting into
+			// a long are decided by their signum unless the bound is out of long's range
+			BigDecimal bound = new BigDecimal(anno.value());
+			boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+			boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+			long truncated = bound.longValue();
+			int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+			boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+			if (value.bitLength() < Long.SIZE) {
+				checkArgument(
+						!belowRange && (aboveRange || (orEqual ? value.longValue() < truncated : value.longValue() <= truncated)),
+						anno.message());
+			} else {
+				checkArgument(aboveRange || belowRange //
+						? new BigDecimal(value).compareTo(bound) <= (anno.inclusive() ? 0 : -1) //
+						: value.signum() <= 0, anno.message());
+			}
+		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, BigDecimal value) {
-		checkArgument(value == null || value.compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1),
-				anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one
+			BigDecimal bound = new BigDecimal(anno.value());
+			int signum = value.signum();
+			checkArgument(signum != bound.signum() ? signum < bound.signum()
+					: value.compareTo(bound) <= (anno.inclusive() ? 0 : -1), anno.message());
+		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, CharSequence value) {
-		try {
-			checkArgument(value == null || new BigDecimal(String.valueOf(value))
-					.compareTo(new BigDecimal(anno.value())) <= (anno.inclusive() ? 0 : -1), anno.message());
-		} catch (NumberFormatException nfe) {
-			// ignore
+		if (value != null) {
+			// gets folded at weave time
+			BigDecimal bound = new BigDecimal(anno.value()).stripTrailingZeros();
+			int boundSignum = bound.signum();
+			String boundDigits = bound.unscaledValue().abs().toString();
+			long boundExponent = (long) bound.precision() - bound.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			int signum = 0;
+			boolean negative = false;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+						signum = negative ? -1 : 1;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					negative = c == '-';
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int comparison = Integer.compare(signum, boundSignum);
+				if (comparison == 0 && signum != 0) {
+					// both are 0.d1d2... * 10^exponent, d1 being the first non zero digit
+					long valueExponent = (long) digits - fractionDigits - firstNonZero + exponent;
+					int magnitude = Long.compare(valueExponent, boundExponent);
+					int significant = -firstNonZero;
+					for (int i = 0; magnitude == 0 && i < end; i++) {
+						char c = value.charAt(i);
+						int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+						if (digit >= 0) {
+							if (significant >= 0) {
+								magnitude = Integer.compare(digit,
+										significant < boundDigits.length() ? boundDigits.charAt(significant) - '0' : 0);
+							}
+							significant++;
+						}
+					}
+					comparison = signum * (magnitude == 0 && significant < boundDigits.length() ? -1 : magnitude);
+				}
+				checkArgument(comparison <= (anno.inclusive() ? 0 : -1), anno.message());
+			}
 		}
 	}
 
@@ -463,27 +746,46 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Digits anno, byte value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		checkArgument(length <= anno.integer(), anno.message());
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 2; i++) {
+			tooLarge *= 10;
+		}
+		checkArgument(anno.integer() >= 3 || anno.integer() > 0 && value < tooLarge && value > -tooLarge,
+				anno.message());
 	}
 
 	@Override
 	public void check(Digits anno, short value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		checkArgument(length <= anno.integer(), anno.message());
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 4; i++) {
+			tooLarge *= 10;
+		}
+		checkArgument(anno.integer() >= 5 || anno.integer() > 0 && value < tooLarge && value > -tooLarge,
+				anno.message());
 	}
 
 	@Override
 	public void check(Digits anno, int value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		checkArgument(length <= anno.integer(), anno.message());
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 9; i++) {
+			tooLarge *= 10;
+		}
+		checkArgument(anno.integer() >= 10 || anno.integer() > 0 && value < tooLarge && value > -tooLarge,
+				anno.message());
 	}
 
 	@Override
 	public void check(Digits anno, long value) {
-		long absValue = (value == Long.MIN_VALUE) ? -(value + 1) : abs(value);
-		int length = (value == 0) ? 1 : (int) log10(absValue) + 1;
-		checkArgument(length <= anno.integer(), anno.message());
+		// folded at weave time: the smallest value having too many digits
+		long tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 18; i++) {
+			tooLarge *= 10;
+		}
+		checkArgument(anno.integer() >= 19 || anno.integer() > 0 && value < tooLarge && value > -tooLarge,
+				anno.message());
 	}
 
 	@Override
@@ -522,31 +824,84 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Digits anno, BigInteger value) {
 		if (value != null) {
-			int length = value.toString().length();
-			checkArgument(length <= anno.integer(), anno.message());
+			// values fitting into a long are checked like long (the smallest value having
+			// too many digits gets folded at weave time)
+			long tooLarge = 1;
+			for (int i = 0; i < anno.integer() && i < 18; i++) {
+				tooLarge *= 10;
+			}
+			if (value.bitLength() < Long.SIZE) {
+				checkArgument(anno.integer() >= 19
+						|| anno.integer() > 0 && value.longValue() < tooLarge && value.longValue() > -tooLarge,
+						anno.message());
+			} else {
+				checkArgument(new BigDecimal(value).precision() <= anno.integer(), anno.message());
+			}
 		}
 	}
 
 	@Override
 	public void check(Digits anno, BigDecimal value) {
 		if (value != null) {
-			int integerPartLength = value.precision() - value.scale();
-			int fractionPartLength = value.scale() < 0 ? 0 : value.scale();
-			checkArgument(integerPartLength <= anno.integer() && fractionPartLength <= anno.fraction(), anno.message());
+			// the scale is a field, the precision might have to be computed
+			int scale = value.scale();
+			checkArgument((scale < 0 ? 0 : scale) <= anno.fraction() && value.precision() - scale <= anno.integer(),
+					anno.message());
 		}
 	}
 
 	@Override
 	public void check(Digits anno, CharSequence value) {
 		if (value != null) {
-			try {
-				BigDecimal bigNum = new BigDecimal(value.toString());
-				int integerPartLength = bigNum.precision() - bigNum.scale();
-				int fractionPartLength = bigNum.scale() < 0 ? 0 : bigNum.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					// the sign doesn't matter
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int precision = firstNonZero < 0 ? 1 : digits - firstNonZero;
+				int scale = (int) (fractionDigits - exponent);
+				int integerPartLength = precision - scale;
+				int fractionPartLength = scale < 0 ? 0 : scale;
 				checkArgument(integerPartLength <= anno.integer() && fractionPartLength <= anno.fraction(),
 						anno.message());
-			} catch (NumberFormatException e) {
-				// ignore
 			}
 		}
 	}
@@ -762,343 +1117,352 @@ public class GuavaCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Past anno, Date value) {
-		checkArgument(value == null || value.getTime() < System.currentTimeMillis(), anno.message());
+		checkArgument(value == null || value.getTime() < TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(Past anno, Calendar value) {
-		checkArgument(value == null || value.getTimeInMillis() < System.currentTimeMillis(), anno.message());
+		checkArgument(value == null || value.getTimeInMillis() < TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(Past anno, Instant value) {
-		checkArgument(value == null || value.isBefore(Instant.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) < 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Past anno, LocalDate value) {
-		checkArgument(value == null || value.isBefore(LocalDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, LocalDateTime value) {
-		checkArgument(value == null || value.isBefore(LocalDateTime.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, LocalTime value) {
-		checkArgument(value == null || value.isBefore(LocalTime.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToLocalTime(value.toNanoOfDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, MonthDay value) {
-		checkArgument(value == null || value.isBefore(MonthDay.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) < 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Past anno, OffsetDateTime value) {
-		checkArgument(value == null || value.isBefore(OffsetDateTime.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) < 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Past anno, Year value) {
-		checkArgument(value == null || value.isBefore(Year.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToYear(value.getValue()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, YearMonth value) {
-		checkArgument(value == null || value.isBefore(YearMonth.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) < 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Past anno, ZonedDateTime value) {
-		checkArgument(value == null || value.isBefore(ZonedDateTime.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) < 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Past anno, HijrahDate value) {
-		checkArgument(value == null || value.isBefore(HijrahDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, JapaneseDate value) {
-		checkArgument(value == null || value.isBefore(JapaneseDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, MinguoDate value) {
-		checkArgument(value == null || value.isBefore(MinguoDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) < 0, anno.message());
 	}
 
 	@Override
 	public void check(Past anno, ThaiBuddhistDate value) {
-		checkArgument(value == null || value.isBefore(ThaiBuddhistDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) < 0, anno.message());
 	}
 
 	// -----------------------------------------------------------------
 
 	@Override
 	public void check(PastOrPresent anno, Date value) {
-		checkArgument(value == null || value.getTime() <= System.currentTimeMillis(), anno.message());
+		checkArgument(value == null || value.getTime() <= TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Calendar value) {
-		checkArgument(value == null || value.getTimeInMillis() <= System.currentTimeMillis(), anno.message());
+		checkArgument(value == null || value.getTimeInMillis() <= TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Instant value) {
-		checkArgument(value == null || !value.isAfter(Instant.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) <= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalDate value) {
-		checkArgument(value == null || !value.isAfter(LocalDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalDateTime value) {
-		checkArgument(value == null || !value.isAfter(LocalDateTime.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalTime value) {
-		checkArgument(value == null || !value.isAfter(LocalTime.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToLocalTime(value.toNanoOfDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, MonthDay value) {
-		checkArgument(value == null || !value.isAfter(MonthDay.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) <= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, OffsetDateTime value) {
-		checkArgument(value == null || !value.isAfter(OffsetDateTime.now()), anno.message());
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) <= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Year value) {
-		checkArgument(value == null || !value.isAfter(Year.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToYear(value.getValue()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, YearMonth value) {
-		checkArgument(value == null || !value.isAfter(YearMonth.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) <= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, ZonedDateTime value) {
-		checkArgument(value == null || !value.isAfter(ZonedDateTime.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) <= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, HijrahDate value) {
-		checkArgument(value == null || !value.isAfter(HijrahDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, JapaneseDate value) {
-		checkArgument(value == null || !value.isAfter(JapaneseDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, MinguoDate value) {
-		checkArgument(value == null || !value.isAfter(MinguoDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) <= 0, anno.message());
 	}
 
 	@Override
 	public void check(PastOrPresent anno, ThaiBuddhistDate value) {
-		checkArgument(value == null || !value.isAfter(ThaiBuddhistDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) <= 0, anno.message());
 	}
 
 	// -----------------------------------------------------------------
 
 	@Override
 	public void check(Future anno, Date value) {
-		checkArgument(value == null || value.getTime() > System.currentTimeMillis(), anno.message());
-
+		checkArgument(value == null || value.getTime() > TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(Future anno, Calendar value) {
-		checkArgument(value == null || value.getTimeInMillis() > System.currentTimeMillis(), anno.message());
-
+		checkArgument(value == null || value.getTimeInMillis() > TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(Future anno, Instant value) {
-		checkArgument(value == null || value.isAfter(Instant.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) > 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Future anno, LocalDate value) {
-		checkArgument(value == null || value.isAfter(LocalDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, LocalDateTime value) {
-		checkArgument(value == null || value.isAfter(LocalDateTime.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, LocalTime value) {
-		checkArgument(value == null || value.isAfter(LocalTime.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToLocalTime(value.toNanoOfDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, MonthDay value) {
-		checkArgument(value == null || value.isAfter(MonthDay.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) > 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Future anno, OffsetDateTime value) {
-		checkArgument(value == null || value.isAfter(OffsetDateTime.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) > 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Future anno, Year value) {
-		checkArgument(value == null || value.isAfter(Year.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToYear(value.getValue()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, YearMonth value) {
-		checkArgument(value == null || value.isAfter(YearMonth.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) > 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Future anno, ZonedDateTime value) {
-		checkArgument(value == null || value.isAfter(ZonedDateTime.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) > 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(Future anno, HijrahDate value) {
-		checkArgument(value == null || value.isAfter(HijrahDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, JapaneseDate value) {
-		checkArgument(value == null || value.isAfter(JapaneseDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, MinguoDate value) {
-		checkArgument(value == null || value.isAfter(MinguoDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) > 0, anno.message());
 	}
 
 	@Override
 	public void check(Future anno, ThaiBuddhistDate value) {
-		checkArgument(value == null || value.isAfter(ThaiBuddhistDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) > 0, anno.message());
 	}
 
 	// -----------------------------------------------------------------
 
 	@Override
 	public void check(FutureOrPresent anno, Date value) {
-		checkArgument(value == null || value.getTime() >= System.currentTimeMillis(), anno.message());
-
+		checkArgument(value == null || value.getTime() >= TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Calendar value) {
-		checkArgument(value == null || value.getTimeInMillis() >= System.currentTimeMillis(), anno.message());
-
+		checkArgument(value == null || value.getTimeInMillis() >= TimeSource.millis(), anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Instant value) {
-		checkArgument(value == null || !value.isBefore(Instant.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) >= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalDate value) {
-		checkArgument(value == null || !value.isBefore(LocalDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalDateTime value) {
-		checkArgument(value == null || !value.isBefore(LocalDateTime.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalTime value) {
-		checkArgument(value == null || !value.isBefore(LocalTime.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToLocalTime(value.toNanoOfDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, MonthDay value) {
-		checkArgument(value == null || !value.isBefore(MonthDay.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) >= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, OffsetDateTime value) {
-		checkArgument(value == null || !value.isBefore(OffsetDateTime.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) >= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Year value) {
-		checkArgument(value == null || !value.isBefore(Year.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToYear(value.getValue()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, YearMonth value) {
-		checkArgument(value == null || !value.isBefore(YearMonth.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) >= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, ZonedDateTime value) {
-		checkArgument(value == null || !value.isBefore(ZonedDateTime.now()), anno.message());
-
+		checkArgument(value == null
+				|| TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) >= 0,
+				anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, HijrahDate value) {
-		checkArgument(value == null || !value.isBefore(HijrahDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, JapaneseDate value) {
-		checkArgument(value == null || !value.isBefore(JapaneseDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, MinguoDate value) {
-		checkArgument(value == null || !value.isBefore(MinguoDate.now()), anno.message());
-
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) >= 0, anno.message());
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, ThaiBuddhistDate value) {
-		checkArgument(value == null || !value.isBefore(ThaiBuddhistDate.now()), anno.message());
+		checkArgument(value == null || TimeSource.compareToToday(value.toEpochDay()) >= 0, anno.message());
 	}
 
 }
@@ -72,7 +72,20 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 		if (charSequence == null) {
 			throw new NullPointerException(anno.message());
 		}
-		if (charSequence.toString().trim().length() <= 0) {
+		// same as toString().trim().isEmpty() (all chars <= ' ') without copying
+		int length = charSequence.length();
+		int index = 0;
+		if (charSequence instanceof String) {
+			String string = (String) charSequence;
+			while (index < length && string.charAt(index) <= ' ') {
+				index++;
+			}
+		} else {
+			while (index < length && charSequence.charAt(index) <= ' ') {
+				index++;
+			}
+		}
+		if (index == length) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -96,46 +109,113 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Email anno, CharSequence charSequence) {
 		if (charSequence != null && charSequence.length() != 0) {
-			String stringValue = charSequence.toString();
-			int splitPosition = stringValue.lastIndexOf('@');
-			if (splitPosition < 0) {
-				throw new IllegalArgumentException(anno.message());
+			// the default regexp ".*" only rejects line terminators, this is done while
+			// scanning
+			boolean defaultRegexp = anno.flags().length == 0 && ".*".equals(anno.regexp());
+
+			int length = charSequence.length();
+			int splitPosition = length - 1;
+			while (splitPosition >= 0 && charSequence.charAt(splitPosition) != '@') {
+				splitPosition--;
 			}
 
-			String localPart = stringValue.substring(0, splitPosition);
-			if (localPart.length() > 64 || !compile("(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]" + "+|\""
-					+ "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")" + "+\")"
-					+ "(?:\\." + "(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]" + "+|\""
-					+ "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")" + "+\")" + ")*",
-					CASE_INSENSITIVE).matcher(localPart).matches()) {
-				throw new IllegalArgumentException(anno.message());
+			// local part: dot separated atoms or quoted strings, states are 0: start of
+			// word, 1: atom, 2: opening quote, 3: quoted, 4: backslash, 5: closing quote
+			boolean valid = splitPosition > 0 && splitPosition <= 64;
+			int state = 0;
+			for (int i = 0; valid && i < splitPosition; i++) {
+				char c = charSequence.charAt(i);
+				boolean alphanumeric = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+				// supplementary code points are not in \u0080-\uFFFF
+				boolean nonAscii = c >= 0x80
+						&& !(Character.isHighSurrogate(c) && i + 1 < length
+								&& Character.isLowSurrogate(charSequence.charAt(i + 1)))
+						&& !(defaultRegexp && (c == 0x85 || c == 0x2028 || c == 0x2029));
+				if (state == 0) {
+					state = c == '"' ? 2
+							: alphanumeric || nonAscii || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0 ? 1 : -1;
+				} else if (state == 1) {
+					state = c == '.' ? 0
+							: alphanumeric || nonAscii || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0 ? 1 : -1;
+				} else if (state == 2 || state == 3) {
+					state = c == '"' ? (state == 3 ? 5 : -1)
+							: c == '\\' ? 4
+									: alphanumeric || nonAscii || "!#$%&'*.(),<>[]:;  @+/=?^_`{|}~-".indexOf(c) >= 0 ? 3
+											: -1;
+				} else if (state == 4) {
+					state = c == '\\' || c == '"' ? 3 : -1;
+				} else {
+					state = c == '.' ? 0 : -1;
+				}
+				valid = state >= 0;
 			}
-
-			String domainPart = stringValue.substring(splitPosition + 1);
-			boolean validEmailDomainAddress = false;
-			try {
-				validEmailDomainAddress = !domainPart.endsWith(".") && IDN.toASCII(domainPart).length() <= 255
-						&& compile("(?:" + "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+(?:\\." + "(?:"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
-								+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+)*" + "|\\["
-								+ "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}" + "\\]|" + "\\[IPv6:"
-								+ "(?:(?:[0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,7}:|(?:[0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,5}(?::[0-9a-fA-F]{1,4}){1,2}|(?:[0-9a-fA-F]{1,4}:){1,4}(?::[0-9a-fA-F]{1,4}){1,3}|(?:[0-9a-fA-F]{1,4}:){1,3}(?::[0-9a-fA-F]{1,4}){1,4}|(?:[0-9a-fA-F]{1,4}:){1,2}(?::[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:(?:(?::[0-9a-fA-F]{1,4}){1,6})|:(?:(?::[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(?::[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(?:ffff(:0{1,4}){0,1}:){0,1}(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])|(?:[0-9a-fA-F]{1,4}:){1,4}:(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9]))"
-								+ "\\]", CASE_INSENSITIVE).matcher(domainPart).matches();
-
-			} catch (IllegalArgumentException e) {
+			valid = valid && (state == 1 || state == 5);
+
+			if (valid && splitPosition + 1 < length && charSequence.charAt(splitPosition + 1) == '[') {
+				// domain literals are rare, so these are checked using the regex (IDN needs a
+				// String, appending does not call toString() of the CharSequence)
+				String domainPart = new StringBuilder(length - splitPosition - 1)
+						.append(charSequence, splitPosition + 1, length).toString();
+				try {
+					valid = IDN.toASCII(domainPart).length() <= 255 && compile("\\["
+							+ "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}" + "\\]|" + "\\[IPv6:"
+							+ "(?:(?:[0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,7}:|(?:[0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,5}(?::[0-9a-fA-F]{1,4}){1,2}|(?:[0-9a-fA-F]{1,4}:){1,4}(?::[0-9a-fA-F]{1,4}){1,3}|(?:[0-9a-fA-F]{1,4}:){1,3}(?::[0-9a-fA-F]{1,4}){1,4}|(?:[0-9a-fA-F]{1,4}:){1,2}(?::[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:(?:(?::[0-9a-fA-F]{1,4}){1,6})|:(?:(?::[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(?::[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(?:ffff(:0{1,4}){0,1}:){0,1}(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])|(?:[0-9a-fA-F]{1,4}:){1,4}:(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9]))"
+							+ "\\]", CASE_INSENSITIVE).matcher(domainPart).matches();
+				} catch (IllegalArgumentException e) {
+					valid = false;
+				}
+			} else if (valid) {
+				// domain part: dot separated labels not starting or ending with a hyphen,
+				// states are 0: start of label, 1: label, 2: hyphen
+				boolean ascii = true;
+				boolean labelTooLong = false;
+				int labelStart = splitPosition + 1;
+				state = 0;
+				for (int i = splitPosition + 1; valid && i < length; i++) {
+					char c = charSequence.charAt(i);
+					boolean nonAscii = c >= 0x80
+							&& !(Character.isHighSurrogate(c) && i + 1 < length
+									&& Character.isLowSurrogate(charSequence.charAt(i + 1)))
+							&& !(defaultRegexp && (c == 0x85 || c == 0x2028 || c == 0x2029));
+					boolean labelChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+							|| nonAscii || "!#$%&'*+/=?^_`{|}~".indexOf(c) >= 0;
+					ascii &= c < 0x80;
+					if (c == '.' && state == 1) {
+						labelTooLong |= i - labelStart > 63;
+						labelStart = i + 1;
+						state = 0;
+					} else {
+						state = labelChar ? 1 : c == '-' && state != 0 ? 2 : -1;
+					}
+					valid = state >= 0;
+				}
+				labelTooLong |= length - labelStart > 63;
+				valid = valid && state == 1;
+				if (valid && ascii) {
+					// that's what IDN#toASCII checks for US-ASCII domains
+					valid = !labelTooLong && length - splitPosition - 1 <= 255;
+				} else if (valid) {
+					try {
+						valid = IDN.toASCII(new StringBuilder(length - splitPosition - 1)
+								.append(charSequence, splitPosition + 1, length).toString()).length() <= 255;
+					} catch (IllegalArgumentException e) {
+						valid = false;
+					}
+				}
 			}
-			if (!validEmailDomainAddress) {
+			if (!valid) {
 				throw new IllegalArgumentException(anno.message());
 			}
 
 			// additional check
-			int flagValue = 0;
-			for (Flag flag : anno.flags()) {
-				flagValue |= flag.getValue();
-			}
-			if (!compile(anno.regexp(), flagValue).matcher(charSequence).matches()) {
-				throw new IllegalArgumentException(anno.message());
+			if (!defaultRegexp) {
+				int flagValue = 0;
+				for (Flag flag : anno.flags()) {
+					flagValue |= flag.getValue();
+				}
+				if (!compile(anno.regexp(), flagValue).matcher(charSequence).matches()) {
+					throw new IllegalArgumentException(anno.message());
+				}
 			}
 		}
 	}
@@ -298,15 +378,24 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Min anno, BigInteger value) {
-		if (value != null && value.compareTo(BigInteger.valueOf(anno.value())) < 0) {
+		// values not fitting into a long are out of the bound's range
+		if (value != null
+				&& (value.bitLength() < Long.SIZE ? value.longValue() < anno.value() : value.signum() < 0)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Min anno, BigDecimal value) {
-		if (value != null && value.compareTo(BigDecimal.valueOf(anno.value())) < 0) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one, integral values
+			// of less than 19 digits are compared as long
+			int signum = value.signum();
+			if (signum != Long.signum(anno.value()) ? signum < Long.signum(anno.value())
+					: value.scale() == 0 && value.precision() < 19 ? value.longValue() < anno.value()
+							: value.compareTo(BigDecimal.valueOf(anno.value())) < 0) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
@@ -370,15 +459,24 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Max anno, BigInteger value) {
-		if (value != null && value.compareTo(BigInteger.valueOf(anno.value())) > 0) {
+		// values not fitting into a long are out of the bound's range
+		if (value != null
+				&& (value.bitLength() < Long.SIZE ? value.longValue() > anno.value() : value.signum() > 0)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Max anno, BigDecimal value) {
-		if (value != null && value.compareTo(BigDecimal.valueOf(anno.value())) > 0) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one, integral values
+			// of less than 19 digits are compared as long
+			int signum = value.signum();
+			if (signum != Long.signum(anno.value()) ? signum > Long.signum(anno.value())
+					: value.scale() == 0 && value.precision() < 19 ? value.longValue() > anno.value()
+							: value.compareTo(BigDecimal.valueOf(anno.value())) > 0) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
@@ -386,28 +484,60 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMin anno, byte value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Byte.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Byte.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		if (aboveRange || !belowRange && (orEqual ? value <= truncated : value < truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, short value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Short.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Short.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		if (aboveRange || !belowRange && (orEqual ? value <= truncated : value < truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, int value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		if (aboveRange || !belowRange && (orEqual ? value <= truncated : value < truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, long value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+		long truncated = bound.longValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+		if (aboveRange || !belowRange && (orEqual ? value <= truncated : value < truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -447,28 +577,117 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMin anno, BigInteger value) {
-		if (value != null
-				&& new BigDecimal(value).compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the bound gets folded at weave time like for long, values not fitting into
+			// a long are decided by their signum unless the bound is out of long's range
+			BigDecimal bound = new BigDecimal(anno.value());
+			boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+			boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+			long truncated = bound.longValue();
+			int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+			boolean orEqual = anno.inclusive() ? fraction > 0 : fraction >= 0;
+			if (value.bitLength() < Long.SIZE) {
+				if (aboveRange || !belowRange && (orEqual ? value.longValue() <= truncated : value.longValue() < truncated)) {
+					throw new IllegalArgumentException(anno.message());
+				}
+			} else if (aboveRange || belowRange //
+					? new BigDecimal(value).compareTo(bound) < (anno.inclusive() ? 0 : 1) //
+					: value.signum() < 0) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, BigDecimal value) {
-		if (value != null && value.compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one
+			BigDecimal bound = new BigDecimal(anno.value());
+			int signum = value.signum();
+			if (signum != bound.signum() ? signum < bound.signum()
+					: value.compareTo(bound) < (anno.inclusive() ? 0 : 1)) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
 	@Override
 	public void check(DecimalMin anno, CharSequence value) {
-		try {
-			if (value != null && new BigDecimal(String.valueOf(value))
-					.compareTo(new BigDecimal(anno.value())) < (anno.inclusive() ? 0 : 1)) {
-				throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// gets folded at weave time
+			BigDecimal bound = new BigDecimal(anno.value()).stripTrailingZeros();
+			int boundSignum = bound.signum();
+			String boundDigits = bound.unscaledValue().abs().toString();
+			long boundExponent = (long) bound.precision() - bound.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			int signum = 0;
+			boolean negative = false;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+						signum = negative ? -1 : 1;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					negative = c == '-';
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int comparison = Integer.compare(signum, boundSignum);
+				if (comparison == 0 && signum != 0) {
+					// both are 0.d1d2... * 10^exponent, d1 being the first non zero digit
+					long valueExponent = (long) digits - fractionDigits - firstNonZero + exponent;
+					int magnitude = Long.compare(valueExponent, boundExponent);
+					int significant = -firstNonZero;
+					for (int i = 0; magnitude == 0 && i < end; i++) {
+						char c = value.charAt(i);
+						int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+						if (digit >= 0) {
+							if (significant >= 0) {
+								magnitude = Integer.compare(digit,
+										significant < boundDigits.length() ? boundDigits.charAt(significant) - '0' : 0);
+							}
+							significant++;
+						}
+					}
+					comparison = signum * (magnitude == 0 && significant < boundDigits.length() ? -1 : magnitude);
+				}
+				if (comparison < (anno.inclusive() ? 0 : 1)) {
+					throw new IllegalArgumentException(anno.message());
+				}
 			}
-		} catch (NumberFormatException nfe) {
-			// ignore
 		}
 	}
 
@@ -476,28 +695,60 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMax anno, byte value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Byte.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Byte.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		if (belowRange || !aboveRange && (orEqual ? value >= truncated : value > truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, short value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Short.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Short.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		if (belowRange || !aboveRange && (orEqual ? value >= truncated : value > truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, int value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) < 0;
+		int truncated = bound.intValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		if (belowRange || !aboveRange && (orEqual ? value >= truncated : value > truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, long value) {
-		if (new BigDecimal(value).compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
+		// folded at weave time to a single comparison, or none at all if the bound
+		// is out of the type's range
+		BigDecimal bound = new BigDecimal(anno.value());
+		boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+		boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+		long truncated = bound.longValue();
+		int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+		boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+		if (belowRange || !aboveRange && (orEqual ? value >= truncated : value > truncated)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -536,28 +787,117 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(DecimalMax anno, BigInteger value) {
-		if (value != null
-				&& new BigDecimal(value).compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the bound gets folded at weave time like for long, values not fitting into
+			// a long are decided by their signum unless the bound is out of long's range
+			BigDecimal bound = new BigDecimal(anno.value());
+			boolean aboveRange = bound.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+			boolean belowRange = bound.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0;
+			long truncated = bound.longValue();
+			int fraction = bound.compareTo(BigDecimal.valueOf(truncated));
+			boolean orEqual = anno.inclusive() ? fraction < 0 : fraction <= 0;
+			if (value.bitLength() < Long.SIZE) {
+				if (belowRange || !aboveRange && (orEqual ? value.longValue() >= truncated : value.longValue() > truncated)) {
+					throw new IllegalArgumentException(anno.message());
+				}
+			} else if (aboveRange || belowRange //
+					? new BigDecimal(value).compareTo(bound) > (anno.inclusive() ? 0 : -1) //
+					: value.signum() > 0) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, BigDecimal value) {
-		if (value != null && value.compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
-			throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// the signum decides unless value and bound have the same one
+			BigDecimal bound = new BigDecimal(anno.value());
+			int signum = value.signum();
+			if (signum != bound.signum() ? signum > bound.signum()
+					: value.compareTo(bound) > (anno.inclusive() ? 0 : -1)) {
+				throw new IllegalArgumentException(anno.message());
+			}
 		}
 	}
 
 	@Override
 	public void check(DecimalMax anno, CharSequence value) {
-		try {
-			if (value != null && new BigDecimal(String.valueOf(value))
-					.compareTo(new BigDecimal(anno.value())) > (anno.inclusive() ? 0 : -1)) {
-				throw new IllegalArgumentException(anno.message());
+		if (value != null) {
+			// gets folded at weave time
+			BigDecimal bound = new BigDecimal(anno.value()).stripTrailingZeros();
+			int boundSignum = bound.signum();
+			String boundDigits = bound.unscaledValue().abs().toString();
+			long boundExponent = (long) bound.precision() - bound.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			int signum = 0;
+			boolean negative = false;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+						signum = negative ? -1 : 1;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					negative = c == '-';
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int comparison = Integer.compare(signum, boundSignum);
+				if (comparison == 0 && signum != 0) {
+					// both are 0.d1d2... * 10^exponent, d1 being the first non zero digit
+					long valueExponent = (long) digits - fractionDigits - firstNonZero + exponent;
+					int magnitude = Long.compare(valueExponent, boundExponent);
+					int significant = -firstNonZero;
+					for (int i = 0; magnitude == 0 && i < end; i++) {
+						char c = value.charAt(i);
+						int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+						if (digit >= 0) {
+							if (significant >= 0) {
+								magnitude = Integer.compare(digit,
+										significant < boundDigits.length() ? boundDigits.charAt(significant) - '0' : 0);
+							}
+							significant++;
+						}
+					}
+					comparison = signum * (magnitude == 0 && significant < boundDigits.length() ? -1 : magnitude);
+				}
+				if (comparison > (anno.inclusive() ? 0 : -1)) {
+					throw new IllegalArgumentException(anno.message());
+				}
 			}
-		} catch (NumberFormatException nfe) {
-			// ignore
 		}
 	}
 
@@ -565,33 +905,48 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Digits anno, byte value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		if (length > anno.integer()) {
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 2; i++) {
+			tooLarge *= 10;
+		}
+		if (anno.integer() < 3 && (anno.integer() <= 0 || value >= tooLarge || value <= -tooLarge)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Digits anno, short value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		if (length > anno.integer()) {
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 4; i++) {
+			tooLarge *= 10;
+		}
+		if (anno.integer() < 5 && (anno.integer() <= 0 || value >= tooLarge || value <= -tooLarge)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Digits anno, int value) {
-		int length = (value == 0) ? 1 : (int) log10(abs(value)) + 1;
-		if (length > anno.integer()) {
+		// folded at weave time: the smallest value having too many digits
+		int tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 9; i++) {
+			tooLarge *= 10;
+		}
+		if (anno.integer() < 10 && (anno.integer() <= 0 || value >= tooLarge || value <= -tooLarge)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Digits anno, long value) {
-		long absValue = (value == Long.MIN_VALUE) ? -(value + 1) : abs(value);
-		int length = (value == 0) ? 1 : (int) Math.log10(absValue) + 1;
-		if (length > anno.integer()) {
+		// folded at weave time: the smallest value having too many digits
+		long tooLarge = 1;
+		for (int i = 0; i < anno.integer() && i < 18; i++) {
+			tooLarge *= 10;
+		}
+		if (anno.integer() < 19 && (anno.integer() <= 0 || value >= tooLarge || value <= -tooLarge)) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -640,8 +995,18 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Digits anno, BigInteger value) {
 		if (value != null) {
-			int length = value.toString().length();
-			if (length > anno.integer()) {
+			// values fitting into a long are checked like long (the smallest value having
+			// too many digits gets folded at weave time)
+			long tooLarge = 1;
+			for (int i = 0; i < anno.integer() && i < 18; i++) {
+				tooLarge *= 10;
+			}
+			if (value.bitLength() < Long.SIZE) {
+				if (anno.integer() < 19 && (anno.integer() <= 0 || value.longValue() >= tooLarge
+						|| value.longValue() <= -tooLarge)) {
+					throw new IllegalArgumentException(anno.message());
+				}
+			} else if (new BigDecimal(value).precision() > anno.integer()) {
 				throw new IllegalArgumentException(anno.message());
 			}
 		}
@@ -650,9 +1015,9 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Digits anno, BigDecimal value) {
 		if (value != null) {
-			int integerPartLength = value.precision() - value.scale();
-			int fractionPartLength = value.scale() < 0 ? 0 : value.scale();
-			if (integerPartLength > anno.integer() || fractionPartLength > anno.fraction()) {
+			// the scale is a field, the precision might have to be computed
+			int scale = value.scale();
+			if ((scale < 0 ? 0 : scale) > anno.fraction() || value.precision() - scale > anno.integer()) {
 				throw new IllegalArgumentException(anno.message());
 			}
 		}
@@ -661,15 +1026,56 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 	@Override
 	public void check(Digits anno, CharSequence value) {
 		if (value != null) {
-			try {
-				BigDecimal bigNum = new BigDecimal(value.toString());
-				int integerPartLength = bigNum.precision() - bigNum.scale();
-				int fractionPartLength = bigNum.scale() < 0 ? 0 : bigNum.scale();
+			// scanned in place like BigDecimal(char[]) parses it, values not parseable
+			// are ignored
+			int length = value.length();
+			int end = length;
+			int digits = 0;
+			int fractionDigits = 0;
+			int firstNonZero = -1;
+			boolean dot = false;
+			long exponent = 0;
+			int exponentDigits = 0;
+			boolean negativeExponent = false;
+			boolean valid = true;
+			for (int i = 0; valid && i < length; i++) {
+				char c = value.charAt(i);
+				int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+				if (i > end) {
+					if (i == end + 1 && (c == '-' || c == '+')) {
+						negativeExponent = c == '-';
+					} else {
+						// BigDecimal's exponent has to fit into an int
+						exponent = exponent * 10 + digit;
+						exponentDigits++;
+						valid = digit >= 0 && exponent <= 1L + Integer.MAX_VALUE;
+					}
+				} else if (digit >= 0) {
+					if (digit != 0 && firstNonZero < 0) {
+						firstNonZero = digits;
+					}
+					digits++;
+					fractionDigits += dot ? 1 : 0;
+				} else if (c == '.' && !dot) {
+					dot = true;
+				} else if (i == 0 && (c == '-' || c == '+')) {
+					// the sign doesn't matter
+				} else {
+					valid = c == 'e' || c == 'E';
+					end = i;
+				}
+			}
+			exponent = negativeExponent ? -exponent : exponent;
+			valid &= digits > 0 && (end == length || exponentDigits > 0) && exponent == (int) exponent
+					&& fractionDigits - exponent == (int) (fractionDigits - exponent);
+			if (valid) {
+				int precision = firstNonZero < 0 ? 1 : digits - firstNonZero;
+				int scale = (int) (fractionDigits - exponent);
+				int integerPartLength = precision - scale;
+				int fractionPartLength = scale < 0 ? 0 : scale;
 				if (integerPartLength > anno.integer() || fractionPartLength > anno.fraction()) {
 					throw new IllegalArgumentException(anno.message());
 				}
-			} catch (NumberFormatException e) {
-				// ignore
 			}
 		}
 	}
@@ -965,105 +1371,106 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Past anno, Date value) {
-		if (value != null && value.getTime() >= System.currentTimeMillis()) {
+		if (value != null && value.getTime() >= TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, Calendar value) {
-		if (value != null && value.getTimeInMillis() >= System.currentTimeMillis()) {
+		if (value != null && value.getTimeInMillis() >= TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, Instant value) {
-		if (value != null && !value.isBefore(Instant.now())) {
+		if (value != null && TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, LocalDate value) {
-		if (value != null && !value.isBefore(LocalDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, LocalDateTime value) {
-		if (value != null && !value.isBefore(LocalDateTime.now())) {
+		if (value != null && TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, LocalTime value) {
-		if (value != null && !value.isBefore(LocalTime.now())) {
+		if (value != null && TimeSource.compareToLocalTime(value.toNanoOfDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, MonthDay value) {
-		if (value != null && !value.isBefore(MonthDay.now())) {
+		if (value != null && TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, OffsetDateTime value) {
-		if (value != null && !value.isBefore(OffsetDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, Year value) {
-		if (value != null && !value.isBefore(Year.now())) {
+		if (value != null && TimeSource.compareToYear(value.getValue()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, YearMonth value) {
-		if (value != null && !value.isBefore(YearMonth.now())) {
+		if (value != null && TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, ZonedDateTime value) {
-		if (value != null && !value.isBefore(ZonedDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, HijrahDate value) {
-		if (value != null && !value.isBefore(HijrahDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, JapaneseDate value) {
-		if (value != null && !value.isBefore(JapaneseDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, MinguoDate value) {
-		if (value != null && !value.isBefore(MinguoDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Past anno, ThaiBuddhistDate value) {
-		if (value != null && !value.isBefore(ThaiBuddhistDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) >= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -1072,105 +1479,106 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(PastOrPresent anno, Date value) {
-		if (value != null && value.getTime() > System.currentTimeMillis()) {
+		if (value != null && value.getTime() > TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Calendar value) {
-		if (value != null && value.getTimeInMillis() > System.currentTimeMillis()) {
+		if (value != null && value.getTimeInMillis() > TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Instant value) {
-		if (value != null && value.isAfter(Instant.now())) {
+		if (value != null && TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalDate value) {
-		if (value != null && value.isAfter(LocalDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalDateTime value) {
-		if (value != null && value.isAfter(LocalDateTime.now())) {
+		if (value != null && TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, LocalTime value) {
-		if (value != null && value.isAfter(LocalTime.now())) {
+		if (value != null && TimeSource.compareToLocalTime(value.toNanoOfDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, MonthDay value) {
-		if (value != null && value.isAfter(MonthDay.now())) {
+		if (value != null && TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, OffsetDateTime value) {
-		if (value != null && value.isAfter(OffsetDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, Year value) {
-		if (value != null && value.isAfter(Year.now())) {
+		if (value != null && TimeSource.compareToYear(value.getValue()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, YearMonth value) {
-		if (value != null && value.isAfter(YearMonth.now())) {
+		if (value != null && TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, ZonedDateTime value) {
-		if (value != null && value.isAfter(ZonedDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, HijrahDate value) {
-		if (value != null && value.isAfter(HijrahDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, JapaneseDate value) {
-		if (value != null && value.isAfter(JapaneseDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, MinguoDate value) {
-		if (value != null && value.isAfter(MinguoDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(PastOrPresent anno, ThaiBuddhistDate value) {
-		if (value != null && value.isAfter(ThaiBuddhistDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) > 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -1179,105 +1587,106 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(Future anno, Date value) {
-		if (value != null && value.getTime() <= System.currentTimeMillis()) {
+		if (value != null && value.getTime() <= TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, Calendar value) {
-		if (value != null && value.getTimeInMillis() <= System.currentTimeMillis()) {
+		if (value != null && value.getTimeInMillis() <= TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, Instant value) {
-		if (value != null && !value.isAfter(Instant.now())) {
+		if (value != null && TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, LocalDate value) {
-		if (value != null && !value.isAfter(LocalDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, LocalDateTime value) {
-		if (value != null && !value.isAfter(LocalDateTime.now())) {
+		if (value != null && TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, LocalTime value) {
-		if (value != null && !value.isAfter(LocalTime.now())) {
+		if (value != null && TimeSource.compareToLocalTime(value.toNanoOfDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, MonthDay value) {
-		if (value != null && !value.isAfter(MonthDay.now())) {
+		if (value != null && TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, OffsetDateTime value) {
-		if (value != null && !value.isAfter(OffsetDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, Year value) {
-		if (value != null && !value.isAfter(Year.now())) {
+		if (value != null && TimeSource.compareToYear(value.getValue()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, YearMonth value) {
-		if (value != null && !value.isAfter(YearMonth.now())) {
+		if (value != null && TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, ZonedDateTime value) {
-		if (value != null && !value.isAfter(ZonedDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, HijrahDate value) {
-		if (value != null && !value.isAfter(HijrahDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, JapaneseDate value) {
-		if (value != null && !value.isAfter(JapaneseDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, MinguoDate value) {
-		if (value != null && !value.isAfter(MinguoDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(Future anno, ThaiBuddhistDate value) {
-		if (value != null && !value.isAfter(ThaiBuddhistDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) <= 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
@@ -1286,105 +1695,106 @@ public class JdkOnlyCodeFragment implements Jsr380CodeFragment {
 
 	@Override
 	public void check(FutureOrPresent anno, Date value) {
-		if (value != null && value.getTime() < System.currentTimeMillis()) {
+		if (value != null && value.getTime() < TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Calendar value) {
-		if (value != null && value.getTimeInMillis() < System.currentTimeMillis()) {
+		if (value != null && value.getTimeInMillis() < TimeSource.millis()) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Instant value) {
-		if (value != null && value.isBefore(Instant.now())) {
+		if (value != null && TimeSource.compareToNow(value.getEpochSecond(), value.getNano()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalDate value) {
-		if (value != null && value.isBefore(LocalDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalDateTime value) {
-		if (value != null && value.isBefore(LocalDateTime.now())) {
+		if (value != null && TimeSource.compareToLocalNow(value.toLocalDate().toEpochDay(),
+				value.toLocalTime().toNanoOfDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, LocalTime value) {
-		if (value != null && value.isBefore(LocalTime.now())) {
+		if (value != null && TimeSource.compareToLocalTime(value.toNanoOfDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, MonthDay value) {
-		if (value != null && value.isBefore(MonthDay.now())) {
+		if (value != null && TimeSource.compareToMonthDay(value.getMonthValue(), value.getDayOfMonth()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, OffsetDateTime value) {
-		if (value != null && value.isBefore(OffsetDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, Year value) {
-		if (value != null && value.isBefore(Year.now())) {
+		if (value != null && TimeSource.compareToYear(value.getValue()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, YearMonth value) {
-		if (value != null && value.isBefore(YearMonth.now())) {
+		if (value != null && TimeSource.compareToYearMonth(value.getYear(), value.getMonthValue()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, ZonedDateTime value) {
-		if (value != null && value.isBefore(ZonedDateTime.now())) {
+		if (value != null && TimeSource.compareToNow(value.toEpochSecond(), value.getNano()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, HijrahDate value) {
-		if (value != null && value.isBefore(HijrahDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, JapaneseDate value) {
-		if (value != null && value.isBefore(JapaneseDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, MinguoDate value) {
-		if (value != null && value.isBefore(MinguoDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
 
 	@Override
 	public void check(FutureOrPresent anno, ThaiBuddhistDate value) {
-		if (value != null && value.isBefore(ThaiBuddhistDate.now())) {
+		if (value != null && TimeSource.compareToToday(value.toEpochDay()) < 0) {
 			throw new IllegalArgumentException(anno.message());
 		}
 	}
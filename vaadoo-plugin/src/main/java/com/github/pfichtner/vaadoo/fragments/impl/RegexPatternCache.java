@@ -1,20 +1,29 @@
 package com.github.pfichtner.vaadoo.fragments.impl;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 @SuppressWarnings("unused")
 public final class RegexPatternCache {
 
-	private static Map<String, Pattern> cache;
+	private static volatile Map<String, Pattern> cache;
 
-	private static synchronized Pattern cache(String regex) {
-		// this is a workaround to prevent merging of clinits 
-		if (cache == null) {
-			cache = new HashMap<>();
+	private static Pattern cache(String regex) {
+		// this is a workaround to prevent merging of clinits, if two threads race here
+		// one of the maps gets lost which only costs a recompile
+		Map<String, Pattern> patterns = cache;
+		if (patterns == null) {
+			cache = patterns = new ConcurrentHashMap<>();
 		}
-		return cache.computeIfAbsent(regex, Pattern::compile);
+		// reads are lock-free, the pattern is compiled outside of any lock
+		Pattern pattern = patterns.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+			Pattern existing = patterns.putIfAbsent(regex, pattern);
+			return existing == null ? pattern : existing;
+		}
+		return pattern;
 	}
 
 }
@@ -1,23 +1,36 @@
 package com.github.pfichtner.vaadoo.fragments.impl;
 
-import static java.util.regex.Pattern.compile;
-
-import java.util.AbstractMap.SimpleEntry;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 @SuppressWarnings("unused")
 public final class RegexWithFlagsPatternCache {
 
-	private static Map<SimpleEntry<String, Integer>, Pattern> cache;
+	private static volatile Map<Integer, Map<String, Pattern>> cache;
 
-	private static synchronized Pattern cache(String regex, int flags) {
-		// this is a workaround to prevent merging of clinits
-		if (cache == null) {
-			cache = new HashMap<>();
+	private static Pattern cache(String regex, int flags) {
+		// this is a workaround to prevent merging of clinits, if two threads race here
+		// one of the maps gets lost which only costs a recompile
+		Map<Integer, Map<String, Pattern>> patternsByFlags = cache;
+		if (patternsByFlags == null) {
+			cache = patternsByFlags = new ConcurrentHashMap<>();
+		}
+		// keyed by flags first so the lookup does not need to allocate a compound key
+		Map<String, Pattern> patterns = patternsByFlags.get(flags);
+		if (patterns == null) {
+			patterns = new ConcurrentHashMap<>();
+			Map<String, Pattern> existing = patternsByFlags.putIfAbsent(flags, patterns);
+			patterns = existing == null ? patterns : existing;
+		}
+		// reads are lock-free, the pattern is compiled outside of any lock
+		Pattern pattern = patterns.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex, flags);
+			Pattern existing = patterns.putIfAbsent(regex, pattern);
+			return existing == null ? pattern : existing;
 		}
-		return cache.computeIfAbsent(new SimpleEntry<>(regex, flags), e -> compile(e.getKey(), e.getValue()));
+		return pattern;
 	}
 
 }
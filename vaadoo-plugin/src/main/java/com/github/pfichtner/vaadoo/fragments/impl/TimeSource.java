@@ -0,0 +1,118 @@
+package com.github.pfichtner.vaadoo.fragments.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * The time the temporal constraints are checked against. The methods (and the
+ * field) get copied into each woven class calling them, so the woven classes
+ * don't depend on vaadoo. "now" is the millisecond ticker
+ * <code>System.currentTimeMillis()</code>, everything derived from it in the
+ * default zone (today, the zone's offset) gets cached until the day ends or
+ * the offset changes, so the checks are comparisons of longs. If
+ * <code>vaadoo.clock</code> is configured the ticker and the zone are taken
+ * from that {@link java.time.Clock} instead (e.g. a fixed one in tests), a
+ * change of the clock's zone invalidates the cache.
+ * <p>
+ * All comparisons return what <code>value.compareTo(now)</code> would.
+ */
+public final class TimeSource {
+
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+
+	// {zone, {valid from, valid until, offset, epoch day, year, month, day of
+	// month}}, the millis are those of the ticker
+	private static volatile Object[] today;
+
+	public static long millis() {
+		return System.currentTimeMillis();
+	}
+
+	public static int compareToNow(long epochSecond, int nano) {
+		return compare(epochSecond, nano, millis());
+	}
+
+	public static int compareToLocalNow(long epochDay, long nanoOfDay) {
+		long millis = millis();
+		long local = millis + today(millis)[2];
+		int days = Long.compare(epochDay, Math.floorDiv(local, MILLIS_PER_DAY));
+		return days != 0 ? days : Long.compare(nanoOfDay, Math.floorMod(local, MILLIS_PER_DAY) * 1_000_000L);
+	}
+
+	public static int compareToLocalTime(long nanoOfDay) {
+		long millis = millis();
+		return Long.compare(nanoOfDay, Math.floorMod(millis + today(millis)[2], MILLIS_PER_DAY) * 1_000_000L);
+	}
+
+	public static int compareToToday(long epochDay) {
+		return Long.compare(epochDay, today(millis())[3]);
+	}
+
+	public static int compareToYear(int year) {
+		return Long.compare(year, today(millis())[4]);
+	}
+
+	public static int compareToYearMonth(int year, int month) {
+		long[] today = today(millis());
+		int years = Long.compare(year, today[4]);
+		return years != 0 ? years : Long.compare(month, today[5]);
+	}
+
+	public static int compareToMonthDay(int month, int dayOfMonth) {
+		long[] today = today(millis());
+		int months = Long.compare(month, today[5]);
+		return months != 0 ? months : Long.compare(dayOfMonth, today[6]);
+	}
+
+	private static int compare(long epochSecond, int nano, long millis) {
+		int seconds = Long.compare(epochSecond, Math.floorDiv(millis, 1000L));
+		return seconds != 0 ? seconds : Long.compare(nano, Math.floorMod(millis, 1000L) * 1_000_000L);
+	}
+
+	/**
+	 * The zone of <code>vaadoo.clock</code>, the calls get replaced by
+	 * <code>clock().getZone()</code>. Without a clock the default zone is not
+	 * checked on each call (<code>TimeZone.getDefault()</code> clones it), a change
+	 * (<code>TimeZone.setDefault</code>) is picked up when the day ends or the
+	 * offset changes.
+	 */
+	private static ZoneId clockZone() {
+		return null;
+	}
+
+	private static long[] today(long millis) {
+		ZoneId zone = clockZone();
+		Object[] cached = today;
+		if (cached == null || zone != null && !zone.equals(cached[0]) || millis < ((long[]) cached[1])[0]
+				|| millis >= ((long[]) cached[1])[1]) {
+			zone = zone == null ? ZoneId.systemDefault() : zone;
+			today = cached = new Object[] { zone, newToday(millis, zone) };
+		}
+		return (long[]) cached[1];
+	}
+
+	private static long[] newToday(long millis, ZoneId zone) {
+		Instant instant = Instant.ofEpochMilli(millis);
+		LocalDate date = instant.atZone(zone).toLocalDate();
+		long from = date.atStartOfDay(zone).toInstant().toEpochMilli();
+		long until = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+		// the offset has to be the same for all the millis cached
+		ZoneRules rules = zone.getRules();
+		for (ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(from - 1)); //
+				transition != null && transition.toEpochSecond() * 1000L < until; //
+				transition = rules.nextTransition(transition.getInstant())) {
+			long at = transition.toEpochSecond() * 1000L;
+			if (at > millis) {
+				until = at;
+			} else {
+				from = at;
+			}
+		}
+		return new long[] { from, until, rules.getOffset(instant).getTotalSeconds() * 1000L, date.toEpochDay(),
+				date.getYear(), date.getMonthValue(), date.getDayOfMonth() };
+	}
+
+}
@@ -1,7 +1,9 @@
 package com.github.pfichtner.vaadoo;
 
 import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.lang.reflect.Modifier.isFinal;
 import static java.lang.reflect.Modifier.isPublic;
+import static java.lang.reflect.Modifier.isStatic;
 import static java.util.Collections.singletonMap;
 import static org.approvaltests.Approvals.verify;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,7 +18,11 @@ import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.approvaltests.core.Options;
@@ -30,11 +36,18 @@ import com.example.SomeClass;
 import com.example.SomeLombokClass;
 import com.example.SomeRecord;
 import com.example.custom.ClassWithFizzNumber;
+import com.example.custom.FizzBuzzNumber;
 
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.build.Plugin;
 import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.pool.TypePool;
 
 class AddJsr380ValidationPluginTest {
 
@@ -65,6 +78,127 @@ class AddJsr380ValidationPluginTest {
 		verify(toJasmin(ClassWithFizzNumber.class), options());
 	}
 
+	static class ConstrainedType {
+		ConstrainedType(String unconstrained, @NotNull Object constrained) {
+		}
+	}
+
+	static class CustomConstrainedType {
+		CustomConstrainedType(@FizzBuzzNumber Integer constrained) {
+		}
+	}
+
+	static class UnconstrainedType {
+		UnconstrainedType(@Deprecated Object notAConstraint) {
+		}
+	}
+
+	@Test
+	void matchesOnlyTypesHavingConstrainedConstructorParameters() throws Exception {
+		try (AddJsr380ValidationPlugin sut = new AddJsr380ValidationPlugin()) {
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(ConstrainedType.class))).isTrue();
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(CustomConstrainedType.class))).isTrue();
+
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(UnconstrainedType.class))).isFalse();
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(Object.class))).isFalse();
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(Runnable.class))).isFalse();
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(FizzBuzzNumber.class))).isFalse();
+			assertThat(sut.matches(TypeDescription.ForLoadedType.of(TimeUnit.class))).isFalse();
+		}
+	}
+
+	static boolean userTypeInitialized;
+
+	static class UserType {
+		static {
+			userTypeInitialized = true;
+		}
+	}
+
+	static class ConstrainedByUserType {
+		ConstrainedByUserType(@NotNull UserType userType) {
+		}
+	}
+
+	@Test
+	void weavingDoesNotInitializeUserTypes() throws Exception {
+		var classFileLocator = ClassFileLocator.ForClassLoader.ofSystemLoader();
+		var typeDescription = TypePool.Default.of(classFileLocator).describe(ConstrainedByUserType.class.getName())
+				.resolve();
+		try (AddJsr380ValidationPlugin sut = new AddJsr380ValidationPlugin()) {
+			var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+			sut.apply(builder, typeDescription, classFileLocator).make();
+		}
+		assertThat(userTypeInitialized).isFalse();
+	}
+
+	public static class TypeWithStaticInitializer {
+
+		public static final List<String> INITIALIZED = new ArrayList<>(List.of("initialized"));
+
+		public TypeWithStaticInitializer(@Pattern(regexp = "\\d+") String digits, @Email String mail) {
+		}
+
+	}
+
+	@Test
+	void constantPatternsGetInitializedInExistingStaticInitializer() throws Exception {
+		try (AddJsr380ValidationPlugin sut = new AddJsr380ValidationPlugin()) {
+			// the test classes are not woven, so the woven class has to be loaded child first
+			var clazz = TypeWithStaticInitializer.class;
+			var bytes = sut.apply(new ByteBuddy().redefine(clazz), TypeDescription.ForLoadedType.of(clazz), null)
+					.make().getBytes();
+			var transformed = new ByteArrayClassLoader.ChildFirst(getSystemClassLoader(),
+					singletonMap(clazz.getName(), bytes)).loadClass(clazz.getName());
+			assertThat(transformed.getField("INITIALIZED").get(null)).isEqualTo(List.of("initialized"));
+			assertThat(transformed.getDeclaredFields()).filteredOn(f -> f.getType() == java.util.regex.Pattern.class)
+					.isNotEmpty().allMatch(f -> isStatic(f.getModifiers()) && isFinal(f.getModifiers()));
+			assertThat(transformed.getDeclaredMethods()).noneMatch(m -> m.getName().startsWith("cache"));
+
+			var constructor = firstPublicConstructor(transformed);
+			constructor.newInstance("42", "someone@example.com");
+			assertThatExceptionOfType(InvocationTargetException.class)
+					.isThrownBy(() -> constructor.newInstance("4x2", "someone@example.com")).havingCause()
+					.withMessageContaining("must match");
+			assertThatExceptionOfType(InvocationTargetException.class)
+					.isThrownBy(() -> constructor.newInstance("42", "someone")).havingCause()
+					.withMessageContaining("must be a well-formed email address");
+		}
+	}
+
+	public static class AmountWithStaticInitializer {
+
+		public static final List<String> INITIALIZED = new ArrayList<>(List.of("initialized"));
+
+		public AmountWithStaticInitializer(@DecimalMin("0.01") BigDecimal amount,
+				@Pattern(regexp = "\\d+") String digits) {
+		}
+
+	}
+
+	@Test
+	void constantBoundsGetInitializedInExistingStaticInitializer() throws Exception {
+		try (AddJsr380ValidationPlugin sut = new AddJsr380ValidationPlugin()) {
+			var clazz = AmountWithStaticInitializer.class;
+			var bytes = sut.apply(new ByteBuddy().redefine(clazz), TypeDescription.ForLoadedType.of(clazz), null)
+					.make().getBytes();
+			var transformed = new ByteArrayClassLoader.ChildFirst(getSystemClassLoader(),
+					singletonMap(clazz.getName(), bytes)).loadClass(clazz.getName());
+			assertThat(transformed.getField("INITIALIZED").get(null)).isEqualTo(List.of("initialized"));
+			assertThat(transformed.getDeclaredFields()).filteredOn(f -> f.getType() == BigDecimal.class)
+					.hasSize(1).allMatch(f -> isStatic(f.getModifiers()) && isFinal(f.getModifiers()));
+
+			var constructor = firstPublicConstructor(transformed);
+			constructor.newInstance(new BigDecimal("0.01"), "42");
+			assertThatExceptionOfType(InvocationTargetException.class)
+					.isThrownBy(() -> constructor.newInstance(new BigDecimal("0.009"), "42")).havingCause()
+					.withMessageContaining("must be greater than");
+			assertThatExceptionOfType(InvocationTargetException.class)
+					.isThrownBy(() -> constructor.newInstance(BigDecimal.ONE, "4x2")).havingCause()
+					.withMessageContaining("must match");
+		}
+	}
+
 	private static Object[] defaultArgs(Parameter[] parameters) {
 		Object[] objects = new Object[parameters.length];
 		for (int i = 0; i < parameters.length; i++) {
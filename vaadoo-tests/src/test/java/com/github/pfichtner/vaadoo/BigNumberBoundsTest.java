@@ -0,0 +1,154 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.casted;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static java.lang.reflect.Modifier.isFinal;
+import static java.lang.reflect.Modifier.isStatic;
+import static java.util.Arrays.stream;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.From;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.IntRange;
+
+/**
+ * The checks of BigIntegers and BigDecimals decide most values by their
+ * signum, bitLength or scale but have to accept and reject exactly the values a
+ * comparison of BigDecimals would.
+ */
+class BigNumberBoundsTest {
+
+	static final String MESSAGE = "out of range";
+
+	@Property(tries = 500)
+	void min(@ForAll boolean guava, @ForAll boolean bigInteger, @ForAll @From("longs") long bound,
+			@ForAll @From("values") BigDecimal value) throws Exception {
+		var number = number(bigInteger, value);
+		assertThat(rejects(guava, Min.class, Map.of("value", bound, "message", MESSAGE), number))
+				.describedAs("%s < %s", number, bound).isEqualTo(compare(number, BigDecimal.valueOf(bound)) < 0);
+	}
+
+	@Property(tries = 500)
+	void max(@ForAll boolean guava, @ForAll boolean bigInteger, @ForAll @From("longs") long bound,
+			@ForAll @From("values") BigDecimal value) throws Exception {
+		var number = number(bigInteger, value);
+		assertThat(rejects(guava, Max.class, Map.of("value", bound, "message", MESSAGE), number))
+				.describedAs("%s > %s", number, bound).isEqualTo(compare(number, BigDecimal.valueOf(bound)) > 0);
+	}
+
+	@Property(tries = 500)
+	void decimalMin(@ForAll boolean guava, @ForAll boolean bigInteger, @ForAll @From("bounds") String bound,
+			@ForAll boolean inclusive, @ForAll @From("values") BigDecimal value) throws Exception {
+		var number = number(bigInteger, value);
+		var expected = compare(number, new BigDecimal(bound)) < (inclusive ? 0 : 1);
+		assertThat(rejects(guava, DecimalMin.class,
+				Map.of("value", bound, "inclusive", inclusive, "message", MESSAGE), number))
+				.describedAs("%s < %s", number, bound).isEqualTo(expected);
+	}
+
+	@Property(tries = 500)
+	void decimalMax(@ForAll boolean guava, @ForAll boolean bigInteger, @ForAll @From("bounds") String bound,
+			@ForAll boolean inclusive, @ForAll @From("values") BigDecimal value) throws Exception {
+		var number = number(bigInteger, value);
+		var expected = compare(number, new BigDecimal(bound)) > (inclusive ? 0 : -1);
+		assertThat(rejects(guava, DecimalMax.class,
+				Map.of("value", bound, "inclusive", inclusive, "message", MESSAGE), number))
+				.describedAs("%s > %s", number, bound).isEqualTo(expected);
+	}
+
+	@Property(tries = 500)
+	void digits(@ForAll boolean guava, @ForAll boolean bigInteger, @ForAll @IntRange(max = 25) int integer,
+			@ForAll @IntRange(max = 3) int fraction, @ForAll @From("values") BigDecimal value) throws Exception {
+		var number = number(bigInteger, value);
+		var bigDecimal = new BigDecimal(number.toString());
+		var expected = bigDecimal.precision() - bigDecimal.scale() > integer
+				|| Math.max(bigDecimal.scale(), 0) > fraction;
+		assertThat(rejects(guava, Digits.class,
+				Map.of("integer", integer, "fraction", fraction, "message", MESSAGE), number))
+				.describedAs("%s %d.%d", number, integer, fraction).isEqualTo(expected);
+	}
+
+	@Example
+	void boundsAreCreatedOnce() throws Exception {
+		var woven = transform(dynamicClass(config() //
+				.withEntry(entry(BigDecimal.class, "amount", null).withAnno(DecimalMin.class, Map.of("value", "0.01"))) //
+				.withEntry(entry(BigDecimal.class, "fee", null).withAnno(DecimalMax.class, Map.of("value", "0.01")))));
+		assertThat(stream(woven.getDeclaredFields()).filter(BigNumberBoundsTest::isConstant)
+				.map(Field::getType)).containsExactly(BigDecimal.class);
+	}
+
+	@Provide
+	Arbitrary<Long> longs() {
+		return Arbitraries.oneOf(Arbitraries.longs().between(-5, 5), Arbitraries.longs(),
+				Arbitraries.of(Long.MIN_VALUE, Long.MAX_VALUE));
+	}
+
+	@Provide
+	Arbitrary<String> bounds() {
+		return Arbitraries.of("0", "-0.0", "1.5", "-1.5", "100", "1e2", "0.01", "9223372036854775807",
+				"9223372036854775807.5", "-9223372036854775808", "-9223372036854775808.5", "1e30", "-1e30", "1e-30");
+	}
+
+	@Provide
+	Arbitrary<BigDecimal> values() {
+		var unscaled = Arbitraries.oneOf(Arbitraries.longs().between(-200, 200).map(BigInteger::valueOf),
+				Arbitraries.longs().map(BigInteger::valueOf), Arbitraries.bigIntegers()
+						.between(BigInteger.TEN.pow(30).negate(), BigInteger.TEN.pow(30)),
+				Arbitraries.of(Long.MIN_VALUE, Long.MAX_VALUE).map(BigInteger::valueOf)
+						.flatMap(l -> Arbitraries.of(l, l.add(BigInteger.ONE), l.subtract(BigInteger.ONE))));
+		return unscaled.flatMap(u -> Arbitraries.integers().between(-3, 3).map(s -> new BigDecimal(u, s)));
+	}
+
+	private static Number number(boolean bigInteger, BigDecimal value) {
+		return bigInteger ? value.toBigInteger() : value;
+	}
+
+	private static int compare(Number value, BigDecimal bound) {
+		return new BigDecimal(value.toString()).compareTo(bound);
+	}
+
+	private static boolean isConstant(Field field) {
+		return isStatic(field.getModifiers()) && isFinal(field.getModifiers());
+	}
+
+	private static boolean rejects(boolean guava, Class<? extends Annotation> anno, Map<String, Object> annoValues,
+			Number value) throws Exception {
+		var woven = transform(dynamicClass(configWith(anno, annoValues, value.getClass(), null)),
+				guava ? GuavaCodeFragment.class : JdkOnlyCodeFragment.class);
+		var outcome = provideExecException(woven, configWith(anno, annoValues, value.getClass(), value));
+		outcome.filter(e -> !MESSAGE.equals(e.getMessage())).ifPresent(e -> {
+			throw new AssertionError(e);
+		});
+		return outcome.isPresent();
+	}
+
+	private static Config configWith(Class<? extends Annotation> anno, Map<String, Object> annoValues,
+			Class<?> type, Number value) {
+		return config().withEntry(entry(casted(type, Object.class), "param", value).withAnno(anno, annoValues));
+	}
+
+}
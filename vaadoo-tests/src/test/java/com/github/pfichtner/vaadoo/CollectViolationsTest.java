@@ -0,0 +1,129 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.VaadooOptions.COLLECT_VIOLATIONS;
+import static com.github.pfichtner.vaadoo.VaadooOptions.STACKLESS_EXCEPTIONS;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.custom.FizzBuzzNumber;
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+class CollectViolationsTest {
+
+	static final String CLASSNAME = "com.example.GeneratedTestClass";
+	static final Map<String, String> COLLECT = Map.of(COLLECT_VIOLATIONS, "true");
+
+	@ParameterizedTest
+	@ValueSource(classes = { JdkOnlyCodeFragment.class, GuavaCodeFragment.class })
+	void allViolationsAreReportedAtOnce(Class<? extends Jsr380CodeFragment> fragment) throws Exception {
+		var nickname = entry(String.class, "nickname", " ").withAnno(NotBlank.class);
+		var code = entry(String.class, "code", "ab").withAnno(Size.class, Map.of("min", 3));
+		var mail = entry(String.class, "mail", "no mail").withAnno(Email.class);
+		var age = entry(Integer.class, "age", 17).withAnno(Min.class, Map.of("value", 18L));
+		var config = config().withEntry(nickname).withEntry(code) //
+				.withEntry(entry(String.class, "name", "Jane").withAnno(NotBlank.class)) //
+				.withEntry(mail).withEntry(age);
+
+		var thrown = provideExecException(weave(fragment, config, COLLECT), config).orElseThrow();
+
+		assertThat(thrown).isExactlyInstanceOf(IllegalArgumentException.class)
+				.hasMessage(String.join(", ", failFastMessage(fragment, config().withEntry(nickname)),
+						failFastMessage(fragment, config().withEntry(code)),
+						failFastMessage(fragment, config().withEntry(mail)),
+						failFastMessage(fragment, config().withEntry(age))));
+	}
+
+	@Test
+	void customConstraintsAreCollectedToo() throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Integer.class, "number", 7).withAnno(FizzBuzzNumber.class));
+		var thrown = provideExecException(weave(JdkOnlyCodeFragment.class, config, COLLECT), config).orElseThrow();
+		assertThat(thrown).isExactlyInstanceOf(IllegalArgumentException.class);
+		assertThat(thrown.getMessage().split(", ")).hasSize(2);
+	}
+
+	@Test
+	void nullsAreStillRejectedImmediately() throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Object.class, "ref", null).withAnno(NotNull.class));
+		assertThat(provideExecException(weave(JdkOnlyCodeFragment.class, config, COLLECT), config).orElseThrow())
+				.isExactlyInstanceOf(NullPointerException.class).hasMessage("ref must not be null");
+	}
+
+	@ParameterizedTest
+	@ValueSource(classes = { JdkOnlyCodeFragment.class, GuavaCodeFragment.class })
+	void validValuesAreAccepted(Class<? extends Jsr380CodeFragment> fragment) throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "nickname", "JJ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Integer.class, "age", 42).withAnno(Min.class, Map.of("value", 18L)));
+		assertThat(provideExecException(weave(fragment, config, COLLECT), config)).isEmpty();
+	}
+
+	@Test
+	void failFastIsTheDefault() throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Integer.class, "age", 17).withAnno(Min.class, Map.of("value", 18L)));
+		assertThat(provideExecException(weave(JdkOnlyCodeFragment.class, config, Map.of()), config).orElseThrow())
+				.hasMessage("nickname must not be blank");
+	}
+
+	@Test
+	void takesPrecedenceOverStacklessExceptions() throws Exception {
+		var config = config().withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class));
+		var options = Map.of(COLLECT_VIOLATIONS, "true", STACKLESS_EXCEPTIONS, "true");
+		assertThat(provideExecException(weave(JdkOnlyCodeFragment.class, config, options), config).orElseThrow())
+				.isExactlyInstanceOf(IllegalArgumentException.class).hasMessage("nickname must not be blank");
+	}
+
+	private static String failFastMessage(Class<? extends Jsr380CodeFragment> fragment, Config config)
+			throws Exception {
+		return provideExecException(weave(fragment, config, Map.of()), config).orElseThrow().getMessage();
+	}
+
+	private static Class<?> weave(Class<? extends Jsr380CodeFragment> fragment, Config config,
+			Map<String, String> options) throws Exception {
+		return new ByteArrayClassLoader(getSystemClassLoader(), transform(fragment, config, options))
+				.loadClass(CLASSNAME);
+	}
+
+	private static Map<String, byte[]> transform(Class<? extends Jsr380CodeFragment> fragment, Config config,
+			Map<String, String> options) throws Exception {
+		var dynamicClass = dynamicClass(config);
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		try (var plugin = new AddJsr380ValidationPlugin(fragment, VaadooOptions.of(options))) {
+			var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+			return plugin.apply(builder, typeDescription, classFileLocator).make().getAllTypes().entrySet().stream()
+					.collect(toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.From;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.Chars;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.StringLength;
+
+/**
+ * DecimalMin, DecimalMax and Digits on CharSequences don't parse the value to a
+ * BigDecimal but have to accept and reject exactly the same values.
+ */
+class DecimalCharSequenceTest {
+
+	static final String MESSAGE = "out of range";
+
+	@Property(tries = 300)
+	void decimalMin(@ForAll boolean guava, @ForAll @From("bounds") String bound, @ForAll boolean inclusive,
+			@ForAll @StringLength(max = 8) @Chars({ '0', '1', '5', '9', '.', '-', '+', 'e', 'E', '٣', 'x' }) String value)
+			throws Exception {
+		var annoValues = Map.<String, Object>of("value", bound, "inclusive", inclusive, "message", MESSAGE);
+		var expected = compare(value, bound).filter(c -> c < (inclusive ? 0 : 1)).isPresent();
+		assertThat(rejects(guava, DecimalMin.class, annoValues, value)).describedAs(value).isEqualTo(expected);
+	}
+
+	@Property(tries = 300)
+	void decimalMax(@ForAll boolean guava, @ForAll @From("bounds") String bound, @ForAll boolean inclusive,
+			@ForAll @StringLength(max = 8) @Chars({ '0', '1', '5', '9', '.', '-', '+', 'e', 'E', '٣', 'x' }) String value)
+			throws Exception {
+		var annoValues = Map.<String, Object>of("value", bound, "inclusive", inclusive, "message", MESSAGE);
+		var expected = compare(value, bound).filter(c -> c > (inclusive ? 0 : -1)).isPresent();
+		assertThat(rejects(guava, DecimalMax.class, annoValues, value)).describedAs(value).isEqualTo(expected);
+	}
+
+	@Property(tries = 300)
+	void digits(@ForAll boolean guava, @ForAll @IntRange(max = 3) int integer, @ForAll @IntRange(max = 3) int fraction,
+			@ForAll @StringLength(max = 8) @Chars({ '0', '1', '9', '.', '-', 'e', '٣', 'x' }) String value)
+			throws Exception {
+		var annoValues = Map.<String, Object>of("integer", integer, "fraction", fraction, "message", MESSAGE);
+		assertThat(rejects(guava, Digits.class, annoValues, value)).describedAs(value)
+				.isEqualTo(digitsExceeded(value, integer, fraction));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "1e2147483647", "1e2147483648", "1e-2147483648", "1e-2147483649", "0.1e-2147483647",
+			"1.5e+00000000000000001", "1e12345678901", "1e", "1e+", "e1", ".", "-.5", "+", "1..5", "٣.5",
+			"00000000000000000000000000001.5", "1.50000000000000000000000000001" })
+	void edgeCases(String value) throws Exception {
+		for (boolean guava : new boolean[] { false, true }) {
+			assertThat(rejects(guava, DecimalMin.class, Map.of("value", "1.5", "message", MESSAGE), value))
+					.describedAs(value).isEqualTo(compare(value, "1.5").filter(c -> c < 0).isPresent());
+			assertThat(rejects(guava, DecimalMax.class, Map.of("value", "1.5", "message", MESSAGE), value))
+					.describedAs(value).isEqualTo(compare(value, "1.5").filter(c -> c > 0).isPresent());
+			assertThat(rejects(guava, Digits.class, Map.of("integer", 1, "fraction", 1, "message", MESSAGE), value))
+					.describedAs(value).isEqualTo(digitsExceeded(value, 1, 1));
+		}
+	}
+
+	@Provide
+	Arbitrary<String> bounds() {
+		return Arbitraries.of("0", "-0.0", "1.5", "-1.5", "150", "1.5e2", "0.015", "-99", "1e-3", "10");
+	}
+
+	private static Optional<Integer> compare(String value, String bound) {
+		try {
+			return Optional.of(new BigDecimal(value).compareTo(new BigDecimal(bound)));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static boolean digitsExceeded(String value, int integer, int fraction) {
+		try {
+			var bigDecimal = new BigDecimal(value);
+			int fractionPartLength = bigDecimal.scale() < 0 ? 0 : bigDecimal.scale();
+			return bigDecimal.precision() - bigDecimal.scale() > integer || fractionPartLength > fraction;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static boolean rejects(boolean guava, Class<? extends Annotation> anno, Map<String, Object> annoValues,
+			String value) throws Exception {
+		var woven = transform(dynamicClass(configWith(anno, annoValues, "")),
+				guava ? GuavaCodeFragment.class : JdkOnlyCodeFragment.class);
+		var outcome = provideExecException(woven, configWith(anno, annoValues, new StringBuilder(value)));
+		outcome.filter(e -> !MESSAGE.equals(e.getMessage())).ifPresent(e -> {
+			throw new AssertionError(e);
+		});
+		return outcome.isPresent();
+	}
+
+	private static Config configWith(Class<? extends Annotation> anno, Map<String, Object> annoValues,
+			CharSequence value) {
+		return config().withEntry(entry(CharSequence.class, "param", value).withAnno(anno, annoValues));
+	}
+
+}
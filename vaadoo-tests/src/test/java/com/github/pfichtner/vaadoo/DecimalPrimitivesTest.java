@@ -0,0 +1,127 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.casted;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.From;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.IntRange;
+
+/**
+ * DecimalMin, DecimalMax and Digits on primitives get folded to integer
+ * comparisons at weave time but have to accept and reject exactly the values
+ * a comparison of BigDecimals would.
+ */
+class DecimalPrimitivesTest {
+
+	static final String MESSAGE = "out of range";
+
+	enum Primitive {
+
+		BYTE(byte.class, Byte.MIN_VALUE, Byte.MAX_VALUE), //
+		SHORT(short.class, Short.MIN_VALUE, Short.MAX_VALUE), //
+		INT(int.class, Integer.MIN_VALUE, Integer.MAX_VALUE), //
+		LONG(long.class, Long.MIN_VALUE, Long.MAX_VALUE);
+
+		private final Class<?> type;
+		private final long min;
+		private final long max;
+
+		Primitive(Class<?> type, long min, long max) {
+			this.type = type;
+			this.min = min;
+			this.max = max;
+		}
+
+		Object cast(long value) {
+			long clamped = Math.max(min, Math.min(max, value));
+			return type == byte.class ? (Object) (byte) clamped
+					: type == short.class ? (Object) (short) clamped
+							: type == int.class ? (Object) (int) clamped : (Object) clamped;
+		}
+
+	}
+
+	@Property(tries = 500)
+	void decimalMin(@ForAll boolean guava, @ForAll Primitive primitive, @ForAll @From("bounds") String bound,
+			@ForAll boolean inclusive, @ForAll @From("values") long value) throws Exception {
+		var casted = primitive.cast(value);
+		var expected = compare(casted, bound) < (inclusive ? 0 : 1);
+		assertThat(rejects(guava, primitive, DecimalMin.class,
+				Map.of("value", bound, "inclusive", inclusive, "message", MESSAGE), casted)).isEqualTo(expected);
+	}
+
+	@Property(tries = 500)
+	void decimalMax(@ForAll boolean guava, @ForAll Primitive primitive, @ForAll @From("bounds") String bound,
+			@ForAll boolean inclusive, @ForAll @From("values") long value) throws Exception {
+		var casted = primitive.cast(value);
+		var expected = compare(casted, bound) > (inclusive ? 0 : -1);
+		assertThat(rejects(guava, primitive, DecimalMax.class,
+				Map.of("value", bound, "inclusive", inclusive, "message", MESSAGE), casted)).isEqualTo(expected);
+	}
+
+	@Property(tries = 500)
+	void digits(@ForAll boolean guava, @ForAll Primitive primitive, @ForAll @IntRange(max = 20) int integer,
+			@ForAll @From("values") long value) throws Exception {
+		var casted = primitive.cast(value);
+		var bigDecimal = new BigDecimal(String.valueOf(casted));
+		var expected = bigDecimal.precision() - bigDecimal.scale() > integer;
+		assertThat(rejects(guava, primitive, Digits.class,
+				Map.of("integer", integer, "fraction", 0, "message", MESSAGE), casted)).isEqualTo(expected);
+	}
+
+	@Provide
+	Arbitrary<String> bounds() {
+		return Arbitraries.of("0", "1.5", "-1.5", "100", "-128", "127.5", "-128.5", "32767", "-32768.01",
+				"2147483647", "2147483648", "-2147483648.5", "9223372036854775807", "9223372036854775807.5",
+				"-9223372036854775808", "-9223372036854775809", "1e30", "-1e30", "1e-30");
+	}
+
+	@Provide
+	Arbitrary<Long> values() {
+		return Arbitraries.oneOf(Arbitraries.longs().between(-200, 200), Arbitraries.longs(),
+				Arbitraries.of(999_999_999L, 1_000_000_000L, 999_999_999_999_999_999L, 1_000_000_000_000_000_000L,
+						-999_999_999_999_999_999L, 2147483647L, 2147483648L));
+	}
+
+	private static int compare(Object value, String bound) {
+		return new BigDecimal(String.valueOf(value)).compareTo(new BigDecimal(bound));
+	}
+
+	private static boolean rejects(boolean guava, Primitive primitive, Class<? extends Annotation> anno,
+			Map<String, Object> annoValues, Object value) throws Exception {
+		var woven = transform(dynamicClass(configWith(primitive, anno, annoValues, primitive.cast(0))),
+				guava ? GuavaCodeFragment.class : JdkOnlyCodeFragment.class);
+		var outcome = provideExecException(woven, configWith(primitive, anno, annoValues, value));
+		outcome.filter(e -> !MESSAGE.equals(e.getMessage())).ifPresent(e -> {
+			throw new AssertionError(e);
+		});
+		return outcome.isPresent();
+	}
+
+	private static Config configWith(Primitive primitive, Class<? extends Annotation> anno,
+			Map<String, Object> annoValues, Object value) {
+		return config().withEntry(entry(casted(primitive.type, Object.class), "param", value).withAnno(anno, annoValues));
+	}
+
+}
@@ -26,6 +26,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
 import com.google.common.base.Supplier;
 
 import net.bytebuddy.ByteBuddy;
@@ -207,6 +208,10 @@ public final class DynamicByteCode {
 						annoBuilder = annoBuilder.define(entry.getKey(), (String) annoValue);
 					} else if (annoValue instanceof Long) {
 						annoBuilder = annoBuilder.define(entry.getKey(), (Long) annoValue);
+					} else if (annoValue instanceof Integer) {
+						annoBuilder = annoBuilder.define(entry.getKey(), (Integer) annoValue);
+					} else if (annoValue instanceof Boolean) {
+						annoBuilder = annoBuilder.define(entry.getKey(), (Boolean) annoValue);
 					} else if (annoValue.getClass().isArray()) {
 						Class<?> componentType = annoValue.getClass().getComponentType();
 						if (!componentType.isEnum()) {
@@ -241,6 +246,16 @@ public final class DynamicByteCode {
 
 	public static Class<?> transform(Unloaded<Object> dynamicClass)
 			throws NoSuchMethodException, ClassNotFoundException {
+		return transform(dynamicClass, sut);
+	}
+
+	public static Class<?> transform(Unloaded<Object> dynamicClass, Class<? extends Jsr380CodeFragment> codeFragment)
+			throws NoSuchMethodException, ClassNotFoundException {
+		return transform(dynamicClass, new AddJsr380ValidationPlugin(codeFragment));
+	}
+
+	private static Class<?> transform(Unloaded<Object> dynamicClass, AddJsr380ValidationPlugin plugin)
+			throws NoSuchMethodException, ClassNotFoundException {
 		var name = dynamicClass.getTypeDescription().getName();
 		// parent is the SystemClassLoader so if the class depends on other classes that
 		// the classes there, we fail (what is what we want here)
@@ -249,7 +264,7 @@ public final class DynamicByteCode {
 		var loadedClass = new ByteArrayClassLoader(originalClassLoader, singletonMap(name, dynamicClass.getBytes()),
 				PersistenceHandler.MANIFEST).loadClass(name);
 		var builder = new ByteBuddy().redefine(loadedClass);
-		var transformed = sut.apply(builder, TypeDescription.ForLoadedType.of(loadedClass), null).make();
+		var transformed = plugin.apply(builder, TypeDescription.ForLoadedType.of(loadedClass), null).make();
 		dump(transformed);
 		var transformedClassLoader = new ByteArrayClassLoader(originalClassLoader, emptyMap(),
 				PersistenceHandler.MANIFEST);
@@ -0,0 +1,116 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.compile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.IDN;
+
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern.Flag;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+/**
+ * The hand-written {@link Email} scanner of {@link JdkOnlyCodeFragment} has to
+ * accept exactly the same inputs as the regular expressions used by Hibernate
+ * Validator.
+ */
+class EmailScannerTest {
+
+	private static final Email DEFAULT = email(0);
+	private static final Email CUSTOM_REGEXP = email(1);
+
+	@SuppressWarnings("unused")
+	private static void annotated(@Email String defaults, @Email(regexp = "[^x]*") String customRegexp) {
+	}
+
+	@Property(tries = 5000)
+	void acceptsLikeRegex(@ForAll("emails") String email, @ForAll boolean customRegexp) {
+		var anno = customRegexp ? CUSTOM_REGEXP : DEFAULT;
+		assertThat(scannerAccepts(anno, email)).isEqualTo(regexAccepts(anno, email));
+	}
+
+	@Provide
+	Arbitrary<String> emails() {
+		var chars = "aZ9.-_!\"\\@[]:% \n\r\u0085\u2028\u00E9\uD83D\uDE00";
+		var part = Arbitraries.strings().withChars(chars).ofMaxLength(6);
+		var label = Arbitraries.strings().withChars("ab9-").ofMinLength(62).ofMaxLength(65);
+		var local = Arbitraries.oneOf(part, Arbitraries.strings().withChars("a.").ofMinLength(63).ofMaxLength(66),
+				Arbitraries.of("\"a b\"", "a.\"x\\\"y\"", "\"\"", "a..b", "\"a\\\\\".b", "\u00E9"));
+		var domain = Arbitraries.oneOf(part,
+				Combinators.combine(part, label, part).as((a, b, c) -> a + "." + b + "." + c),
+				Arbitraries.of("example.com", "ex-ample.com", "-ex.com", "ex-.com", "ex..com", "ex.com.", "m\u00FCller.de",
+						"xn--mller-kva.de", "[127.0.0.1]", "[IPv6:::1]", "[ipv6:fe80::1%eth0]", "[1.2.3]",
+						"\u00E9".repeat(64) + ".de", "a.".repeat(127) + "a"));
+		return Arbitraries.oneOf(Arbitraries.strings().withChars(chars).ofMaxLength(12),
+				Combinators.combine(local, domain).as((l, d) -> l + "@" + d));
+	}
+
+	private static boolean scannerAccepts(Email anno, String email) {
+		try {
+			new JdkOnlyCodeFragment().check(anno, email);
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The implementation of {@link JdkOnlyCodeFragment} before it got replaced by
+	 * the scanner.
+	 */
+	private static boolean regexAccepts(Email anno, String stringValue) {
+		if (stringValue.isEmpty()) {
+			return true;
+		}
+		int splitPosition = stringValue.lastIndexOf('@');
+		if (splitPosition < 0) {
+			return false;
+		}
+		String localPart = stringValue.substring(0, splitPosition);
+		if (localPart.length() > 64 || !compile("(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]" + "+|\""
+				+ "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")" + "+\")"
+				+ "(?:\\." + "(?:" + "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]" + "+|\""
+				+ "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")" + "+\")" + ")*",
+				CASE_INSENSITIVE).matcher(localPart).matches()) {
+			return false;
+		}
+		String domainPart = stringValue.substring(splitPosition + 1);
+		try {
+			if (domainPart.endsWith(".") || IDN.toASCII(domainPart).length() > 255
+					|| !compile("(?:" + "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
+							+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+(?:\\." + "(?:"
+							+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "-*)*"
+							+ "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]" + "+" + "+)*" + "|\\["
+							+ "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}" + "\\]|" + "\\[IPv6:"
+							+ "(?:(?:[0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,7}:|(?:[0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,5}(?::[0-9a-fA-F]{1,4}){1,2}|(?:[0-9a-fA-F]{1,4}:){1,4}(?::[0-9a-fA-F]{1,4}){1,3}|(?:[0-9a-fA-F]{1,4}:){1,3}(?::[0-9a-fA-F]{1,4}){1,4}|(?:[0-9a-fA-F]{1,4}:){1,2}(?::[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:(?:(?::[0-9a-fA-F]{1,4}){1,6})|:(?:(?::[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(?::[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(?:ffff(:0{1,4}){0,1}:){0,1}(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])|(?:[0-9a-fA-F]{1,4}:){1,4}:(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9]))"
+							+ "\\]", CASE_INSENSITIVE).matcher(domainPart).matches()) {
+				return false;
+			}
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		int flagValue = 0;
+		for (Flag flag : anno.flags()) {
+			flagValue |= flag.getValue();
+		}
+		return compile(anno.regexp(), flagValue).matcher(stringValue).matches();
+	}
+
+	private static Email email(int parameter) {
+		try {
+			return EmailScannerTest.class.getDeclaredMethod("annotated", String.class, String.class)
+					.getParameters()[parameter].getAnnotation(Email.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import static com.github.pfichtner.vaadoo.DynamicByteCode.casted;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.randomConfigWith;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
 import static com.github.pfichtner.vaadoo.supplier.CharSequences.Type.BLANKS;
 import static com.github.pfichtner.vaadoo.supplier.CharSequences.Type.NON_BLANKS;
@@ -14,8 +15,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchIllegalStateException;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
+import org.junit.jupiter.api.Test;
+
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
 import com.github.pfichtner.vaadoo.supplier.CharSequences;
 import com.github.pfichtner.vaadoo.supplier.Classes;
 import com.github.pfichtner.vaadoo.supplier.Example;
@@ -31,6 +39,38 @@ class EmailTest {
 
 	private static final String VAILD_EMAIL = "pfichtner@users.noreply.github.com";
 
+	@Test
+	void builtInRegexesOfTheGuavaFragmentAreNotReportedAsBacktracking() throws Exception {
+		var warnings = new ArrayList<String>();
+		var handler = new Handler() {
+
+			@Override
+			public void publish(LogRecord record) {
+				warnings.add(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+				// noop
+			}
+
+			@Override
+			public void close() {
+				// noop
+			}
+
+		};
+		var logger = Logger.getLogger(CacheRegexCompileCalls.class.getName());
+		logger.addHandler(handler);
+		try {
+			var config = config().withEntry(entry(String.class, "param", VAILD_EMAIL).withAnno(ANNO_CLASS));
+			assertNoException(config, transform(dynamicClass(config), GuavaCodeFragment.class));
+		} finally {
+			logger.removeHandler(handler);
+		}
+		assertThat(warnings).isEmpty();
+	}
+
 	@Property
 	void oks( //
 			@WithNull //
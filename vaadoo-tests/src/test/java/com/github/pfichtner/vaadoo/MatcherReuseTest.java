@@ -0,0 +1,121 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.VaadooOptions.REGEX_BUDGET;
+import static com.github.pfichtner.vaadoo.VaadooOptions.REUSE_MATCHER;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.Pattern;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.CharRange;
+import net.jqwik.api.constraints.StringLength;
+import net.jqwik.api.constraints.WithNull;
+
+/**
+ * The code reusing the Matchers has to behave exactly like the code creating a
+ * new Matcher per match.
+ */
+class MatcherReuseTest {
+
+	// lookarounds are not compiled, so java.util.regex matches it
+	static final String REGEX = "(?=.*\\d)[a-c\\d]+";
+	static final String CLASSNAME = "com.example.GeneratedTestClass";
+
+	static final Class<?> reusing = load(weave(Map.of(REUSE_MATCHER, "true")));
+	static final Class<?> notReusing = load(weave(Map.of(REUSE_MATCHER, "false")));
+
+	@Property(tries = 500)
+	void sameBehaviour(@WithNull @ForAll @StringLength(max = 6) @CharRange(from = '0', to = 'd') String value)
+			throws Exception {
+		assertThat(outcome(reusing, value)).isEqualTo(outcome(notReusing, value));
+	}
+
+	@Test
+	void matchersArePooled() {
+		assertThat(reusing.getDeclaredFields()).extracting(Field::getType).contains(AtomicReferenceArray.class);
+		assertThat(notReusing.getDeclaredFields()).extracting(Field::getType).doesNotContain(AtomicReferenceArray.class);
+	}
+
+	@Test
+	void matchersGetReusedConcurrently() throws Exception {
+		var executor = Executors.newFixedThreadPool(8);
+		try {
+			var results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 10_000; i++) {
+				var value = i % 3 == 0 ? "abc" : "a" + i;
+				Callable<Boolean> validate = () -> outcome(reusing, value).equals(outcome(notReusing, value));
+				results.add(executor.submit(validate));
+			}
+			for (var result : results) {
+				assertThat(result.get()).isTrue();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void reusedMatchersAreWrappedWithTheBudget() throws Exception {
+		var budgeted = load(weave(Map.of(REUSE_MATCHER, "true", REGEX_BUDGET, "1")));
+		assertThat(outcome(budgeted, "abc1")).hasValueSatisfying(m -> assertThat(m).contains("exceeded its budget"));
+		// the matcher that threw has been dropped, the next one works as well
+		assertThat(outcome(budgeted, "abc1")).hasValueSatisfying(m -> assertThat(m).contains("exceeded its budget"));
+	}
+
+	private static Optional<String> outcome(Class<?> woven, String value) throws Exception {
+		return provideExecException(woven, config(value)).map(e -> e.getClass().getName() + ": " + e.getMessage());
+	}
+
+	private static Config config(String value) {
+		return Config.config()
+				.withEntry(entry(String.class, "param", value).withAnno(Pattern.class, Map.of("regexp", REGEX)));
+	}
+
+	private static Map<String, byte[]> weave(Map<String, String> options) {
+		try {
+			var dynamicClass = dynamicClass(config("abc1"));
+			var typeDescription = dynamicClass.getTypeDescription();
+			var classFileLocator = new ClassFileLocator.Compound(
+					ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+					ClassFileLocator.ForClassLoader.ofSystemLoader());
+			try (var plugin = new AddJsr380ValidationPlugin(JdkOnlyCodeFragment.class, VaadooOptions.of(options))) {
+				var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+				return plugin.apply(builder, typeDescription, classFileLocator).make().getAllTypes().entrySet()
+						.stream().collect(toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Class<?> load(Map<String, byte[]> types) {
+		try {
+			return new ByteArrayClassLoader(getSystemClassLoader(), types).loadClass(CLASSNAME);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
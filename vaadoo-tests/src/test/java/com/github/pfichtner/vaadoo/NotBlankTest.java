@@ -23,6 +23,8 @@ import com.github.pfichtner.vaadoo.supplier.Example;
 import jakarta.validation.constraints.NotBlank;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
+import net.jqwik.api.constraints.CharRange;
+import net.jqwik.api.constraints.StringLength;
 import net.jqwik.api.constraints.WithNull;
 
 class NotBlankTest {
@@ -63,6 +65,20 @@ class NotBlankTest {
 				stringIsNull ? NullPointerException.class : IllegalArgumentException.class);
 	}
 
+	@Property(tries = 200)
+	void sameAsTrim(@ForAll boolean string,
+			@ForAll @CharRange(from = '\u0000', to = '\u00a1') @StringLength(max = 4) String value) throws Exception {
+		var charSequence = string ? value : new StringBuilder(value);
+		var config = randomConfigWith(
+				entry(casted(charSequence.getClass(), CharSequence.class), "param", charSequence).withAnno(ANNO_CLASS));
+		var transformed = transform(dynamicClass(config));
+		if (value.trim().isEmpty()) {
+			assertException(config, transformed, "param must not be blank", IllegalArgumentException.class);
+		} else {
+			assertNoException(config, transformed);
+		}
+	}
+
 	@Property
 	void customMessage( //
 			@ForAll(supplier = Classes.class) //
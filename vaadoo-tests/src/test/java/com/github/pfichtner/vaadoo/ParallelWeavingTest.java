@@ -0,0 +1,88 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.build.Plugin.Engine.Source;
+import net.bytebuddy.build.Plugin.Engine.Target;
+import net.bytebuddy.dynamic.ClassFileLocator;
+
+class ParallelWeavingTest {
+
+	private static final int CLASSES = 2_000;
+	private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	private static final List<IntFunction<ConfigEntry>> constrainedEntries = List.of( //
+			i -> entry(Object.class, "object" + i, null).withAnno(NotNull.class), //
+			i -> entry(String.class, "string" + i, null).withAnno(NotBlank.class), //
+			i -> entry(String.class, "digits" + i, null).withAnno(Pattern.class, Map.of("regexp", "\\d{1," + i + "}")), //
+			i -> entry(String.class, "mail" + i, null).withAnno(Email.class), //
+			i -> entry(Long.class, "long" + i, null).withAnno(Min.class, Map.of("value", (long) i)), //
+			i -> entry(Collection.class, "collection" + i, null).withAnno(NotEmpty.class) //
+	);
+
+	@Test
+	void parallelWeavingProducesTheSameBytesAsSequentialWeaving() throws Exception {
+		var classes = syntheticClasses();
+
+		var sequential = weave(classes, new Plugin.Engine.Default());
+		var parallel = weave(classes, new Plugin.Engine.Default().withParallelTransformation(THREADS));
+
+		assertThat(parallel.keySet()).isEqualTo(sequential.keySet()).hasSize(CLASSES);
+		for (var entry : sequential.entrySet()) {
+			assertThat(parallel.get(entry.getKey())).as(entry.getKey()).isEqualTo(entry.getValue())
+					.isNotEqualTo(classes.get(entry.getKey()));
+		}
+	}
+
+	private static Map<String, byte[]> syntheticClasses() throws NoSuchMethodException {
+		Map<String, byte[]> classes = new HashMap<>();
+		for (int i = 0; i < CLASSES; i++) {
+			var name = "com.example.stress.Generated" + i;
+			classes.put(name.replace('.', '/') + ".class", dynamicClass(name, entries(i)).getBytes());
+		}
+		return classes;
+	}
+
+	private static List<ConfigEntry> entries(int i) {
+		List<ConfigEntry> entries = new ArrayList<>();
+		IntStream.range(0, i % 3).mapToObj(n -> entry(Object.class, "unconstrained" + n, null)).forEach(entries::add);
+		IntStream.rangeClosed(0, i % constrainedEntries.size())
+				.mapToObj(n -> constrainedEntries.get((i + n) % constrainedEntries.size()).apply(n + 1))
+				.forEach(entries::add);
+		return entries;
+	}
+
+	private static Map<String, byte[]> weave(Map<String, byte[]> classes, Plugin.Engine engine) throws IOException {
+		var target = new Target.InMemory();
+		try (var plugin = new AddJsr380ValidationPlugin()) {
+			var summary = engine.with(ClassFileLocator.ForClassLoader.ofSystemLoader())
+					.apply(new Source.InMemory(classes), target, new Plugin.Factory.Simple(plugin));
+			assertThat(summary.getFailed()).isEmpty();
+			assertThat(summary.getTransformed()).hasSize(CLASSES);
+		}
+		return target.getStorage();
+	}
+
+}
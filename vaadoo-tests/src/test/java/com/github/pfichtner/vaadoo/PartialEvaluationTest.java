@@ -0,0 +1,142 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.VaadooOptions.PARTIAL_EVALUATION;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.Collections.singletonMap;
+import static net.bytebuddy.jar.asm.Opcodes.ASM9;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType.Unloaded;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.Chars;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.StringLength;
+import net.jqwik.api.constraints.WithNull;
+
+/**
+ * The code woven with partial evaluation has to behave exactly like the code
+ * woven without.
+ */
+class PartialEvaluationTest {
+
+	@Property(tries = 200)
+	void pattern(@ForAll Pattern.Flag[] flags, @WithNull @ForAll @StringLength(max = 4) String value)
+			throws Exception {
+		var woven = assertSameBehaviour(
+				entry(String.class, "param", value).withAnno(Pattern.class, Map.of("regexp", "[a-z]+", "flags", flags)));
+		assertThat(referencedOwners(woven)).doesNotContain("jakarta/validation/constraints/Pattern$Flag");
+	}
+
+	@Property(tries = 200)
+	void size(@ForAll @IntRange(max = 5) int min, @ForAll @IntRange(max = 5) int max,
+			@WithNull @ForAll @StringLength(max = 6) String value) throws Exception {
+		assertSameBehaviour(entry(String.class, "param", value).withAnno(Size.class, Map.of("min", min, "max", max)));
+	}
+
+	@Property(tries = 200)
+	void decimalMin(@ForAll boolean inclusive, @ForAll @IntRange(min = -3, max = 3) int value) throws Exception {
+		assertSameBehaviour(entry(BigDecimal.class, "param", BigDecimal.valueOf(value)).withAnno(DecimalMin.class,
+				Map.of("value", "1", "inclusive", inclusive)));
+	}
+
+	@Property(tries = 200)
+	void decimalMaxOnLong(@ForAll boolean inclusive, @ForAll long value) throws Exception {
+		var woven = assertSameBehaviour(entry(long.class, "param", value).withAnno(DecimalMax.class,
+				Map.of("value", "-1.5", "inclusive", inclusive)));
+		assertThat(referencedOwners(woven)).doesNotContain("java/math/BigDecimal");
+	}
+
+	@Property(tries = 200)
+	void decimalMinOnCharSequence(@ForAll boolean inclusive,
+			@WithNull @ForAll @StringLength(max = 4) @Chars({ '0', '1', '2', '.', '-', 'e' }) String value)
+			throws Exception {
+		var woven = assertSameBehaviour(entry(CharSequence.class, "param", value).withAnno(DecimalMin.class,
+				Map.of("value", "-1.20", "inclusive", inclusive)));
+		assertThat(referencedOwners(woven)).doesNotContain("java/math/BigDecimal", "java/math/BigInteger");
+	}
+
+	private static byte[] assertSameBehaviour(ConfigEntry entry) throws Exception {
+		var config = config().withEntry(entry);
+		var dynamicClass = dynamicClass(config);
+		var evaluated = weave(dynamicClass, true);
+		assertThat(outcome(config, evaluated)).isEqualTo(outcome(config, weave(dynamicClass, false)));
+		return evaluated;
+	}
+
+	private static Set<String> referencedOwners(byte[] bytes) {
+		Set<String> owners = new HashSet<>();
+		new ClassReader(bytes).accept(new ClassVisitor(ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+					String[] exceptions) {
+				return new MethodVisitor(ASM9) {
+
+					@Override
+					public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+						owners.add(owner);
+					}
+
+					@Override
+					public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+							boolean isInterface) {
+						owners.add(owner);
+					}
+
+				};
+			}
+		}, 0);
+		return owners;
+	}
+
+	private static byte[] weave(Unloaded<Object> dynamicClass, boolean partialEvaluation) throws Exception {
+		var options = VaadooOptions.of(Map.of(PARTIAL_EVALUATION, String.valueOf(partialEvaluation)));
+		try (var plugin = new AddJsr380ValidationPlugin(JdkOnlyCodeFragment.class, options)) {
+			return transform(plugin, dynamicClass);
+		}
+	}
+
+	private static Optional<String> outcome(Config config, byte[] woven) throws Exception {
+		return provideExecException(load(woven), config).map(e -> e.getClass().getName() + ": " + e.getMessage());
+	}
+
+	private static byte[] transform(Plugin plugin, Unloaded<Object> dynamicClass) {
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+		return plugin.apply(builder, typeDescription, classFileLocator).make().getBytes();
+	}
+
+	private static Class<?> load(byte[] bytes) throws ClassNotFoundException {
+		var name = "com.example.GeneratedTestClass";
+		return new ByteArrayClassLoader(getSystemClassLoader(), singletonMap(name, bytes)).loadClass(name);
+	}
+
+}
@@ -5,6 +5,7 @@ import static com.github.pfichtner.vaadoo.DynamicByteCode.assertNoException;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.randomConfigWith;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
 import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
 import static com.github.pfichtner.vaadoo.supplier.Classes.SubTypes.CHARSEQUENCES;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -13,6 +14,9 @@ import static org.assertj.core.api.Assertions.catchIllegalStateException;
 import java.lang.annotation.Annotation;
 import java.util.Map;
 
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
 import com.github.pfichtner.vaadoo.supplier.Classes;
 import com.github.pfichtner.vaadoo.supplier.Example;
 
@@ -56,6 +60,18 @@ class PatternTest {
 		assertException(config, transformed, parameterName + " must match \"\\d+\"", IllegalArgumentException.class);
 	}
 
+	@ParameterizedTest
+	@CsvSource({ "\\d{3},false,123,12a", "\\d{3},true,123,12a", "'[Z-a]{1,3}',true,zA_,Zb" })
+	void largeFiniteRegexes(String regexp, boolean caseInsensitive, String valid, String invalid) throws Exception {
+		var flags = caseInsensitive ? new Pattern.Flag[] { Pattern.Flag.CASE_INSENSITIVE } : new Pattern.Flag[0];
+		Map<String, Object> anno = Map.of("regexp", regexp, "flags", flags);
+		var ok = config().withEntry(entry(String.class, "param", valid).withAnno(ANNO_CLASS, anno));
+		assertNoException(ok, transform(dynamicClass(ok)));
+		var nok = config().withEntry(entry(String.class, "param", invalid).withAnno(ANNO_CLASS, anno));
+		assertException(nok, transform(dynamicClass(nok)), "param must match \"" + regexp + "\"",
+				IllegalArgumentException.class);
+	}
+
 	@Property
 	void customMessage( //
 			@ForAll(supplier = Classes.class) //
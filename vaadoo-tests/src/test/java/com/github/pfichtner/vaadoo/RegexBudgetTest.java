@@ -0,0 +1,144 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.assertException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.assertNoException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.VaadooOptions.OPTIMIZE_REGEX;
+import static com.github.pfichtner.vaadoo.VaadooOptions.REGEX_BUDGET;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+class RegexBudgetTest {
+
+	// the backreference prevents the memoization of java.util.regex, so this
+	// backtracks exponentially on "aaa...c"
+	static final String REGEX = "(a|aa)+\\1b";
+
+	@Test
+	@Timeout(10)
+	void matchingIsAbortedWhenTheBudgetIsExceeded() throws Exception {
+		var config = patternConfig("a".repeat(64) + "c");
+		var woven = weave(config, Map.of(REGEX_BUDGET, "100"));
+		assertException(config, woven, "exceeded its budget of 100 steps per char", IllegalArgumentException.class);
+	}
+
+	@Test
+	void inputsWithinTheBudgetAreMatchedAsBefore() throws Exception {
+		var woven = weave(patternConfig("aab"), Map.of(REGEX_BUDGET, "100"));
+		assertNoException(patternConfig("aab"), woven);
+		assertException(patternConfig("aac"), woven, "must match \"" + REGEX + "\"", IllegalArgumentException.class);
+	}
+
+	@Test
+	void noWrapperWithoutBudget() throws Exception {
+		var transformed = transform(patternConfig("aab"),
+				Map.of(REGEX_BUDGET + ".com.example", "0", REGEX_BUDGET, "100"));
+		assertThat(transformed).containsOnlyKeys("com.example.GeneratedTestClass");
+	}
+
+	@Test
+	void noWrapperIfNoRegexesAreMatched() throws Exception {
+		var transformed = transform(config().withEntry(entry(String.class, "param", "aab").withAnno(NotNull.class)),
+				Map.of(REGEX_BUDGET, "100"));
+		assertThat(transformed).containsOnlyKeys("com.example.GeneratedTestClass");
+	}
+
+	@Test
+	void budgetWithoutOptimizedRegexesIsIgnoredWithAWarning() throws Exception {
+		var warnings = new ArrayList<String>();
+		var handler = new Handler() {
+
+			@Override
+			public void publish(LogRecord record) {
+				warnings.add(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+				// noop
+			}
+
+			@Override
+			public void close() {
+				// noop
+			}
+
+		};
+		var logger = Logger.getLogger(AddJsr380ValidationPlugin.class.getName());
+		logger.addHandler(handler);
+		try {
+			var transformed = transform(patternConfig("aab"), Map.of(REGEX_BUDGET, "100", OPTIMIZE_REGEX, "false"));
+			assertThat(transformed).containsOnlyKeys("com.example.GeneratedTestClass");
+		} finally {
+			logger.removeHandler(handler);
+		}
+		assertThat(warnings).containsExactly(
+				"Regex budget of com.example.GeneratedTestClass is ignored since vaadoo.optimizeRegex is disabled");
+	}
+
+	@ParameterizedTest
+	@CsvSource({ //
+			"'', 0", //
+			"vaadoo.regexBudget=10, 10", //
+			"vaadoo.regexBudget=10;vaadoo.regexBudget.com=20, 20", //
+			"vaadoo.regexBudget.com=20;vaadoo.regexBudget.com.example=30, 30", //
+			"vaadoo.regexBudget.com.example=30;vaadoo.regexBudget.com.example.Foo=40, 40", //
+			"vaadoo.regexBudget.com.example.Foo=40;vaadoo.regexBudget.com.example.Foo$Bar=50, 50", //
+			"vaadoo.regexBudget.com.ex=20, 0", //
+			"vaadoo.regexBudget.com.example.Foo$Bar.Baz=20, 0", //
+	})
+	void mostSpecificBudgetWins(String options, int expected) {
+		var values = options.isEmpty() ? Map.<String, String>of()
+				: stream(options.split(";")).map(o -> o.split("="))
+						.collect(toMap(kv -> kv[0], kv -> kv[1]));
+		assertThat(VaadooOptions.of(values).regexBudget("com.example.Foo$Bar")).isEqualTo(expected);
+	}
+
+	private static Config patternConfig(String value) {
+		return config().withEntry(entry(String.class, "param", value).withAnno(Pattern.class, Map.of("regexp", REGEX)));
+	}
+
+	private static Class<?> weave(Config config, Map<String, String> options) throws Exception {
+		var types = transform(config, options);
+		assertThat(types).containsKey(RegexBudget.wrapperName("com.example.GeneratedTestClass"));
+		return new ByteArrayClassLoader(getSystemClassLoader(), types).loadClass("com.example.GeneratedTestClass");
+	}
+
+	private static Map<String, byte[]> transform(Config config, Map<String, String> options) throws Exception {
+		var dynamicClass = dynamicClass(config);
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		try (var plugin = new AddJsr380ValidationPlugin(JdkOnlyCodeFragment.class, VaadooOptions.of(options))) {
+			var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+			return plugin.apply(builder, typeDescription, classFileLocator).make().getAllTypes().entrySet().stream()
+					.collect(toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+		}
+	}
+
+}
@@ -0,0 +1,199 @@
+package com.github.pfichtner.vaadoo;
+
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.Collections.singletonMap;
+import static com.github.pfichtner.vaadoo.AsmUtil.pushInt;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.MULTILINE;
+import static net.bytebuddy.jar.asm.ClassWriter.COMPUTE_FRAMES;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_PUBLIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_STATIC;
+import static net.bytebuddy.jar.asm.Opcodes.ACC_SUPER;
+import static net.bytebuddy.jar.asm.Opcodes.ALOAD;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKESTATIC;
+import static net.bytebuddy.jar.asm.Opcodes.INVOKEVIRTUAL;
+import static net.bytebuddy.jar.asm.Opcodes.V11;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.pfichtner.vaadoo.RegexCompiler.Backtracking;
+
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+/**
+ * The bytecode generated by the {@link RegexCompiler} has to match exactly the
+ * same inputs as {@link Pattern}.
+ */
+class RegexCompilerTest {
+
+	private static final String CLASSNAME = "com.github.pfichtner.vaadoo.CompiledRegex";
+
+	@Property(tries = 3000)
+	void matchesLikePattern(@ForAll("regexes") String regex, @ForAll("flags") int flags,
+			@ForAll("inputs") String input) throws Exception {
+		var compiled = RegexCompiler.compile(regex, flags);
+		if (compiled == null) {
+			// only regexes having unbounded lengths might not be compiled if there are
+			// other flags than CASE_INSENSITIVE
+			assertThat(flags & ~CASE_INSENSITIVE).isNotZero();
+		} else {
+			assertThat(matchesMethod(compiled, regex, flags).invoke(null, input))
+					.isEqualTo(Pattern.compile(regex, flags).matcher(input).matches());
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "(a)\\1", "a(?=b)", "(?<!a)b", "a++", "[a-z&&[^x]]", "\\p{Alpha}", "\\bab", "a|^b",
+			"\uD83D\uDE00" })
+	void unsupportedRegexesAreNotCompiledToAutomatons(String regex) {
+		assertThat(RegexCompiler.compile(regex, 0)).satisfiesAnyOf(c -> assertThat(c).isNull(),
+				c -> assertThat(c).isInstanceOf(RegexCompiler.LengthCheckedPattern.class));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "[A-Z]{2}\\d{9},11,11", "\\d{5},5,5", "a+,1,-1", ".{2},2,4", "x(?=y)y?,1,2", "a++b,2,-1",
+			"'(a|bc){2,3}',2,6", "^\\w*$,0,-1", "(a)\\1,1,-1", "\\p{L}{3},3,6", "a{2147483647}b{2},-1,-1" })
+	void lengthBounds(String regex, int minLength, int maxLength) {
+		var compiled = RegexCompiler.compile(regex, 0);
+		assertThat(compiled).isNotNull();
+		assertThat(compiled.minLength()).isEqualTo(minLength < 0 ? Integer.MAX_VALUE : minLength);
+		assertThat(compiled.maxLength()).isEqualTo(maxLength);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "^(EUR|USD|GBP|CHF)$", "[A-D]{2}", "a?b?c?", "(?:de|at|ch)(?:-(?:DE|AT|CH))?" })
+	void finiteRegexesAreCompiledToLiteralSets(String regex) {
+		assertThat(RegexCompiler.compile(regex, 0)).isInstanceOf(RegexCompiler.LiteralSet.class);
+		assertThat(RegexCompiler.compile(regex, CASE_INSENSITIVE)).isInstanceOf(RegexCompiler.LiteralSet.class);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "\\d{3},0", "\\d{3},2", "[A-Z]{2},0", "'[Z-a]{1,3}',2", "\\dk?[A-c],2",
+			"'[?]{1,3}\\d{0,2}[?]{1,3}$',2" })
+	void largeFiniteRegexesAreCompiledToDfas(String regex, int flags) throws Exception {
+		var compiled = RegexCompiler.compile(regex, flags);
+		assertThat(compiled).isInstanceOf(RegexCompiler.Dfa.class);
+		var matches = matchesMethod(compiled, regex, flags);
+		for (String input : List.of("123", "12", "1234", "AZ", "Za", "zA`", "Zb", "9kB", "9c", "?1?", "??12???")) {
+			assertThat(matches.invoke(null, input)).isEqualTo(Pattern.compile(regex, flags).matcher(input).matches());
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { Pattern.MULTILINE, Pattern.DOTALL, Pattern.UNIX_LINES })
+	void lengthPreservingFlagsAreCompiledToLengthChecks(int flags) {
+		assertThat(RegexCompiler.compile("a.b", flags)).isInstanceOf(RegexCompiler.LengthCheckedPattern.class);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { Pattern.COMMENTS, Pattern.UNICODE_CASE, Pattern.LITERAL, Pattern.CANON_EQ })
+	void unsupportedFlagsAreNotCompiled(int flags) {
+		assertThat(RegexCompiler.compile("a.b", flags)).isNull();
+	}
+
+	@Property(tries = 3000)
+	void hardenedRegexesMatchLikeTheOriginalOnes(@ForAll("hardenableRegexes") String regex,
+			@ForAll("flags") int flags, @ForAll("inputs") String input) {
+		var original = Pattern.compile(regex, flags);
+		var hardened = Pattern.compile(RegexCompiler.hardened(regex, flags), flags);
+		assertThat(hardened.matcher(input).matches()).isEqualTo(original.matcher(input).matches());
+		assertThat(findings(hardened, input)).isEqualTo(findings(original, input));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "\\d+-\\d+$,\\d++-\\d++$", "'(\\d+,)*\\d+','(\\d++,)*\\d++'", "x+\\z,x++\\z",
+			"'[a-z]{2,}@','[a-z]{2,}+@'", "[A-Z]{2}\\d{9},[A-Z]{2}\\d{9}", "\\d+\\d,\\d+\\d", "a*(?=b)b,a*(?=b)b",
+			"\\w+\\b,\\w+\\b", "[a-z]+?x,[a-z]+?x", "\\d*+x,\\d*+x", ".*x,.*x", "(?i)a+b,(?i)a+b" })
+	void safeQuantifiersGetPossessive(String regex, String hardened) {
+		assertThat(RegexCompiler.hardened(regex, 0)).isEqualTo(hardened);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "(a+)+,EXPONENTIAL", "(\\w+\\s?)+$,EXPONENTIAL", "(a|a)*,EXPONENTIAL", "(\\d*)*x,EXPONENTIAL",
+			"\\d+\\.?\\d+,POLYNOMIAL", "'.*,.*',POLYNOMIAL", "\\s*\\w*\\s*x,POLYNOMIAL", "(a++)+,",
+			"\\d+-\\d+,", "[a-z]+@[a-z]+\\.com,", "'(\\d+,)*\\d+',", "(ab?)+,", "(a)\\1+," })
+	void backtracking(String regex, Backtracking backtracking) {
+		assertThat(RegexCompiler.backtracking(regex, 0)).isEqualTo(backtracking);
+	}
+
+	@Test
+	void unsupportedFlagsAreNotAnalysed() {
+		assertThat(RegexCompiler.backtracking("(a+)+", Pattern.COMMENTS)).isNull();
+		assertThat(RegexCompiler.hardened("a+b", Pattern.COMMENTS)).isEqualTo("a+b");
+	}
+
+	@Provide
+	Arbitrary<String> hardenableRegexes() {
+		return Arbitraries.oneOf(regexes(), Arbitraries.of("\\d+-\\d+$", "(\\d+,)*\\d+", "[a-c]+\\b", "a*(?=b)",
+				"x+\\z", "x+\\Z", "x+$", "\\w+\\s?", "[ab]+(?<=a)", "(?>a+)b", "(a+)\\1", "^\\s+|\\s+$"));
+	}
+
+	private static List<String> findings(Pattern pattern, String input) {
+		List<String> findings = new ArrayList<>();
+		for (var matcher = pattern.matcher(input); matcher.find();) {
+			findings.add(matcher.start() + "-" + matcher.end());
+		}
+		return findings;
+	}
+
+	@Provide
+	Arbitrary<String> regexes() {
+		return Arbitraries.of("\\d+", "\\d{5}", "[A-Z]{2}\\d{2,4}", "(ab|a)*c?", "[^a-c]+", ".*", "a.b",
+				"(?:foo|bar)+", "[\\w.-]+", "x{0,3}y", "^\\s*$", "(?<name>a+?)b", "[a-f\\d]{1,3}-\\D*", "\\x41|\\u0062",
+				"^(ABC|XYZ|foo|1)$", "a[bc]?|(?:x|y)z", "[01]{2}|", "(?:AB|ab)C", "a++b", "(?>ab|a)c{1,2}",
+				"x(?=y)y?", "\\bab\\b", "(a|b)\\1{0,2}", "[a-c]{2,3}+", "\\p{Lower}{2}", "^a$|^b.$");
+	}
+
+	@Provide
+	Arbitrary<Integer> flags() {
+		return Arbitraries.of(0, CASE_INSENSITIVE, MULTILINE | DOTALL);
+	}
+
+	@Provide
+	Arbitrary<String> inputs() {
+		return Arbitraries.oneOf( //
+				Arbitraries.strings().withChars("019abcfoABCXYZrxy-_.@ \n\uD83D\uDE00").ofMaxLength(8), //
+				Arbitraries.of("ABC", "abc", "AbC", "xyz", "XYZ", "foo", "FOO", "1", "", "01", "ab", "ac", "xz", "YZ",
+						"abC", "ABc", "aaab") //
+		);
+	}
+
+	private static Method matchesMethod(RegexCompiler.CompiledRegex compiled, String regex, int flags)
+			throws Exception {
+		var classWriter = new ClassWriter(COMPUTE_FRAMES);
+		var internalName = CLASSNAME.replace('.', '/');
+		classWriter.visit(V11, ACC_PUBLIC | ACC_SUPER, internalName, null, "java/lang/Object", null);
+		compiled.writeMatchesMethod(classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "matches",
+				"(Ljava/lang/CharSequence;)Z", null, null), mv -> {
+					mv.visitLdcInsn(regex);
+					pushInt(mv, flags);
+					mv.visitMethodInsn(INVOKESTATIC, "java/util/regex/Pattern", "compile",
+							"(Ljava/lang/String;I)Ljava/util/regex/Pattern;", false);
+					mv.visitVarInsn(ALOAD, 0);
+					mv.visitMethodInsn(INVOKEVIRTUAL, "java/util/regex/Pattern", "matcher",
+							"(Ljava/lang/CharSequence;)Ljava/util/regex/Matcher;", false);
+					mv.visitMethodInsn(INVOKEVIRTUAL, "java/util/regex/Matcher", "matches", "()Z", false);
+				});
+		classWriter.visitEnd();
+		var classLoader = new ByteArrayClassLoader(getSystemClassLoader(),
+				singletonMap(CLASSNAME, classWriter.toByteArray()));
+		return classLoader.loadClass(CLASSNAME).getMethod("matches", CharSequence.class);
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.VaadooOptions.STACKLESS_EXCEPTIONS;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.custom.FizzBuzzNumber;
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+class StacklessExceptionsTest {
+
+	static final String CLASSNAME = "com.example.GeneratedTestClass";
+	static final Map<String, String> STACKLESS = Map.of(STACKLESS_EXCEPTIONS, "true");
+
+	@ParameterizedTest
+	@ValueSource(classes = { JdkOnlyCodeFragment.class, GuavaCodeFragment.class })
+	void rejectionsAreStacklessAndCarryParameterAndConstraint(Class<? extends Jsr380CodeFragment> fragment)
+			throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "name", "Jane")) //
+				.withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Integer.class, "age", 42).withAnno(Min.class, Map.of("value", 18L)));
+		var thrown = provideExecException(weave(fragment, config, STACKLESS), config).orElseThrow();
+
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+				.hasMessage(provideExecException(weave(fragment, config, Map.of()), config).orElseThrow().getMessage());
+		assertThat(thrown.getClass().getName()).isEqualTo(StacklessViolation.exceptionName(CLASSNAME));
+		assertThat(thrown.getStackTrace()).isEmpty();
+		assertThat(accessor(thrown, "getParameter")).isEqualTo("nickname");
+		assertThat(accessor(thrown, "getConstraint")).isEqualTo(NotBlank.class.getName());
+	}
+
+	@ParameterizedTest
+	@ValueSource(classes = { JdkOnlyCodeFragment.class, GuavaCodeFragment.class })
+	void validValuesAreAccepted(Class<? extends Jsr380CodeFragment> fragment) throws Exception {
+		var config = config() //
+				.withEntry(entry(String.class, "nickname", "JJ").withAnno(NotBlank.class)) //
+				.withEntry(entry(Integer.class, "age", 42).withAnno(Min.class, Map.of("value", 18L)));
+		assertThat(provideExecException(weave(fragment, config, STACKLESS), config)).isEmpty();
+	}
+
+	@Test
+	void customConstraintsThrowStacklessToo() throws Exception {
+		var config = config().withEntry(entry(Integer.class, "number", 7).withAnno(FizzBuzzNumber.class));
+		var thrown = provideExecException(weave(JdkOnlyCodeFragment.class, config, STACKLESS), config).orElseThrow();
+		assertThat(thrown.getStackTrace()).isEmpty();
+		assertThat(accessor(thrown, "getParameter")).isEqualTo("number");
+		assertThat(accessor(thrown, "getConstraint")).isEqualTo(FizzBuzzNumber.class.getName());
+	}
+
+	@Test
+	void noExceptionClassByDefault() throws Exception {
+		var config = config().withEntry(entry(String.class, "nickname", " ").withAnno(NotBlank.class));
+		assertThat(transform(JdkOnlyCodeFragment.class, config, Map.of())).containsOnlyKeys(CLASSNAME);
+	}
+
+	private static Object accessor(Throwable throwable, String name) throws Exception {
+		return throwable.getClass().getMethod(name).invoke(throwable);
+	}
+
+	private static Class<?> weave(Class<? extends Jsr380CodeFragment> fragment, Config config,
+			Map<String, String> options) throws Exception {
+		return new ByteArrayClassLoader(getSystemClassLoader(), transform(fragment, config, options))
+				.loadClass(CLASSNAME);
+	}
+
+	private static Map<String, byte[]> transform(Class<? extends Jsr380CodeFragment> fragment, Config config,
+			Map<String, String> options) throws Exception {
+		var dynamicClass = dynamicClass(config);
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		try (var plugin = new AddJsr380ValidationPlugin(fragment, VaadooOptions.of(options))) {
+			var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+			return plugin.apply(builder, typeDescription, classFileLocator).make().getAllTypes().entrySet().stream()
+					.collect(toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+		}
+	}
+
+}
@@ -0,0 +1,265 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.casted;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.VaadooOptions.CLOCK;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MONTHS;
+import static java.time.temporal.ChronoUnit.NANOS;
+import static java.time.temporal.ChronoUnit.YEARS;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.chrono.HijrahDate;
+import java.time.chrono.JapaneseDate;
+import java.time.chrono.MinguoDate;
+import java.time.chrono.ThaiBuddhistDate;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.Jsr380CodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.GuavaCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+import com.github.pfichtner.vaadoo.fragments.impl.TimeSource;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.PastOrPresent;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+/**
+ * The temporal constraints are checked against <code>vaadoo.clock</code> and
+ * have to decide like <code>value.isBefore(X.now(clock))</code> would, also
+ * when the day, the year or the zone's offset changes between two checks.
+ */
+class TimeSourceTest {
+
+	static final String MESSAGE = "not in time";
+	static final String CLASSNAME = "com.example.GeneratedTestClass";
+
+	// public, the woven classes call it
+	public static class Clocks {
+
+		static volatile Clock clock;
+
+		public static Clock clock() {
+			return clock;
+		}
+
+	}
+
+	// each pair is the last millisecond before and the first one after a change
+	static final List<Clock> CLOCKS = List.of( //
+			clock("2024-03-30T12:34:56.789Z", "Europe/Berlin"), //
+			clock("2024-03-31T00:59:59.999Z", "Europe/Berlin"), // last millisecond of CET
+			clock("2024-03-31T01:00:00.000Z", "Europe/Berlin"), // CEST
+			clock("2024-03-31T21:59:59.999Z", "Europe/Berlin"), // last millisecond of the day
+			clock("2024-03-31T22:00:00.000Z", "Europe/Berlin"), //
+			clock("2024-11-03T05:59:59.999Z", "America/New_York"), // last millisecond of EDT
+			clock("2024-11-03T06:00:00.000Z", "America/New_York"), // EST, same local day
+			clock("2024-12-31T22:59:59.999Z", "Europe/Berlin"), // last millisecond of the year
+			clock("2024-12-31T23:00:00.000Z", "Europe/Berlin"), //
+			clock("1969-12-31T23:59:59.999Z", "UTC"), // negative millis
+			clock("2024-03-30T23:30:00.000Z", "Europe/Berlin"), //
+			clock("2024-03-30T23:30:00.000Z", "UTC") // same instant, another zone (and day)
+	);
+
+	private static Clock clock(String instant, String zone) {
+		return Clock.fixed(Instant.parse(instant), ZoneId.of(zone));
+	}
+
+	static record Type(Class<?> type, Function<Clock, Object> now, BiFunction<Object, Integer, Object> plus) {
+
+		static <T extends Temporal & Comparable<?>> Type temporal(Class<T> type, Function<Clock, T> now,
+				TemporalUnit unit) {
+			return new Type(type, now::apply, (t, amount) -> ((Temporal) t).plus(amount, unit));
+		}
+
+		@Override
+		public String toString() {
+			return type.getSimpleName();
+		}
+
+	}
+
+	static final List<Type> TYPES = List.of( //
+			new Type(Date.class, c -> new Date(c.millis()), (d, amount) -> new Date(((Date) d).getTime() + amount)), //
+			new Type(Calendar.class, TimeSourceTest::calendar, (c, amount) -> {
+				var calendar = (Calendar) ((Calendar) c).clone();
+				calendar.add(Calendar.MILLISECOND, amount);
+				return calendar;
+			}), //
+			Type.temporal(Instant.class, Instant::now, NANOS), //
+			Type.temporal(OffsetDateTime.class, OffsetDateTime::now, NANOS), //
+			Type.temporal(ZonedDateTime.class, ZonedDateTime::now, NANOS), //
+			Type.temporal(LocalDateTime.class, LocalDateTime::now, NANOS), //
+			Type.temporal(LocalTime.class, LocalTime::now, NANOS), //
+			Type.temporal(LocalDate.class, LocalDate::now, DAYS), //
+			Type.temporal(HijrahDate.class, HijrahDate::now, DAYS), //
+			Type.temporal(JapaneseDate.class, JapaneseDate::now, DAYS), //
+			Type.temporal(MinguoDate.class, MinguoDate::now, DAYS), //
+			Type.temporal(ThaiBuddhistDate.class, ThaiBuddhistDate::now, DAYS), //
+			Type.temporal(Year.class, Year::now, YEARS), //
+			Type.temporal(YearMonth.class, YearMonth::now, MONTHS), //
+			new Type(MonthDay.class, MonthDay::now,
+					(m, amount) -> MonthDay.from(((MonthDay) m).atYear(2024).plusDays(amount))) //
+	);
+
+	static Stream<Arguments> typesAndAnnotations() {
+		var arguments = new ArrayList<Arguments>();
+		for (var fragment : List.of(JdkOnlyCodeFragment.class, GuavaCodeFragment.class)) {
+			for (var type : TYPES) {
+				for (var anno : List.of(Past.class, PastOrPresent.class, Future.class, FutureOrPresent.class)) {
+					arguments.add(Arguments.of(fragment.getSimpleName(), fragment, type, anno));
+				}
+			}
+		}
+		return arguments.stream();
+	}
+
+	@ParameterizedTest(name = "{0} @{3} {2}")
+	@MethodSource("typesAndAnnotations")
+	void decidesLikeTheClock(String name, Class<? extends Jsr380CodeFragment> fragment, Type type,
+			Class<? extends Annotation> anno) throws Exception {
+		var woven = weave(fragment, type.type(), anno, Map.of(CLOCK, Clocks.class.getName() + ".clock"));
+		for (var clock : CLOCKS) {
+			Clocks.clock = clock;
+			var now = type.now().apply(clock);
+			for (int amount = -1; amount <= 1; amount++) {
+				var value = type.plus().apply(now, amount);
+				assertThat(rejects(woven, type.type(), anno, value)).describedAs("%s %s at %s", anno, value, clock)
+						.isEqualTo(rejectedBy(anno, compare(value, now)));
+			}
+		}
+	}
+
+	@Test
+	void sameInstantInAnotherZone() throws Exception {
+		var woven = weave(JdkOnlyCodeFragment.class, LocalDate.class, Past.class,
+				Map.of(CLOCK, Clocks.class.getName() + ".clock"));
+		var value = LocalDate.of(2024, 3, 30);
+		Clocks.clock = clock("2024-03-30T23:30:00.000Z", "Europe/Berlin");
+		assertThat(rejects(woven, LocalDate.class, Past.class, value)).isFalse();
+		Clocks.clock = clock("2024-03-30T23:30:00.000Z", "UTC");
+		assertThat(rejects(woven, LocalDate.class, Past.class, value)).isTrue();
+	}
+
+	@Test
+	void withoutClockTheSystemClockIsUsed() throws Exception {
+		var types = transform(JdkOnlyCodeFragment.class, Instant.class, Past.class, Map.of());
+		assertThat(new String(types.get(CLASSNAME), ISO_8859_1)).doesNotContain("TimeSource", "Clock");
+		var woven = new ByteArrayClassLoader(getSystemClassLoader(), types).loadClass(CLASSNAME);
+		assertThat(rejects(woven, Instant.class, Past.class, Instant.now().minusSeconds(60))).isFalse();
+		assertThat(rejects(woven, Instant.class, Past.class, Instant.now().plusSeconds(60))).isTrue();
+	}
+
+	@Test
+	void withoutClockTheChecksDoNotAllocate() {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		var today = LocalDate.now().toEpochDay();
+		long compared = 0;
+		for (int i = 0; i < 100_000; i++) {
+			compared += TimeSource.compareToToday(today) + TimeSource.compareToLocalTime(0);
+		}
+		var before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < 100_000; i++) {
+			compared += TimeSource.compareToToday(today) + TimeSource.compareToLocalTime(0);
+		}
+		// a new day (or offset) allocates once
+		assertThat(threads.getCurrentThreadAllocatedBytes() - before).describedAs("compared %s", compared)
+				.isLessThan(10_000);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compare(Object value, Object now) {
+		// LocalTime and MonthDay wrap around, so now + 1 might be before now
+		return ((Comparable<Object>) value).compareTo(now);
+	}
+
+	private static boolean rejectedBy(Class<? extends Annotation> anno, int compared) {
+		if (anno == Past.class) {
+			return compared >= 0;
+		} else if (anno == PastOrPresent.class) {
+			return compared > 0;
+		} else if (anno == Future.class) {
+			return compared <= 0;
+		}
+		return compared < 0;
+	}
+
+	private static Calendar calendar(Clock clock) {
+		var calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(clock.millis());
+		return calendar;
+	}
+
+	private static boolean rejects(Class<?> woven, Class<?> type, Class<? extends Annotation> anno, Object value)
+			throws Exception {
+		var outcome = provideExecException(woven, configWith(type, anno, value));
+		outcome.filter(e -> !MESSAGE.equals(e.getMessage())).ifPresent(e -> {
+			throw new AssertionError(e);
+		});
+		return outcome.isPresent();
+	}
+
+	private static Config configWith(Class<?> type, Class<? extends Annotation> anno, Object value) {
+		return config().withEntry(
+				entry(casted(type, Object.class), "param", value).withAnno(anno, Map.of("message", MESSAGE)));
+	}
+
+	private static Class<?> weave(Class<? extends Jsr380CodeFragment> fragment, Class<?> type,
+			Class<? extends Annotation> anno, Map<String, String> options) throws Exception {
+		return new ByteArrayClassLoader(getSystemClassLoader(), transform(fragment, type, anno, options))
+				.loadClass(CLASSNAME);
+	}
+
+	private static Map<String, byte[]> transform(Class<? extends Jsr380CodeFragment> fragment, Class<?> type,
+			Class<? extends Annotation> anno, Map<String, String> options) throws Exception {
+		var dynamicClass = dynamicClass(configWith(type, anno, null));
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		try (var plugin = new AddJsr380ValidationPlugin(fragment, VaadooOptions.of(options))) {
+			var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+			return plugin.apply(builder, typeDescription, classFileLocator).make().getAllTypes().entrySet().stream()
+					.collect(toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.assertException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.assertNoException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.VaadooOptions.CACHE_DIR;
+import static com.github.pfichtner.vaadoo.VaadooOptions.OPTIMIZE_REGEX;
+import static java.lang.ClassLoader.getSystemClassLoader;
+import static java.util.Collections.singletonMap;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.custom.FizzBuzzNumber;
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+import com.github.pfichtner.vaadoo.fragments.impl.JdkOnlyCodeFragment;
+
+import jakarta.validation.constraints.NotNull;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType.Unloaded;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+class WeaveCacheTest {
+
+	@TempDir
+	Path cacheDir;
+
+	Config config = config().withEntry(entry(Object.class, "param", null).withAnno(NotNull.class));
+
+	@Test
+	void wovenClassesGetStoredAndReused() throws Exception {
+		var dynamicClass = dynamicClass(config);
+		try (var sut = cachingPlugin(Map.of())) {
+			var woven = transform(sut, dynamicClass);
+			assertThat(cacheEntries()).hasSize(1);
+			assertThat(transform(sut, dynamicClass)).isEqualTo(woven);
+			assertThat(cacheEntries()).hasSize(1);
+
+			try (var uncached = new AddJsr380ValidationPlugin(JdkOnlyCodeFragment.class)) {
+				assertThat(transform(uncached, dynamicClass)).isEqualTo(woven);
+			}
+			assertException(config, load(woven), "param must not be null", NullPointerException.class);
+		}
+	}
+
+	@Test
+	void cacheHitDoesNotWeaveAgain() throws Exception {
+		var dynamicClass = dynamicClass(config);
+		try (var sut = cachingPlugin(Map.of())) {
+			transform(sut, dynamicClass);
+			// replace the woven class by the unwoven one
+			Files.write(cacheEntries().get(0), dynamicClass.getBytes());
+			assertNoException(config, load(transform(sut, dynamicClass)));
+		}
+	}
+
+	@Test
+	void optionsArePartOfTheKey() throws Exception {
+		var dynamicClass = dynamicClass(config);
+		try (var sut1 = cachingPlugin(Map.of()); var sut2 = cachingPlugin(Map.of(OPTIMIZE_REGEX, "false"))) {
+			transform(sut1, dynamicClass);
+			transform(sut2, dynamicClass);
+			assertThat(cacheEntries()).hasSize(2);
+		}
+	}
+
+	@Test
+	void changesOfTheBuilderAreKept() throws Exception {
+		var dynamicClass = dynamicClass(config);
+		try (var sut = cachingPlugin(Map.of())) {
+			for (int i = 0; i < 2; i++) {
+				var typeDescription = dynamicClass.getTypeDescription();
+				var classFileLocator = new ClassFileLocator.Compound(
+						ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()),
+						ClassFileLocator.ForClassLoader.ofSystemLoader());
+				var builder = new ByteBuddy().rebase(typeDescription, classFileLocator).defineField("extra",
+						int.class, Visibility.PUBLIC);
+				var woven = load(sut.apply(builder, typeDescription, classFileLocator).make().getBytes());
+				assertThat(woven.getField("extra")).isNotNull();
+				assertException(config, woven, "param must not be null", NullPointerException.class);
+			}
+			assertThat(cacheEntries()).hasSize(1);
+		}
+	}
+
+	@Test
+	void messagesArePartOfTheKey() {
+		var bytes = new byte[] { 1, 2, 3 };
+		var options = VaadooOptions.of(Map.of(CACHE_DIR, cacheDir.toString()));
+		var key1 = new WeaveCache(cacheDir, JdkOnlyCodeFragment.class, options, Map.of("message", "one")).key(bytes,
+				List.of());
+		var key2 = new WeaveCache(cacheDir, JdkOnlyCodeFragment.class, options, Map.of("message", "two")).key(bytes,
+				List.of());
+		assertThat(key1).isNotEqualTo(key2);
+	}
+
+	@Test
+	void customAnnotationsArePartOfTheKey() throws Exception {
+		var custom = config().withEntry(entry(Integer.class, "param", 3).withAnno(FizzBuzzNumber.class));
+		var dynamicClass = dynamicClass(custom);
+		var changedDefault = new ByteBuddy().redefine(FizzBuzzNumber.class).method(named("message"))
+				.defaultValue("changed", String.class).make().getBytes();
+		try (var sut = cachingPlugin(Map.of())) {
+			transform(sut, dynamicClass);
+			transform(sut, dynamicClass, ClassFileLocator.Simple.of(FizzBuzzNumber.class.getName(), changedDefault));
+			assertThat(cacheEntries()).hasSize(2);
+		}
+	}
+
+	private AddJsr380ValidationPlugin cachingPlugin(Map<String, String> options) {
+		var values = new HashMap<>(options);
+		values.put(CACHE_DIR, cacheDir.toString());
+		return new AddJsr380ValidationPlugin(JdkOnlyCodeFragment.class, VaadooOptions.of(values));
+	}
+
+	private List<Path> cacheEntries() throws IOException {
+		try (Stream<Path> files = Files.walk(cacheDir)) {
+			return files.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+	}
+
+	private static byte[] transform(Plugin plugin, Unloaded<Object> dynamicClass) {
+		return transform(plugin, dynamicClass, ClassFileLocator.NoOp.INSTANCE);
+	}
+
+	private static byte[] transform(Plugin plugin, Unloaded<Object> dynamicClass, ClassFileLocator dependencies) {
+		var typeDescription = dynamicClass.getTypeDescription();
+		var classFileLocator = new ClassFileLocator.Compound(
+				ClassFileLocator.Simple.of(typeDescription.getName(), dynamicClass.getBytes()), dependencies,
+				ClassFileLocator.ForClassLoader.ofSystemLoader());
+		var builder = new ByteBuddy().redefine(typeDescription, classFileLocator);
+		return plugin.apply(builder, typeDescription, classFileLocator).make().getBytes();
+	}
+
+	private static Class<?> load(byte[] bytes) throws ClassNotFoundException {
+		var name = "com.example.GeneratedTestClass";
+		return new ByteArrayClassLoader(getSystemClassLoader(), singletonMap(name, bytes)).loadClass(name);
+	}
+
+}
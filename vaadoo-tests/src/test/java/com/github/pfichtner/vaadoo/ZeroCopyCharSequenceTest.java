@@ -0,0 +1,116 @@
+package com.github.pfichtner.vaadoo;
+
+import static com.github.pfichtner.vaadoo.DynamicByteCode.Config.config;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.ConfigEntry.entry;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.dynamicClass;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.provideExecException;
+import static com.github.pfichtner.vaadoo.DynamicByteCode.transform;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.github.pfichtner.vaadoo.DynamicByteCode.Config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * The checks of CharSequences must only use the CharSequence's interface and
+ * must not copy it using <code>toString()</code> (e.g. CharSequences that are
+ * views of a <code>ByteBuffer</code>).
+ */
+class ZeroCopyCharSequenceTest {
+
+	/**
+	 * A CharSequence that is not a String and can't be converted to one.
+	 */
+	public static final class NoToStringCharSequence implements CharSequence {
+
+		private final String chars;
+
+		public NoToStringCharSequence(String chars) {
+			this.chars = chars;
+		}
+
+		@Override
+		public int length() {
+			return chars.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new NoToStringCharSequence(chars.substring(start, end));
+		}
+
+		@Override
+		public String toString() {
+			throw new UnsupportedOperationException("toString() must not be called");
+		}
+
+	}
+
+	static Stream<Arguments> constraints() {
+		return Stream.of( //
+				arguments(NotBlank.class, Map.of(), new String[] { "", " \t", " x " }), //
+				arguments(NotEmpty.class, Map.of(), new String[] { "", " " }), //
+				arguments(Size.class, Map.of("min", 2, "max", 3), new String[] { "x", "xy", "wxyz" }), //
+				arguments(Pattern.class, Map.of("regexp", "[a-z]+\\d?"), new String[] { "abc", "abc1", "1" }), //
+				arguments(Pattern.class, Map.of("regexp", "(?=.*\\d)\\w+"), new String[] { "abc", "abc1" }), //
+				arguments(Email.class, Map.of(),
+						new String[] { "", "a@b.c", "a.b@c", "\"x y\"@example.com", "a@exämple.com", "a@[1.2.3.4]",
+								"a@[IPv6:::1]", "a@[1.2.3]", "a@b.", "ab" }), //
+				arguments(Email.class, Map.of("regexp", ".*@example\\.com"),
+						new String[] { "a@example.com", "a@example.org" }), //
+				arguments(DecimalMin.class, Map.of("value", "1.5"),
+						new String[] { "1.5", "1.49", "2", "-3", "1e1", "x", "" }), //
+				arguments(DecimalMin.class, Map.of("value", "1.5", "inclusive", false),
+						new String[] { "1.5", "1.51" }), //
+				arguments(DecimalMax.class, Map.of("value", "1.5"),
+						new String[] { "1.5", "1.51", "1", "-3", "1e1", "x", "" }), //
+				arguments(DecimalMax.class, Map.of("value", "1.5", "inclusive", false),
+						new String[] { "1.5", "1.49" }), //
+				arguments(Digits.class, Map.of("integer", 2, "fraction", 1),
+						new String[] { "12.3", "123", "1.23", "-1", "1e5", "x", "" }) //
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("constraints")
+	void behavesLikeString(Class<? extends Annotation> anno, Map<String, Object> annoValues, String[] values)
+			throws Exception {
+		var transformed = transform(dynamicClass(configWith(anno, annoValues, "")));
+		for (String value : values) {
+			assertThat(outcome(transformed, configWith(anno, annoValues, new NoToStringCharSequence(value))))
+					.describedAs(value).isEqualTo(outcome(transformed, configWith(anno, annoValues, value)));
+		}
+	}
+
+	private static Config configWith(Class<? extends Annotation> anno, Map<String, Object> annoValues,
+			CharSequence value) {
+		return config().withEntry(entry(CharSequence.class, "param", value).withAnno(anno, annoValues));
+	}
+
+	private static Optional<String> outcome(Class<?> transformed, Config config) throws Exception {
+		return provideExecException(transformed, config).map(e -> e.getClass().getName() + ": " + e.getMessage());
+	}
+
+}